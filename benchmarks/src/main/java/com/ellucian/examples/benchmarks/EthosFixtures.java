@@ -0,0 +1,179 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples.benchmarks;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.generated.eedm.persons.v12_4_0.Persons;
+import com.ellucian.generated.eedm.sections.v16_1_0.Sections;
+import com.ellucian.generated.eedm.student_cohorts.v7_2_0.StudentCohorts;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Builds fixture pages of EEDM resources for the benchmarks.  Each resource has a single record template under
+ * src/main/resources/fixtures, and a page is built by repeating the template with a distinct id and index for each
+ * row, so pages of any size can be produced while keeping the record shape of the recorded payloads.
+ */
+public final class EthosFixtures {
+
+    /**
+     * The resources and versions with fixtures.
+     */
+    public enum Resource {
+        STUDENT_COHORTS( "student-cohorts", "7.2.0", StudentCohorts.class ),
+        PERSONS( "persons", "12.4.0", Persons.class ),
+        SECTIONS( "sections", "16.1.0", Sections.class );
+
+        private final String resourceName;
+        private final String versionNumber;
+        private final Class<?> beanClass;
+
+        Resource( String resourceName, String versionNumber, Class<?> beanClass ) {
+            this.resourceName = resourceName;
+            this.versionNumber = versionNumber;
+            this.beanClass = beanClass;
+        }
+
+        /**
+         * Gets the Ethos resource name.
+         * @return The resource name.
+         */
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        /**
+         * Gets the full version header value of the fixture version of the resource.
+         * @return The version, for example "application/vnd.hedtech.integration.v12.4.0+json".
+         */
+        public String getVersion() {
+            return "application/vnd.hedtech.integration.v" + versionNumber + "+json";
+        }
+
+        /**
+         * Gets the generated JavaBean class for the resource and version.
+         * @return The JavaBean class.
+         */
+        public Class<?> getBeanClass() {
+            return beanClass;
+        }
+
+        /**
+         * Gets the fixture resource for the given Ethos resource name.
+         * @param resourceName The resource name.
+         * @return The fixture resource, or null if there is no fixture for the resource.
+         */
+        public static Resource forResourceName( String resourceName ) {
+            for( Resource resource : values() ) {
+                if( resource.resourceName.equals(resourceName) ) {
+                    return resource;
+                }
+            }
+            return null;
+        }
+    }
+
+    private static final Map<Resource, String> TEMPLATE_MAP = new ConcurrentHashMap<>();
+
+    private EthosFixtures() {
+    }
+
+    /**
+     * Builds the JSON array body of a page of the given resource.
+     * @param resource The fixture resource.
+     * @param offset The row offset of the first row, used to give each row a distinct id.
+     * @param pageSize The number of rows in the page.
+     * @return The page body as a JSON formatted string.
+     */
+    public static String buildPage( Resource resource, int offset, int pageSize ) {
+        String template = loadTemplate( resource );
+        StringBuilder page = new StringBuilder( (template.length() + 2) * pageSize + 2 ).append( '[' );
+        for( int i = 0; i < pageSize; i++ ) {
+            int row = offset + i;
+            if( i > 0 ) {
+                page.append( ',' );
+            }
+            page.append( fillTemplate(template, row) );
+        }
+        return page.append( ']' ).toString();
+    }
+
+    /**
+     * Wraps a page body in an EthosResponse with the paging headers the proxy API returns.
+     * @param content The page body.
+     * @param totalCount The value of the 'x-total-count' header.
+     * @param maxPageSize The value of the 'x-max-page-size' header.
+     * @return An EthosResponse for the page.
+     */
+    public static EthosResponse toEthosResponse( String content, int totalCount, int maxPageSize ) {
+        Map<String, String> headers = new HashMap<>();
+        headers.put( EthosProxyClient.HDR_X_TOTAL_COUNT, String.valueOf(totalCount) );
+        headers.put( EthosProxyClient.HDR_X_MAX_PAGE_SIZE, String.valueOf(maxPageSize) );
+        headers.put( "Content-Type", "application/json" );
+        return toEthosResponse( headers, content, 200 );
+    }
+
+    /**
+     * Wraps a response body and headers in an EthosResponse.  This is the only place the benchmarks construct an
+     * EthosResponse.
+     * @param headers The response headers.
+     * @param content The response body.
+     * @param httpStatusCode The HTTP status code of the response.
+     * @return An EthosResponse for the response.
+     */
+    public static EthosResponse toEthosResponse( Map<String, String> headers, String content, int httpStatusCode ) {
+        return new EthosResponse<>( headers, content, httpStatusCode );
+    }
+
+    /**
+     * Builds a single record of the given resource as a JSON formatted string.
+     * @param resource The fixture resource.
+     * @param row The row number, used to give the record a distinct id.
+     * @return The record as a JSON formatted string.
+     */
+    public static String buildRecord( Resource resource, int row ) {
+        return fillTemplate( loadTemplate(resource), row );
+    }
+
+    /**
+     * Builds the id of the record at the given row, as used in the fixture pages.
+     * @param row The row number.
+     * @return The record id.
+     */
+    public static String recordId( int row ) {
+        return String.format( "00000000-0000-4000-8000-%012d", row );
+    }
+
+    private static String fillTemplate( String template, int row ) {
+        return template.replace( "${id}", recordId(row) ).replace( "${n}", String.valueOf(row) );
+    }
+
+    private static String loadTemplate( Resource resource ) {
+        return TEMPLATE_MAP.computeIfAbsent( resource, EthosFixtures::readTemplate );
+    }
+
+    private static String readTemplate( Resource resource ) {
+        String path = "/fixtures/" + resource.resourceName + "-v" + resource.versionNumber + ".json";
+        try( InputStream inputStream = EthosFixtures.class.getResourceAsStream(path) ) {
+            if( inputStream == null ) {
+                throw new IllegalStateException( "Missing fixture " + path );
+            }
+            // Collapse the pretty printed template onto one line, as the API returns compact JSON.
+            return new String( inputStream.readAllBytes(), StandardCharsets.UTF_8 ).replaceAll( "\\s*\\n\\s*", "" );
+        }
+        catch( IOException ioe ) {
+            throw new UncheckedIOException( ioe );
+        }
+    }
+
+}
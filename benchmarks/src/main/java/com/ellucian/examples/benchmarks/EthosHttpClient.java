@@ -0,0 +1,251 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples.benchmarks;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.examples.EthosJsonSupport;
+import com.ellucian.examples.EthosPageFetcher;
+import com.ellucian.examples.EthosPrefetchingMessageConsumer;
+import com.ellucian.examples.EthosResponseCache;
+import org.apache.http.client.HttpResponseException;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * A minimal client for the Ethos Integration endpoints at any base URL, used to run the paging utilities of the
+ * examples against the MockEthosServer, which the SDK clients cannot be pointed at.  Responses are returned as
+ * EthosResponses with the same headers and body as the SDK clients return, and failed requests throw an
+ * HttpResponseException as the SDK clients do.
+ * <p>
+ * The access token is requested on first use and reused until a request is rejected with a 401, when a new token is
+ * requested and the request retried once.  The client is safe to share across threads.
+ */
+public class EthosHttpClient {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private final String baseUrl;
+    private final String apiKey;
+    private final HttpClient httpClient;
+    private volatile String accessToken;
+
+    /**
+     * Creates a client for the given base URL.
+     * @param baseUrl The base URL, such as MockEthosServer.getBaseUrl().
+     * @param apiKey The API key sent to the auth endpoint.
+     */
+    public EthosHttpClient( String baseUrl, String apiKey ) {
+        if( baseUrl == null || apiKey == null ) {
+            throw new IllegalArgumentException( "The baseUrl and apiKey are required." );
+        }
+        this.baseUrl = baseUrl.endsWith( "/" ) ? baseUrl.substring( 0, baseUrl.length() - 1 ) : baseUrl;
+        this.apiKey = apiKey;
+        this.httpClient = HttpClient.newBuilder()
+                                    .version( HttpClient.Version.HTTP_1_1 )
+                                    .connectTimeout( Duration.ofSeconds(30) )
+                                    .build();
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the current access token, requesting one from the auth endpoint if there is none yet.
+     * @return The access token.
+     * @throws IOException Thrown if a token could not be obtained.
+     */
+    public String getAccessToken() throws IOException {
+        String token = accessToken;
+        return (token != null) ? token : refreshAccessToken( null );
+    }
+
+    /**
+     * Gets a page of the given resource.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The row offset of the first row in the page.
+     * @param pageSize The number of rows requested, or 0 for the default page size.
+     * @return An EthosResponse containing the page.
+     * @throws IOException Thrown if the request fails.
+     */
+    public EthosResponse get( String resourceName, String version, int offset, int pageSize ) throws IOException {
+        String query = "?offset=" + offset + ((pageSize > 0) ? "&limit=" + pageSize : "");
+        return send( "/api/" + resourceName + query, version );
+    }
+
+    /**
+     * Gets a single record of the given resource.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param id The id of the record.
+     * @return An EthosResponse containing the record.
+     * @throws IOException Thrown if the request fails.
+     */
+    public EthosResponse getById( String resourceName, String version, String id ) throws IOException {
+        return send( "/api/" + resourceName + "/" + id, version );
+    }
+
+    /**
+     * Gets a single record of the given resource only if it has changed, by sending the validators of a cached copy
+     * as 'If-None-Match' and 'If-Modified-Since'.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param id The id of the record.
+     * @param etag The 'ETag' of the cached copy, or null if there is none.
+     * @param lastModified The 'Last-Modified' of the cached copy, or null if there is none.
+     * @return An EthosResponse containing the record, or null if the API answered 304 Not Modified.
+     * @throws IOException Thrown if the request fails.
+     */
+    public EthosResponse getByIdIfModified( String resourceName, String version, String id, String etag, String lastModified ) throws IOException {
+        Map<String, String> conditionalHeaders = new HashMap<>();
+        if( etag != null ) {
+            conditionalHeaders.put( "If-None-Match", etag );
+        }
+        if( lastModified != null ) {
+            conditionalHeaders.put( "If-Modified-Since", lastModified );
+        }
+        return send( "/api/" + resourceName + "/" + id, version, conditionalHeaders );
+    }
+
+    /**
+     * Gets an EthosResponseCache.ResponseLoader for a single record that revalidates with conditional requests, so a
+     * cached record that has not changed is kept without the API sending it again.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param id The id of the record.
+     * @return A conditional ResponseLoader for the record.
+     */
+    public EthosResponseCache.ResponseLoader byIdLoader( String resourceName, String version, String id ) {
+        return (etag, lastModified) -> getByIdIfModified( resourceName, version, id, etag, lastModified );
+    }
+
+    /**
+     * Consumes change notifications after the given id.
+     * @param lastProcessedId The id of the last change notification processed, or 0 to start from the first.
+     * @param limit The maximum number of change notifications to return.
+     * @return An EthosResponse containing the change notifications as a JSON array.
+     * @throws IOException Thrown if the request fails.
+     */
+    public EthosResponse consume( long lastProcessedId, int limit ) throws IOException {
+        return send( "/consume?lastProcessedID=" + lastProcessedId + "&limit=" + limit, null );
+    }
+
+    /**
+     * Gets a page of errors.
+     * @param offset The row offset of the first error in the page.
+     * @param pageSize The number of errors requested.
+     * @return An EthosResponse containing the errors as a JSON array.
+     * @throws IOException Thrown if the request fails.
+     */
+    public EthosResponse getErrors( int offset, int pageSize ) throws IOException {
+        return send( "/errors?offset=" + offset + "&limit=" + pageSize, null );
+    }
+
+    /**
+     * Gets the application configuration.
+     * @return An EthosResponse containing the application configuration.
+     * @throws IOException Thrown if the request fails.
+     */
+    public EthosResponse getAppConfig() throws IOException {
+        return send( "/appconfig", null );
+    }
+
+    /**
+     * Gets an EthosPageFetcher for the given resource, so the paging utilities of the examples can be used with this
+     * client.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return An EthosPageFetcher for the resource.
+     */
+    public EthosPageFetcher pageFetcher( String resourceName, String version ) {
+        return (offset, pageSize) -> get( resourceName, version, offset, pageSize );
+    }
+
+    /**
+     * Gets a MessageFetcher that consumes change notifications with this client, so the EthosPrefetchingMessageConsumer
+     * can be used with it.
+     * @return A MessageFetcher for the message queue.
+     */
+    public EthosPrefetchingMessageConsumer.MessageFetcher messageFetcher() {
+        return (limit, lastProcessedId) -> EthosJsonSupport.readList( consume(lastProcessedId, limit), ChangeNotification.class );
+    }
+
+    private EthosResponse send( String pathAndQuery, String version ) throws IOException {
+        return send( pathAndQuery, version, Collections.emptyMap() );
+    }
+
+    private EthosResponse send( String pathAndQuery, String version, Map<String, String> requestHeaders ) throws IOException {
+        String token = getAccessToken();
+        HttpResponse<String> response = execute( newRequest(pathAndQuery, version, token, requestHeaders).GET().build() );
+        if( response.statusCode() == 401 ) {
+            token = refreshAccessToken( token );
+            response = execute( newRequest(pathAndQuery, version, token, requestHeaders).GET().build() );
+        }
+        if( response.statusCode() == 304 ) {
+            return null;
+        }
+        if( response.statusCode() / 100 != 2 ) {
+            throw new HttpResponseException( response.statusCode(), "Request to " + pathAndQuery + " failed: " + response.body() );
+        }
+        Map<String, String> headers = new HashMap<>();
+        for( Map.Entry<String, List<String>> header : response.headers().map().entrySet() ) {
+            if( !header.getValue().isEmpty() ) {
+                headers.put( header.getKey().toLowerCase(Locale.ROOT), header.getValue().get(0) );
+            }
+        }
+        return EthosFixtures.toEthosResponse( headers, response.body(), response.statusCode() );
+    }
+
+    private synchronized String refreshAccessToken( String rejectedToken ) throws IOException {
+        // Another thread may already have replaced the token while this one was waiting.
+        if( accessToken != null && !accessToken.equals(rejectedToken) ) {
+            return accessToken;
+        }
+        HttpRequest request = newRequest( "/auth", null, apiKey, Collections.emptyMap() ).POST( HttpRequest.BodyPublishers.noBody() ).build();
+        HttpResponse<String> response = execute( request );
+        if( response.statusCode() / 100 != 2 ) {
+            throw new HttpResponseException( response.statusCode(), "Failed to get an access token: " + response.body() );
+        }
+        accessToken = response.body().trim();
+        return accessToken;
+    }
+
+    private HttpRequest.Builder newRequest( String pathAndQuery, String version, String bearer, Map<String, String> requestHeaders ) {
+        HttpRequest.Builder builder = HttpRequest.newBuilder( URI.create(baseUrl + pathAndQuery) )
+                                                 .timeout( Duration.ofSeconds(60) )
+                                                 .header( "Authorization", "Bearer " + bearer );
+        if( version != null && !version.isBlank() ) {
+            builder.header( "Accept", version );
+        }
+        requestHeaders.forEach( builder::header );
+        return builder;
+    }
+
+    private HttpResponse<String> execute( HttpRequest request ) throws IOException {
+        try {
+            return httpClient.send( request, HttpResponse.BodyHandlers.ofString() );
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for " + request.uri() );
+        }
+    }
+
+}
@@ -0,0 +1,573 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples.benchmarks;
+
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * An in-process stand-in for the Ethos Integration auth, proxy, messages, errors and appconfig endpoints, so that
+ * paging, filtering and change notification consumption can be load tested repeatably without an API key or tenant.
+ * <p>
+ * Each resource is served from a dataset of generated fixture records, with the same 'x-total-count' and
+ * 'x-max-page-size' headers as the proxy API, and change notifications are generated over the same records.  A
+ * configurable latency is added to every request, and a configurable fraction of requests fail, to see how the paging
+ * utilities behave against a slow or unreliable API.  The latency and fault of each request are drawn from the seed,
+ * the method and URI of the request, and how many times that same request has been made before.  Runs with the same
+ * configuration making the same requests therefore see the same latency and faults for each request, whatever order
+ * concurrent requests arrive in.
+ * <p>
+ * The endpoints use the same paths as Ethos Integration:
+ * <ul>
+ *     <li>POST /auth with 'Authorization: Bearer &lt;API key&gt;' returns an access token.</li>
+ *     <li>GET /api/{resource}?offset=&amp;limit= returns a page, and GET /api/{resource}/{id} a single record.  Filter
+ *         parameters such as criteria are accepted but not applied.  Single records have an 'ETag', and a request with
+ *         a matching 'If-None-Match' is answered with 304 Not Modified.</li>
+ *     <li>GET /consume?lastProcessedID=&amp;limit= returns change notifications with an 'x-remaining' header.</li>
+ *     <li>GET /errors?offset=&amp;limit= returns a page of errors.</li>
+ *     <li>GET /appconfig returns the application configuration.</li>
+ * </ul>
+ * The SDK clients built by the EthosClientBuilder always use the Ethos Integration URLs for their region, so they
+ * cannot be pointed at this server.  Use the EthosHttpClient to make the same requests against it instead.
+ */
+public class MockEthosServer implements Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default maximum page size of every resource.
+     */
+    public static final int DEFAULT_MAX_PAGE_SIZE = 500;
+
+    /**
+     * The default number of change notifications returned by a consume request without a limit.
+     */
+    public static final int DEFAULT_CONSUME_LIMIT = 20;
+
+    private static final String HDR_X_MEDIA_TYPE = "x-media-type";
+    private static final String HDR_X_REMAINING = "x-remaining";
+    private static final String HDR_ETAG = "ETag";
+
+    private final HttpServer httpServer;
+    private final ExecutorService executorService;
+    private final Map<EthosFixtures.Resource, Integer> datasetMap;
+    private final int maxPageSize;
+    private final int messageCount;
+    private final int errorCount;
+    private final long minLatencyMillis;
+    private final long maxLatencyMillis;
+    private final double faultRate;
+    private final int faultStatusCode;
+    private final long seed;
+    private final Map<String, AtomicLong> requestOccurrenceMap = new ConcurrentHashMap<>();
+    private final Set<String> issuedTokens = ConcurrentHashMap.newKeySet();
+    private final Map<String, AtomicLong> requestCountMap = new ConcurrentHashMap<>();
+    private final AtomicLong faultCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+
+    private MockEthosServer( Builder builder ) throws IOException {
+        this.datasetMap = new EnumMap<>( builder.datasetMap );
+        this.maxPageSize = builder.maxPageSize;
+        this.messageCount = builder.messageCount;
+        this.errorCount = builder.errorCount;
+        this.minLatencyMillis = builder.minLatencyMillis;
+        this.maxLatencyMillis = builder.maxLatencyMillis;
+        this.faultRate = builder.faultRate;
+        this.faultStatusCode = builder.faultStatusCode;
+        this.seed = builder.seed;
+        AtomicInteger threadCount = new AtomicInteger();
+        this.executorService = Executors.newFixedThreadPool( builder.threads, runnable -> {
+            Thread thread = new Thread( runnable, "mock-ethos-server-" + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        });
+        this.httpServer = HttpServer.create( new InetSocketAddress(InetAddress.getLoopbackAddress(), builder.port), 0 );
+        this.httpServer.setExecutor( executorService );
+        this.httpServer.createContext( "/auth", exchange -> handle(exchange, "auth", this::handleAuth) );
+        this.httpServer.createContext( "/api/", exchange -> handle(exchange, "api", this::handleApi) );
+        this.httpServer.createContext( "/consume", exchange -> handle(exchange, "consume", this::handleConsume) );
+        this.httpServer.createContext( "/errors", exchange -> handle(exchange, "errors", this::handleErrors) );
+        this.httpServer.createContext( "/appconfig", exchange -> handle(exchange, "appconfig", this::handleAppConfig) );
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Runs a mock server with a dataset of every fixture resource until the process is stopped.
+     * @param args An optional port, otherwise 8080, and an optional number of rows per resource, otherwise 10000.
+     * @throws Exception Propagates any exception thrown.
+     */
+    public static void main( String[] args ) throws Exception {
+        int port = (args.length > 0) ? Integer.parseInt( args[0] ) : 8080;
+        int rows = (args.length > 1) ? Integer.parseInt( args[1] ) : 10000;
+        Builder builder = new Builder().withPort( port ).withMessages( rows ).withErrors( 100 );
+        for( EthosFixtures.Resource resource : EthosFixtures.Resource.values() ) {
+            builder.withDataset( resource, rows );
+        }
+        MockEthosServer mockEthosServer = builder.build().start();
+        System.out.println( "Mock Ethos server listening at " + mockEthosServer.getBaseUrl() );
+        new CountDownLatch( 1 ).await();
+    }
+
+    /**
+     * Starts accepting requests.
+     * @return This server.
+     */
+    public MockEthosServer start() {
+        httpServer.start();
+        return this;
+    }
+
+    /**
+     * Gets the base URL of the server, such as http://127.0.0.1:8080, to which the endpoint paths are appended.
+     * @return The base URL.
+     */
+    public String getBaseUrl() {
+        InetSocketAddress address = httpServer.getAddress();
+        return "http://" + address.getAddress().getHostAddress() + ":" + address.getPort();
+    }
+
+    /**
+     * Gets the number of requests received for the given endpoint.
+     * @param endpoint The endpoint: auth, api, consume, errors or appconfig.
+     * @return The number of requests received.
+     */
+    public long getRequestCount( String endpoint ) {
+        AtomicLong requestCount = requestCountMap.get( endpoint );
+        return (requestCount == null) ? 0 : requestCount.get();
+    }
+
+    /**
+     * Gets the number of requests received for each endpoint.
+     * @return A map of endpoint to number of requests, sorted by endpoint.
+     */
+    public Map<String, Long> getRequestCounts() {
+        Map<String, Long> requestCounts = new TreeMap<>();
+        requestCountMap.forEach( (endpoint, count) -> requestCounts.put(endpoint, count.get()) );
+        return Collections.unmodifiableMap( requestCounts );
+    }
+
+    /**
+     * Gets the number of requests failed by fault injection.
+     * @return The number of injected faults.
+     */
+    public long getFaultCount() {
+        return faultCount.get();
+    }
+
+    /**
+     * Gets the number of conditional requests answered with 304 Not Modified.
+     * @return The not modified count.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Stops the server and its threads.
+     */
+    @Override
+    public void close() {
+        httpServer.stop( 0 );
+        executorService.shutdownNow();
+    }
+
+    @FunctionalInterface
+    private interface Handler {
+        void handle( HttpExchange exchange, Map<String, String> queryParams ) throws IOException;
+    }
+
+    private void handle( HttpExchange exchange, String endpoint, Handler handler ) throws IOException {
+        try {
+            requestCountMap.computeIfAbsent( endpoint, name -> new AtomicLong() ).incrementAndGet();
+            SplittableRandom requestRandom = newRequestRandom( exchange );
+            long latencyMillis = minLatencyMillis;
+            if( maxLatencyMillis > minLatencyMillis ) {
+                latencyMillis += (long) (requestRandom.nextDouble() * (maxLatencyMillis - minLatencyMillis));
+            }
+            boolean fault = faultRate > 0 && requestRandom.nextDouble() < faultRate;
+            if( latencyMillis > 0 ) {
+                TimeUnit.MILLISECONDS.sleep( latencyMillis );
+            }
+            if( fault ) {
+                faultCount.incrementAndGet();
+                sendError( exchange, faultStatusCode, "Injected fault." );
+                return;
+            }
+            if( !"auth".equals(endpoint) && !issuedTokens.contains(getBearer(exchange)) ) {
+                sendError( exchange, 401, "A valid access token is required." );
+                return;
+            }
+            handler.handle( exchange, parseQuery(exchange.getRequestURI().getRawQuery()) );
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            sendError( exchange, 503, "The server is shutting down." );
+        }
+        catch( RuntimeException re ) {
+            sendError( exchange, 500, String.valueOf(re.getMessage()) );
+        }
+        finally {
+            exchange.close();
+        }
+    }
+
+    private SplittableRandom newRequestRandom( HttpExchange exchange ) {
+        // Seeded from the request itself rather than drawn from one shared generator, since the order in which the
+        // server threads would draw from that is not repeatable.
+        String requestKey = exchange.getRequestMethod() + " " + exchange.getRequestURI();
+        long occurrence = requestOccurrenceMap.computeIfAbsent( requestKey, key -> new AtomicLong() ).incrementAndGet();
+        return new SplittableRandom( seed ^ (((long) requestKey.hashCode() << 32) | occurrence) );
+    }
+
+    private void handleAuth( HttpExchange exchange, Map<String, String> queryParams ) throws IOException {
+        if( !"POST".equals(exchange.getRequestMethod()) ) {
+            sendError( exchange, 405, "The auth endpoint only supports POST." );
+            return;
+        }
+        String apiKey = getBearer( exchange );
+        if( apiKey == null || apiKey.isBlank() ) {
+            sendError( exchange, 401, "An API key is required." );
+            return;
+        }
+        String accessToken = "mock." + UUID.randomUUID();
+        issuedTokens.add( accessToken );
+        send( exchange, 200, "text/plain", Collections.emptyMap(), accessToken );
+    }
+
+    private void handleApi( HttpExchange exchange, Map<String, String> queryParams ) throws IOException {
+        // The path is /api/{resource} or /api/{resource}/{id}.
+        String[] pathParts = exchange.getRequestURI().getPath().substring( "/api/".length() ).split( "/" );
+        EthosFixtures.Resource resource = EthosFixtures.Resource.forResourceName( pathParts[0] );
+        if( resource == null || !datasetMap.containsKey(resource) ) {
+            sendError( exchange, 404, "No dataset for resource " + pathParts[0] );
+            return;
+        }
+        int totalCount = datasetMap.get( resource );
+        Map<String, String> headers = new HashMap<>();
+        headers.put( HDR_X_MEDIA_TYPE, resource.getVersion() );
+        if( pathParts.length > 1 ) {
+            int row = toRow( pathParts[1] );
+            if( row < 0 || row >= totalCount ) {
+                sendError( exchange, 404, "No " + resource.getResourceName() + " record with id " + pathParts[1] );
+                return;
+            }
+            // Records never change, so the ETag only depends on the record and conditional requests always match.
+            String etag = "\"" + resource.getResourceName() + "-" + row + "\"";
+            headers.put( HDR_ETAG, etag );
+            if( etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match")) ) {
+                notModifiedCount.incrementAndGet();
+                headers.forEach( (name, value) -> exchange.getResponseHeaders().set(name, value) );
+                exchange.sendResponseHeaders( 304, -1 );
+                return;
+            }
+            send( exchange, 200, resource.getVersion(), headers, EthosFixtures.buildRecord(resource, row) );
+            return;
+        }
+        int offset = Math.max( 0, getIntParam(queryParams, "offset", 0) );
+        int limit = Math.min( Math.max(1, getIntParam(queryParams, "limit", maxPageSize)), maxPageSize );
+        int rows = Math.max( 0, Math.min(limit, totalCount - offset) );
+        headers.put( EthosProxyClient.HDR_X_TOTAL_COUNT, String.valueOf(totalCount) );
+        headers.put( EthosProxyClient.HDR_X_MAX_PAGE_SIZE, String.valueOf(maxPageSize) );
+        send( exchange, 200, resource.getVersion(), headers, EthosFixtures.buildPage(resource, offset, rows) );
+    }
+
+    private void handleConsume( HttpExchange exchange, Map<String, String> queryParams ) throws IOException {
+        // Notification ids run from 1 to the message count, and each is a change to one of the dataset records.
+        long lastProcessedId = Math.max( 0, getLongParam(queryParams, "lastProcessedID", 0) );
+        int limit = Math.max( 1, getIntParam(queryParams, "limit", DEFAULT_CONSUME_LIMIT) );
+        long firstId = lastProcessedId + 1;
+        long lastId = Math.min( messageCount, lastProcessedId + limit );
+        EthosFixtures.Resource[] resources = datasetMap.keySet().toArray( new EthosFixtures.Resource[0] );
+        StringBuilder body = new StringBuilder( "[" );
+        for( long id = firstId; id <= lastId && resources.length > 0; id++ ) {
+            EthosFixtures.Resource resource = resources[ (int) (id % resources.length) ];
+            int row = (int) ((id / resources.length) % Math.max(1, datasetMap.get(resource)));
+            if( id > firstId ) {
+                body.append( ',' );
+            }
+            body.append( "{\"id\":\"" ).append( id ).append( "\"," )
+                .append( "\"published\":\"" ).append( Instant.ofEpochSecond(1640995200L + id) ).append( "\"," )
+                .append( "\"resource\":{\"name\":\"" ).append( resource.getResourceName() )
+                .append( "\",\"id\":\"" ).append( EthosFixtures.recordId(row) )
+                .append( "\",\"version\":\"" ).append( resource.getVersion() ).append( "\"}," )
+                .append( "\"operation\":\"replaced\",\"contentType\":\"resource-representation\"," )
+                .append( "\"publisher\":{\"id\":\"mock-publisher\",\"applicationName\":\"Mock Ethos Server\"}," )
+                .append( "\"content\":" ).append( EthosFixtures.buildRecord(resource, row) ).append( '}' );
+        }
+        body.append( ']' );
+        Map<String, String> headers = new HashMap<>();
+        headers.put( HDR_X_REMAINING, String.valueOf(Math.max(0, messageCount - Math.max(lastId, lastProcessedId))) );
+        send( exchange, 200, "application/vnd.hedtech.change-notifications.v2+json", headers, body.toString() );
+    }
+
+    private void handleErrors( HttpExchange exchange, Map<String, String> queryParams ) throws IOException {
+        int offset = Math.max( 0, getIntParam(queryParams, "offset", 0) );
+        int limit = Math.min( Math.max(1, getIntParam(queryParams, "limit", maxPageSize)), maxPageSize );
+        int lastRow = Math.min( errorCount, offset + limit );
+        StringBuilder body = new StringBuilder( "[" );
+        for( int row = offset; row < lastRow; row++ ) {
+            if( row > offset ) {
+                body.append( ',' );
+            }
+            body.append( "{\"id\":\"" ).append( EthosFixtures.recordId(row) ).append( "\"," )
+                .append( "\"severity\":\"error\",\"responseCode\":400," )
+                .append( "\"description\":\"Mock error ").append( row ).append( "\"," )
+                .append( "\"details\":\"Generated by the mock Ethos server.\"," )
+                .append( "\"applicationId\":\"mock-application\",\"applicationName\":\"Mock Ethos Server\"," )
+                .append( "\"correlationId\":\"" ).append( UUID.nameUUIDFromBytes(String.valueOf(row).getBytes(StandardCharsets.UTF_8)) ).append( "\"," )
+                .append( "\"dateCreated\":\"" ).append( Instant.ofEpochSecond(1640995200L + row) ).append( "\"," )
+                .append( "\"resource\":{\"id\":\"" ).append( EthosFixtures.recordId(row) ).append( "\",\"name\":\"persons\"}}" );
+        }
+        body.append( ']' );
+        Map<String, String> headers = new HashMap<>();
+        headers.put( EthosProxyClient.HDR_X_TOTAL_COUNT, String.valueOf(errorCount) );
+        headers.put( EthosProxyClient.HDR_X_MAX_PAGE_SIZE, String.valueOf(maxPageSize) );
+        send( exchange, 200, "application/vnd.hedtech.errors.v2+json", headers, body.toString() );
+    }
+
+    private void handleAppConfig( HttpExchange exchange, Map<String, String> queryParams ) throws IOException {
+        StringBuilder body = new StringBuilder( "{\"id\":\"mock-application\",\"name\":\"Mock Ethos Server\",\"resources\":[" );
+        boolean first = true;
+        for( EthosFixtures.Resource resource : datasetMap.keySet() ) {
+            body.append( first ? "" : "," )
+                .append( "{\"name\":\"" ).append( resource.getResourceName() ).append( "\",\"versions\":[\"" )
+                .append( resource.getVersion() ).append( "\"]}" );
+            first = false;
+        }
+        body.append( "]}" );
+        send( exchange, 200, "application/json", Collections.emptyMap(), body.toString() );
+    }
+
+    private static void send( HttpExchange exchange, int statusCode, String contentType, Map<String, String> headers,
+                              String body ) throws IOException {
+        byte[] bodyBytes = body.getBytes( StandardCharsets.UTF_8 );
+        exchange.getResponseHeaders().set( "Content-Type", contentType );
+        headers.forEach( (name, value) -> exchange.getResponseHeaders().set(name, value) );
+        exchange.sendResponseHeaders( statusCode, bodyBytes.length );
+        try( OutputStream outputStream = exchange.getResponseBody() ) {
+            outputStream.write( bodyBytes );
+        }
+    }
+
+    private static void sendError( HttpExchange exchange, int statusCode, String message ) throws IOException {
+        String body = "{\"errors\":[{\"code\":\"" + statusCode + "\",\"message\":\"" + message.replace("\"", "'") + "\"}]}";
+        send( exchange, statusCode, "application/json", Collections.emptyMap(), body );
+    }
+
+    private static String getBearer( HttpExchange exchange ) {
+        String authorization = exchange.getRequestHeaders().getFirst( "Authorization" );
+        if( authorization == null || !authorization.startsWith("Bearer ") ) {
+            return null;
+        }
+        return authorization.substring( "Bearer ".length() ).trim();
+    }
+
+    private static int toRow( String id ) {
+        // Fixture ids end with the row number, as built by EthosFixtures.recordId().
+        try {
+            return EthosFixtures.recordId( 0 ).length() == id.length() ? Integer.parseInt( id.substring(id.lastIndexOf('-') + 1) ) : -1;
+        }
+        catch( NumberFormatException nfe ) {
+            return -1;
+        }
+    }
+
+    private static Map<String, String> parseQuery( String rawQuery ) {
+        Map<String, String> queryParams = new HashMap<>();
+        if( rawQuery == null || rawQuery.isEmpty() ) {
+            return queryParams;
+        }
+        for( String param : rawQuery.split("&") ) {
+            int equals = param.indexOf( '=' );
+            String name = (equals < 0) ? param : param.substring( 0, equals );
+            String value = (equals < 0) ? "" : param.substring( equals + 1 );
+            queryParams.put( URLDecoder.decode(name, StandardCharsets.UTF_8), URLDecoder.decode(value, StandardCharsets.UTF_8) );
+        }
+        return queryParams;
+    }
+
+    private static int getIntParam( Map<String, String> queryParams, String name, int defaultValue ) {
+        return (int) Math.min( Integer.MAX_VALUE, getLongParam(queryParams, name, defaultValue) );
+    }
+
+    private static long getLongParam( Map<String, String> queryParams, String name, long defaultValue ) {
+        try {
+            String value = queryParams.get( name );
+            return (value == null || value.isBlank()) ? defaultValue : Long.parseLong( value.trim() );
+        }
+        catch( NumberFormatException nfe ) {
+            return defaultValue;
+        }
+    }
+
+    /**
+     * Builder for the MockEthosServer.
+     */
+    public static class Builder {
+
+        private final Map<EthosFixtures.Resource, Integer> datasetMap = new EnumMap<>( EthosFixtures.Resource.class );
+        private int port;
+        private int threads = 16;
+        private int maxPageSize = DEFAULT_MAX_PAGE_SIZE;
+        private int messageCount;
+        private int errorCount;
+        private long minLatencyMillis;
+        private long maxLatencyMillis;
+        private double faultRate;
+        private int faultStatusCode = 503;
+        private long seed = 42;
+
+        /**
+         * Listens on the given port.  By default a free port is chosen, which can be found from getBaseUrl().
+         * @param port The port to listen on, or 0 for any free port.
+         * @return This builder.
+         */
+        public Builder withPort( int port ) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Sets the number of threads handling requests, which is the most requests the server handles concurrently.
+         * @param threads The number of threads, which must be at least 1.
+         * @return This builder.
+         */
+        public Builder withThreads( int threads ) {
+            if( threads < 1 ) {
+                throw new IllegalArgumentException( "The threads must be at least 1: " + threads );
+            }
+            this.threads = threads;
+            return this;
+        }
+
+        /**
+         * Serves the given resource with the given number of records.
+         * @param resource The fixture resource.
+         * @param totalCount The number of records in the dataset.
+         * @return This builder.
+         */
+        public Builder withDataset( EthosFixtures.Resource resource, int totalCount ) {
+            if( totalCount < 0 ) {
+                throw new IllegalArgumentException( "The totalCount cannot be negative: " + totalCount );
+            }
+            datasetMap.put( resource, totalCount );
+            return this;
+        }
+
+        /**
+         * Sets the maximum page size returned in the 'x-max-page-size' header, and to which page limits are capped.
+         * @param maxPageSize The maximum page size, which must be at least 1.
+         * @return This builder.
+         */
+        public Builder withMaxPageSize( int maxPageSize ) {
+            if( maxPageSize < 1 ) {
+                throw new IllegalArgumentException( "The maxPageSize must be at least 1: " + maxPageSize );
+            }
+            this.maxPageSize = maxPageSize;
+            return this;
+        }
+
+        /**
+         * Makes the given number of change notifications available to consume.
+         * @param messageCount The number of change notifications.
+         * @return This builder.
+         */
+        public Builder withMessages( int messageCount ) {
+            this.messageCount = Math.max( 0, messageCount );
+            return this;
+        }
+
+        /**
+         * Makes the given number of errors available from the errors endpoint.
+         * @param errorCount The number of errors.
+         * @return This builder.
+         */
+        public Builder withErrors( int errorCount ) {
+            this.errorCount = Math.max( 0, errorCount );
+            return this;
+        }
+
+        /**
+         * Adds a latency, chosen uniformly between the minimum and maximum, to every request.
+         * @param minLatencyMillis The minimum latency in milliseconds.
+         * @param maxLatencyMillis The maximum latency in milliseconds.
+         * @return This builder.
+         */
+        public Builder withLatency( long minLatencyMillis, long maxLatencyMillis ) {
+            if( minLatencyMillis < 0 || maxLatencyMillis < minLatencyMillis ) {
+                throw new IllegalArgumentException( "Invalid latency range: " + minLatencyMillis + " to " + maxLatencyMillis );
+            }
+            this.minLatencyMillis = minLatencyMillis;
+            this.maxLatencyMillis = maxLatencyMillis;
+            return this;
+        }
+
+        /**
+         * Fails the given fraction of requests with the given HTTP status code.
+         * @param faultRate The fraction of requests to fail, from 0 to 1.
+         * @param faultStatusCode The HTTP status code of the failed requests, such as 429, 500 or 503.
+         * @return This builder.
+         */
+        public Builder withFaults( double faultRate, int faultStatusCode ) {
+            if( faultRate < 0 || faultRate > 1 ) {
+                throw new IllegalArgumentException( "The faultRate must be from 0 to 1: " + faultRate );
+            }
+            this.faultRate = faultRate;
+            this.faultStatusCode = faultStatusCode;
+            return this;
+        }
+
+        /**
+         * Sets the seed the latency and fault of each request are drawn from.
+         * @param seed The seed.
+         * @return This builder.
+         */
+        public Builder withSeed( long seed ) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Builds the MockEthosServer, which does not accept requests until it is started.
+         * @return A MockEthosServer.
+         * @throws IOException Thrown if the server cannot listen on the port.
+         */
+        public MockEthosServer build() throws IOException {
+            return new MockEthosServer( this );
+        }
+    }
+
+}
@@ -0,0 +1,371 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples.benchmarks;
+
+import com.ellucian.ethos.integration.client.EthosClientBuilder;
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.examples.EthosJsonSupport;
+import com.ellucian.examples.EthosPageFetcher;
+import com.ellucian.examples.EthosPageHeaders;
+import com.ellucian.examples.EthosPageIterator;
+import com.ellucian.examples.EthosParallelPageFetcher;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.management.ThreadInfo;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the end-to-end throughput of the paging methods used by the EthosProxyClientExample, across resources and
+ * page sizes, and writes the results to a JSON file so that runs against different SDK versions, or before and after
+ * a change to the paging utilities, can be compared.
+ * <p>
+ * For each paging scenario, resource and page size this records the records per second, the p50 and p99 latency of the
+ * page requests, the bytes allocated and allocation rate, and the peak heap used.  It runs in one of two modes:
+ * <ul>
+ *     <li>target=mock (the default) runs against an in-process MockEthosServer with the configured latency, using
+ *         the paging utilities of the examples over an EthosHttpClient.  No API key is needed.</li>
+ *     <li>target=live runs against Ethos Integration with the given API key.  Each scenario is run both through the
+ *         paging utilities of the examples over an EthosProxyClient, and through the EthosProxyClient paging method
+ *         itself (getPages, getPagesFromOffset, getRows, getRowsFromOffset and getAllPagesFromOffset).  Page latency
+ *         cannot be observed inside the SDK methods, so it is only reported for the examples implementation.</li>
+ * </ul>
+ * Arguments are given as name=value pairs: target, apiKey, output, resources, pageSizes, rows, warmup, iterations,
+ * minLatencyMs, maxLatencyMs and parallelism.  For example:
+ * <pre>
+ *     java -cp target/benchmarks.jar com.ellucian.examples.benchmarks.PagingThroughputHarness pageSizes=25,100,500 output=paging.json
+ * </pre>
+ * Allocation is measured over all threads except those of the MockEthosServer, and peak heap is the peak of the heap
+ * memory pools during the run, which includes the mock server's own allocation.
+ */
+public class PagingThroughputHarness {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The paging patterns measured, named after the EthosProxyClient methods they correspond to.
+     */
+    public enum Scenario {
+        GET_PAGES, GET_PAGES_FROM_OFFSET, GET_ROWS, GET_ROWS_FROM_OFFSET, GET_ALL_PAGES_FROM_OFFSET, GET_ALL_PAGES_FROM_OFFSET_PARALLEL
+    }
+
+    private static final String IMPLEMENTATION_EXAMPLES = "examples";
+    private static final String IMPLEMENTATION_SDK = "sdk";
+    private static final String MOCK_SERVER_THREAD_PREFIX = "mock-ethos-server-";
+    private static final int NUM_PAGES = 5;
+
+    private final Map<String, String> config;
+    private final com.sun.management.ThreadMXBean threadMXBean = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+    private final List<MemoryPoolMXBean> heapPools = new ArrayList<>();
+    private final List<Long> pageLatencyNanos = Collections.synchronizedList( new ArrayList<>() );
+
+    /**
+     * Creates a harness with the given configuration.
+     * @param config The configuration as name to value, with defaults used for anything missing.
+     */
+    public PagingThroughputHarness( Map<String, String> config ) {
+        this.config = new HashMap<>( config );
+        for( MemoryPoolMXBean memoryPool : ManagementFactory.getMemoryPoolMXBeans() ) {
+            if( memoryPool.getType() == MemoryType.HEAP ) {
+                heapPools.add( memoryPool );
+            }
+        }
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Runs the harness.
+     * @param args Arguments as name=value pairs.
+     * @throws Exception Propagates any exception thrown.
+     */
+    public static void main( String[] args ) throws Exception {
+        Map<String, String> config = new HashMap<>();
+        for( String arg : args ) {
+            int equals = arg.indexOf( '=' );
+            if( equals < 1 ) {
+                System.out.println( "Ignoring argument not in name=value form: " + arg );
+                continue;
+            }
+            config.put( arg.substring(0, equals), arg.substring(equals + 1) );
+        }
+        File outputFile = new File( config.getOrDefault("output", "paging-throughput.json") );
+        ObjectNode report = new PagingThroughputHarness( config ).run();
+        EthosJsonSupport.getObjectMapper().writerWithDefaultPrettyPrinter().writeValue( outputFile, report );
+        System.out.println( "Wrote results to " + outputFile.getAbsolutePath() );
+    }
+
+    /**
+     * Runs every scenario for every resource and page size.
+     * @return The report, with the configuration and one result per scenario, implementation, resource and page size.
+     * @throws IOException Thrown if a request fails.
+     */
+    public ObjectNode run() throws IOException {
+        boolean live = "live".equalsIgnoreCase( config.getOrDefault("target", "mock") );
+        List<EthosFixtures.Resource> resources = getResources();
+        int[] pageSizes = Arrays.stream( config.getOrDefault("pageSizes", "25,100,500").split(",") ).mapToInt( size -> Integer.parseInt(size.trim()) ).toArray();
+        int rows = getIntConfig( "rows", 5000 );
+        int parallelism = getIntConfig( "parallelism", EthosParallelPageFetcher.DEFAULT_PARALLELISM );
+
+        ObjectNode report = EthosJsonSupport.getObjectMapper().createObjectNode();
+        report.put( "timestamp", Instant.now().toString() );
+        report.put( "target", live ? "live" : "mock" );
+        report.put( "javaVersion", System.getProperty("java.version") );
+        report.put( "sdkVersion", getSdkVersion() );
+        ObjectNode configNode = report.putObject( "config" );
+        config.forEach( (name, value) -> {
+            if( !"apiKey".equals(name) ) {
+                configNode.put( name, value );
+            }
+        });
+        ArrayNode results = report.putArray( "results" );
+
+        ExecutorService executorService = Executors.newFixedThreadPool( parallelism );
+        MockEthosServer mockEthosServer = null;
+        try {
+            EthosProxyClient ethosProxyClient = null;
+            EthosHttpClient ethosHttpClient = null;
+            if( live ) {
+                String apiKey = config.get( "apiKey" );
+                if( apiKey == null || apiKey.isBlank() ) {
+                    throw new IllegalArgumentException( "An apiKey is required for target=live." );
+                }
+                ethosProxyClient = new EthosClientBuilder( apiKey ).buildEthosProxyClient();
+            }
+            else {
+                MockEthosServer.Builder builder = new MockEthosServer.Builder()
+                        .withThreads( Math.max(16, parallelism * 2) )
+                        .withLatency( getIntConfig("minLatencyMs", 5), getIntConfig("maxLatencyMs", 15) );
+                resources.forEach( resource -> builder.withDataset(resource, rows) );
+                mockEthosServer = builder.build().start();
+                ethosHttpClient = new EthosHttpClient( mockEthosServer.getBaseUrl(), "harness" );
+            }
+            for( EthosFixtures.Resource resource : resources ) {
+                EthosPageFetcher pageFetcher = live ? EthosPageFetcher.forResource( ethosProxyClient, resource.getResourceName(), resource.getVersion() )
+                                                    : ethosHttpClient.pageFetcher( resource.getResourceName(), resource.getVersion() );
+                int totalCount = live ? ethosProxyClient.getTotalCount( resource.getResourceName() ) : rows;
+                for( int pageSize : pageSizes ) {
+                    for( Scenario scenario : Scenario.values() ) {
+                        results.add( measure(scenario, IMPLEMENTATION_EXAMPLES, resource, pageSize, totalCount,
+                                () -> runExamples(scenario, timed(pageFetcher), pageSize, totalCount, parallelism, executorService)) );
+                        if( live && scenario != Scenario.GET_ALL_PAGES_FROM_OFFSET_PARALLEL ) {
+                            EthosProxyClient client = ethosProxyClient;
+                            results.add( measure(scenario, IMPLEMENTATION_SDK, resource, pageSize, totalCount,
+                                    () -> runSdk(scenario, client, resource, pageSize, totalCount)) );
+                        }
+                    }
+                }
+            }
+        }
+        finally {
+            executorService.shutdownNow();
+            if( mockEthosServer != null ) {
+                mockEthosServer.close();
+            }
+        }
+        return report;
+    }
+
+    @FunctionalInterface
+    private interface PagingRun {
+        List<EthosResponse> run() throws IOException;
+    }
+
+    private ObjectNode measure( Scenario scenario, String implementation, EthosFixtures.Resource resource, int pageSize, int totalCount,
+                                PagingRun pagingRun ) throws IOException {
+        System.out.printf( "%s %s %s pageSize=%s%n", scenario, implementation, resource.getResourceName(), pageSize );
+        for( int i = 0; i < getIntConfig("warmup", 1); i++ ) {
+            pagingRun.run();
+        }
+        pageLatencyNanos.clear();
+        long pages = 0;
+        long records = 0;
+        long elapsedNanos = 0;
+        long allocatedBytes = 0;
+        long peakHeapBytes = 0;
+        int iterations = getIntConfig( "iterations", 3 );
+        for( int i = 0; i < iterations; i++ ) {
+            System.gc();
+            heapPools.forEach( MemoryPoolMXBean::resetPeakUsage );
+            long allocatedBefore = getAllocatedBytes();
+            long startNanos = System.nanoTime();
+            List<EthosResponse> pageList = pagingRun.run();
+            elapsedNanos += System.nanoTime() - startNanos;
+            allocatedBytes += getAllocatedBytes() - allocatedBefore;
+            peakHeapBytes = Math.max( peakHeapBytes, heapPools.stream().mapToLong(pool -> pool.getPeakUsage().getUsed()).sum() );
+            pages += pageList.size();
+            for( EthosResponse page : pageList ) {
+                records += EthosJsonSupport.countArrayElements( page.getContent() );
+            }
+        }
+        double elapsedSeconds = elapsedNanos / 1e9;
+        ObjectNode result = EthosJsonSupport.getObjectMapper().createObjectNode();
+        result.put( "scenario", scenario.name() );
+        result.put( "implementation", implementation );
+        result.put( "resource", resource.getResourceName() );
+        result.put( "version", resource.getVersion() );
+        result.put( "pageSize", pageSize );
+        result.put( "totalCount", totalCount );
+        result.put( "iterations", iterations );
+        result.put( "pages", pages );
+        result.put( "records", records );
+        result.put( "elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos) );
+        result.put( "recordsPerSecond", (elapsedSeconds > 0) ? records / elapsedSeconds : 0 );
+        if( IMPLEMENTATION_EXAMPLES.equals(implementation) ) {
+            ObjectNode latency = result.putObject( "pageLatencyMillis" );
+            latency.put( "p50", getPercentileMillis(0.50) );
+            latency.put( "p99", getPercentileMillis(0.99) );
+            latency.put( "max", getPercentileMillis(1.0) );
+        }
+        result.put( "allocatedBytes", allocatedBytes );
+        result.put( "allocationRateMBPerSecond", (elapsedSeconds > 0) ? allocatedBytes / elapsedSeconds / (1024 * 1024) : 0 );
+        result.put( "peakHeapBytes", peakHeapBytes );
+        return result;
+    }
+
+    private List<EthosResponse> runExamples( Scenario scenario, EthosPageFetcher pageFetcher, int pageSize, int totalCount,
+                                             int parallelism, ExecutorService executorService ) throws IOException {
+        int offset = totalCount / 2;
+        int numRows = Math.max( 1, totalCount / 4 );
+        switch( scenario ) {
+            case GET_PAGES:
+                return collectPages( new EthosPageIterator(pageFetcher, 0, pageSize), NUM_PAGES, Integer.MAX_VALUE, 0, pageSize );
+            case GET_PAGES_FROM_OFFSET:
+                return collectPages( new EthosPageIterator(pageFetcher, offset, pageSize), NUM_PAGES, Integer.MAX_VALUE, offset, pageSize );
+            case GET_ROWS:
+                return collectPages( new EthosPageIterator(pageFetcher, 0, pageSize), Integer.MAX_VALUE, numRows, 0, pageSize );
+            case GET_ROWS_FROM_OFFSET:
+                return collectPages( new EthosPageIterator(pageFetcher, offset, pageSize), Integer.MAX_VALUE, numRows, offset, pageSize );
+            case GET_ALL_PAGES_FROM_OFFSET:
+                return collectPages( new EthosPageIterator(pageFetcher, offset, pageSize), Integer.MAX_VALUE, Integer.MAX_VALUE, offset, pageSize );
+            case GET_ALL_PAGES_FROM_OFFSET_PARALLEL:
+                return new EthosParallelPageFetcher( pageFetcher, parallelism, executorService ).getAllPagesFromOffset( offset, pageSize );
+            default:
+                throw new IllegalArgumentException( "Unknown scenario " + scenario );
+        }
+    }
+
+    private List<EthosResponse> runSdk( Scenario scenario, EthosProxyClient ethosProxyClient, EthosFixtures.Resource resource,
+                                        int pageSize, int totalCount ) throws IOException {
+        String resourceName = resource.getResourceName();
+        int offset = totalCount / 2;
+        int numRows = Math.max( 1, totalCount / 4 );
+        switch( scenario ) {
+            case GET_PAGES:
+                return ethosProxyClient.getPages( resourceName, pageSize, NUM_PAGES );
+            case GET_PAGES_FROM_OFFSET:
+                return ethosProxyClient.getPagesFromOffset( resourceName, pageSize, offset, NUM_PAGES );
+            case GET_ROWS:
+                return ethosProxyClient.getRows( resourceName, resource.getVersion(), pageSize, numRows );
+            case GET_ROWS_FROM_OFFSET:
+                return ethosProxyClient.getRowsFromOffset( resourceName, resource.getVersion(), pageSize, offset, numRows );
+            case GET_ALL_PAGES_FROM_OFFSET:
+                // The SDK method always uses the default page size of the resource.
+                return ethosProxyClient.getAllPagesFromOffset( resourceName, offset );
+            default:
+                throw new IllegalArgumentException( "Scenario " + scenario + " has no SDK method." );
+        }
+    }
+
+    private static List<EthosResponse> collectPages( EthosPageIterator pageIterator, int maxPages, int maxRows, int offset,
+                                                     int pageSize ) throws IOException {
+        List<EthosResponse> pageList = new ArrayList<>();
+        int rows = 0;
+        while( pageList.size() < maxPages && rows < maxRows && pageIterator.hasNext() ) {
+            int pageOffset = pageIterator.getOffset();
+            EthosResponse page = pageIterator.next();
+            pageList.add( page );
+            rows += EthosPageHeaders.getRowCount( page, pageOffset, pageSize );
+        }
+        return pageList;
+    }
+
+    private EthosPageFetcher timed( EthosPageFetcher pageFetcher ) {
+        return (offset, pageSize) -> {
+            long startNanos = System.nanoTime();
+            try {
+                return pageFetcher.fetchPage( offset, pageSize );
+            }
+            finally {
+                pageLatencyNanos.add( System.nanoTime() - startNanos );
+            }
+        };
+    }
+
+    private double getPercentileMillis( double percentile ) {
+        List<Long> latencies;
+        synchronized( pageLatencyNanos ) {
+            latencies = new ArrayList<>( pageLatencyNanos );
+        }
+        if( latencies.isEmpty() ) {
+            return 0;
+        }
+        Collections.sort( latencies );
+        int index = (int) Math.ceil( percentile * latencies.size() ) - 1;
+        return latencies.get( Math.max(0, Math.min(index, latencies.size() - 1)) ) / 1e6;
+    }
+
+    private long getAllocatedBytes() {
+        long[] threadIds = threadMXBean.getAllThreadIds();
+        ThreadInfo[] threadInfos = threadMXBean.getThreadInfo( threadIds );
+        long[] allocatedBytes = threadMXBean.getThreadAllocatedBytes( threadIds );
+        long total = 0;
+        for( int i = 0; i < threadIds.length; i++ ) {
+            boolean mockServerThread = threadInfos[i] != null && threadInfos[i].getThreadName().startsWith( MOCK_SERVER_THREAD_PREFIX );
+            if( !mockServerThread && allocatedBytes[i] > 0 ) {
+                total += allocatedBytes[i];
+            }
+        }
+        return total;
+    }
+
+    private List<EthosFixtures.Resource> getResources() {
+        String resourceNames = config.get( "resources" );
+        if( resourceNames == null || resourceNames.isBlank() ) {
+            return Arrays.asList( EthosFixtures.Resource.values() );
+        }
+        Map<String, EthosFixtures.Resource> resourceMap = new LinkedHashMap<>();
+        for( String resourceName : resourceNames.split(",") ) {
+            EthosFixtures.Resource resource = EthosFixtures.Resource.forResourceName( resourceName.trim() );
+            if( resource == null ) {
+                throw new IllegalArgumentException( "No fixture for resource " + resourceName );
+            }
+            resourceMap.put( resource.getResourceName(), resource );
+        }
+        return new ArrayList<>( resourceMap.values() );
+    }
+
+    private int getIntConfig( String name, int defaultValue ) {
+        String value = config.get( name );
+        return (value == null || value.isBlank()) ? defaultValue : Integer.parseInt( value.trim() );
+    }
+
+    private static String getSdkVersion() {
+        String version = EthosProxyClient.class.getPackage().getImplementationVersion();
+        return (version == null) ? "unknown" : version;
+    }
+
+}
@@ -0,0 +1,196 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples.benchmarks;
+
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.examples.EthosJsonSupport;
+import com.ellucian.examples.EthosPrefetchingMessageConsumer;
+import com.fasterxml.jackson.databind.node.ArrayNode;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Instant;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures how long it takes to drain a message queue by consuming a batch and then handling it, compared to the
+ * EthosPrefetchingMessageConsumer, which requests the next batch while the current one is handled.  Both run against
+ * the /consume endpoint of an in-process MockEthosServer with the configured latency, and handling a batch is
+ * simulated by sleeping for the configured time, so the results show how much of the request latency the prefetching
+ * hides.  The results are written to a JSON file.
+ * <p>
+ * Arguments are given as name=value pairs: output, messages, batchSize, bufferCapacity, processMs, minLatencyMs,
+ * maxLatencyMs, warmup and iterations.  For example:
+ * <pre>
+ *     java -cp target/benchmarks.jar com.ellucian.examples.benchmarks.PrefetchDrainHarness messages=2000 processMs=25 output=prefetch.json
+ * </pre>
+ */
+public class PrefetchDrainHarness {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private static final String MODE_SERIAL = "serial";
+    private static final String MODE_PREFETCH = "prefetch";
+    private static final long POLL_TIMEOUT_SECONDS = 30;
+
+    private final Map<String, String> config;
+
+    /**
+     * Creates a harness with the given configuration.
+     * @param config The configuration as name to value, with defaults used for anything missing.
+     */
+    public PrefetchDrainHarness( Map<String, String> config ) {
+        this.config = new HashMap<>( config );
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Runs the harness.
+     * @param args Arguments as name=value pairs.
+     * @throws Exception Propagates any exception thrown.
+     */
+    public static void main( String[] args ) throws Exception {
+        Map<String, String> config = new HashMap<>();
+        for( String arg : args ) {
+            int equals = arg.indexOf( '=' );
+            if( equals < 1 ) {
+                System.out.println( "Ignoring argument not in name=value form: " + arg );
+                continue;
+            }
+            config.put( arg.substring(0, equals), arg.substring(equals + 1) );
+        }
+        File outputFile = new File( config.getOrDefault("output", "prefetch-drain.json") );
+        ObjectNode report = new PrefetchDrainHarness( config ).run();
+        EthosJsonSupport.getObjectMapper().writerWithDefaultPrettyPrinter().writeValue( outputFile, report );
+        System.out.println( "Wrote results to " + outputFile.getAbsolutePath() );
+    }
+
+    /**
+     * Drains the queue serially and with prefetching.
+     * @return The report, with the configuration, one result per mode and the speedup of prefetching.
+     * @throws IOException Thrown if a request fails.
+     */
+    public ObjectNode run() throws IOException {
+        int messages = getIntConfig( "messages", 2000 );
+        int batchSize = getIntConfig( "batchSize", EthosPrefetchingMessageConsumer.DEFAULT_BATCH_SIZE );
+        int bufferCapacity = getIntConfig( "bufferCapacity", EthosPrefetchingMessageConsumer.DEFAULT_BUFFER_CAPACITY );
+        long processMillis = getIntConfig( "processMs", 20 );
+
+        ObjectNode report = EthosJsonSupport.getObjectMapper().createObjectNode();
+        report.put( "timestamp", Instant.now().toString() );
+        report.put( "javaVersion", System.getProperty("java.version") );
+        ObjectNode configNode = report.putObject( "config" );
+        config.forEach( configNode::put );
+        ArrayNode results = report.putArray( "results" );
+
+        MockEthosServer mockEthosServer = new MockEthosServer.Builder()
+                .withMessages( messages )
+                .withDataset( EthosFixtures.Resource.STUDENT_COHORTS, 100 )
+                .withLatency( getIntConfig("minLatencyMs", 20), getIntConfig("maxLatencyMs", 30) )
+                .build()
+                .start();
+        try {
+            EthosHttpClient ethosHttpClient = new EthosHttpClient( mockEthosServer.getBaseUrl(), "harness" );
+            EthosPrefetchingMessageConsumer.MessageFetcher messageFetcher = ethosHttpClient.messageFetcher();
+            ObjectNode serial = measure( MODE_SERIAL, messages, () -> drainSerially(messageFetcher, batchSize, processMillis) );
+            ObjectNode prefetch = measure( MODE_PREFETCH, messages,
+                                           () -> drainWithPrefetch(messageFetcher, messages, batchSize, bufferCapacity, processMillis) );
+            results.add( serial );
+            results.add( prefetch );
+            double prefetchMillis = prefetch.get( "elapsedMillis" ).asDouble();
+            report.put( "speedup", (prefetchMillis > 0) ? serial.get("elapsedMillis").asDouble() / prefetchMillis : 0 );
+        }
+        finally {
+            mockEthosServer.close();
+        }
+        return report;
+    }
+
+    @FunctionalInterface
+    private interface DrainRun {
+        long run() throws IOException;
+    }
+
+    private ObjectNode measure( String mode, int messages, DrainRun drainRun ) throws IOException {
+        System.out.printf( "%s messages=%s%n", mode, messages );
+        for( int i = 0; i < getIntConfig("warmup", 1); i++ ) {
+            drainRun.run();
+        }
+        int iterations = getIntConfig( "iterations", 3 );
+        long elapsedNanos = 0;
+        long drained = 0;
+        for( int i = 0; i < iterations; i++ ) {
+            long startNanos = System.nanoTime();
+            drained += drainRun.run();
+            elapsedNanos += System.nanoTime() - startNanos;
+        }
+        double elapsedSeconds = elapsedNanos / 1e9;
+        ObjectNode result = EthosJsonSupport.getObjectMapper().createObjectNode();
+        result.put( "mode", mode );
+        result.put( "iterations", iterations );
+        result.put( "messages", drained );
+        result.put( "elapsedMillis", TimeUnit.NANOSECONDS.toMillis(elapsedNanos) / iterations );
+        result.put( "messagesPerSecond", (elapsedSeconds > 0) ? drained / elapsedSeconds : 0 );
+        return result;
+    }
+
+    private static long drainSerially( EthosPrefetchingMessageConsumer.MessageFetcher messageFetcher, int batchSize,
+                                       long processMillis ) throws IOException {
+        long lastProcessedId = 0;
+        long drained = 0;
+        while( true ) {
+            List<ChangeNotification> notificationList = messageFetcher.consume( batchSize, lastProcessedId );
+            if( notificationList.isEmpty() ) {
+                return drained;
+            }
+            process( processMillis );
+            drained += notificationList.size();
+            lastProcessedId = Long.parseLong( notificationList.get(notificationList.size() - 1).getId() );
+        }
+    }
+
+    private static long drainWithPrefetch( EthosPrefetchingMessageConsumer.MessageFetcher messageFetcher, int messages, int batchSize,
+                                           int bufferCapacity, long processMillis ) throws IOException {
+        long drained = 0;
+        try( EthosPrefetchingMessageConsumer consumer = new EthosPrefetchingMessageConsumer(messageFetcher, 0, batchSize, bufferCapacity,
+                                                                                            EthosPrefetchingMessageConsumer.DEFAULT_IDLE_DELAY_MILLIS) ) {
+            while( drained < messages ) {
+                List<ChangeNotification> notificationList = consumer.poll( POLL_TIMEOUT_SECONDS, TimeUnit.SECONDS );
+                if( notificationList == null ) {
+                    throw new IOException( "No change notifications received in " + POLL_TIMEOUT_SECONDS + " seconds after " + drained + "." );
+                }
+                process( processMillis );
+                drained += notificationList.size();
+            }
+        }
+        return drained;
+    }
+
+    private static void process( long processMillis ) throws IOException {
+        try {
+            Thread.sleep( processMillis );
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while handling a batch." );
+        }
+    }
+
+    private int getIntConfig( String name, int defaultValue ) {
+        String value = config.get( name );
+        return (value == null || value.isBlank()) ? defaultValue : Integer.parseInt( value.trim() );
+    }
+
+}
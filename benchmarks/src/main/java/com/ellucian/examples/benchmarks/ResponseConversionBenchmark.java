@@ -0,0 +1,140 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples.benchmarks;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.EthosResponseConverter;
+import com.ellucian.examples.EthosJsonSupport;
+import com.ellucian.examples.EthosPageFetcher;
+import com.ellucian.examples.EthosRecordStreams;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks the ways a page of an EEDM resource can be converted from the response body, for the resources and
+ * page sizes typically used.  Run with the JMH GC profiler to see the allocation per page as well as the time:
+ * <pre>
+ *     java -jar target/benchmarks.jar ResponseConversionBenchmark -prof gc
+ * </pre>
+ * The "newObjectMapper" benchmarks reproduce what the examples did before the shared EthosJsonSupport reader was added,
+ * and are kept as the baseline for the other benchmarks.
+ */
+@State( Scope.Benchmark )
+@BenchmarkMode( Mode.AverageTime )
+@OutputTimeUnit( TimeUnit.MICROSECONDS )
+@Warmup( iterations = 5, time = 1 )
+@Measurement( iterations = 5, time = 1 )
+@Fork( 2 )
+public class ResponseConversionBenchmark {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    @Param( { "STUDENT_COHORTS", "PERSONS", "SECTIONS" } )
+    public EthosFixtures.Resource resource;
+
+    @Param( { "25", "100", "500" } )
+    public int pageSize;
+
+    private String content;
+    private byte[] contentBytes;
+    private EthosResponse ethosResponse;
+    private EthosResponseConverter ethosResponseConverter;
+    private ObjectReader beanListReader;
+    private ObjectReader beanReader;
+    private Class<?> beanClass;
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    @Setup
+    public void setUp() {
+        content = EthosFixtures.buildPage( resource, 0, pageSize );
+        contentBytes = content.getBytes( StandardCharsets.UTF_8 );
+        ethosResponse = EthosFixtures.toEthosResponse( content, pageSize, pageSize );
+        ethosResponseConverter = new EthosResponseConverter();
+        beanClass = resource.getBeanClass();
+        beanListReader = EthosJsonSupport.getBeanListReader( beanClass );
+        beanReader = EthosJsonSupport.getBeanReader( beanClass );
+    }
+
+    /**
+     * Decodes the body bytes into a String, as the SDK does for every response before any conversion.
+     */
+    @Benchmark
+    public String rawStringDecode() {
+        return new String( contentBytes, StandardCharsets.UTF_8 );
+    }
+
+    /**
+     * Encodes the body String back to bytes, as is done when writing a body out unchanged.
+     */
+    @Benchmark
+    public byte[] rawStringEncode() {
+        return content.getBytes( StandardCharsets.UTF_8 );
+    }
+
+    @Benchmark
+    public JsonNode converterToJsonNode() throws IOException {
+        return ethosResponseConverter.toJsonNode( ethosResponse );
+    }
+
+    @Benchmark
+    public JsonNode sharedReaderToJsonNode() throws IOException {
+        return EthosJsonSupport.readTree( content );
+    }
+
+    @Benchmark
+    public JsonNode newObjectMapperToJsonNode() throws IOException {
+        return new ObjectMapper().readTree( content );
+    }
+
+    @Benchmark
+    public List<?> sharedReaderToBeanList() throws IOException {
+        return beanListReader.readValue( content );
+    }
+
+    @Benchmark
+    public List<?> newObjectMapperToBeanList() throws IOException {
+        ObjectMapper objectMapper = new ObjectMapper();
+        return objectMapper.readValue( content, objectMapper.getTypeFactory().constructCollectionType(List.class, beanClass) );
+    }
+
+    /**
+     * Reads the page one record at a time through EthosRecordStreams, so no list of the page's JavaBeans is built.
+     */
+    @Benchmark
+    public void recordStreamToBeans( Blackhole blackhole ) {
+        EthosPageFetcher pageFetcher = (offset, size) -> ethosResponse;
+        EthosRecordStreams.streamRecords( pageFetcher, 0, pageSize, beanReader ).forEach( blackhole::consume );
+    }
+
+    @Benchmark
+    public int countArrayElements() throws IOException {
+        return EthosJsonSupport.countArrayElements( content );
+    }
+
+}
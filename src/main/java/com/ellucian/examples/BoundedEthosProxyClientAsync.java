@@ -0,0 +1,381 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosClientBuilder;
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * An asynchronous proxy client whose requests run on a configurable executor, rather than on the common
+ * ForkJoinPool, and which caps the number of requests in flight for the client.
+ * <p>
+ * Each page of a multi-page request is fetched as its own task, so async paging scales with the number of
+ * connections allowed by the in-flight limit rather than with the number of CPUs.  The executor can be supplied by
+ * the application, or on JDK 21+ a virtual thread per task executor can be used.  By default a fixed pool of daemon
+ * threads sized to the in-flight limit is used.
+ * <p>
+ * This is built with the Builder, from an EthosClientBuilder, in the same way as the EthosChangeNotificationService.
+ */
+public class BoundedEthosProxyClientAsync implements Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default maximum number of requests in flight for one client.
+     */
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 8;
+
+    private final EthosProxyClient ethosProxyClient;
+    private final ExecutorService requestExecutor;
+    private final ExecutorService coordinatorExecutor;
+    private final boolean ownsRequestExecutor;
+    private final Semaphore inFlightPermits;
+    private final int maxInFlightRequests;
+
+    private BoundedEthosProxyClientAsync( Builder builder ) {
+        this.ethosProxyClient = builder.ethosClientBuilder.buildEthosProxyClient();
+        this.maxInFlightRequests = builder.maxInFlightRequests;
+        this.inFlightPermits = new Semaphore( builder.maxInFlightRequests );
+        if( builder.executorService != null ) {
+            this.requestExecutor = builder.executorService;
+            this.ownsRequestExecutor = false;
+        }
+        else if( builder.useVirtualThreads ) {
+            this.requestExecutor = newVirtualThreadPerTaskExecutor();
+            this.ownsRequestExecutor = true;
+        }
+        else {
+            this.requestExecutor = Executors.newFixedThreadPool( builder.maxInFlightRequests, daemonThreadFactory("ethos-async-request-") );
+            this.ownsRequestExecutor = true;
+        }
+        // Multi-page requests are coordinated on separate threads that only wait on the page tasks, so that waiting
+        // never takes a thread away from the requests themselves.
+        this.coordinatorExecutor = Executors.newCachedThreadPool( daemonThreadFactory("ethos-async-coordinator-") );
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the total count of rows for the given resource asynchronously.
+     * @param resourceName The name of the resource.
+     * @return A CompletableFuture for the total count.
+     */
+    public CompletableFuture<Integer> getTotalCountAsync( String resourceName ) {
+        return CompletableFuture.supplyAsync( () -> {
+            try {
+                inFlightPermits.acquire();
+                try {
+                    return ethosProxyClient.getTotalCount( resourceName );
+                }
+                finally {
+                    inFlightPermits.release();
+                }
+            }
+            catch( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+                throw new CompletionException( ie );
+            }
+            catch( IOException ioe ) {
+                throw new CompletionException( ioe );
+            }
+        }, requestExecutor );
+    }
+
+    /**
+     * Gets all pages from the given offset asynchronously, using the max page size of the resource.
+     * @param resourceName The name of the resource.
+     * @param offset The offset to start from.
+     * @return A CompletableFuture for the list of pages in offset order.
+     */
+    public CompletableFuture<List<EthosResponse>> getAllPagesFromOffsetAsync( String resourceName, int offset ) {
+        return getAllPagesFromOffsetAsync( resourceName, null, offset, 0 );
+    }
+
+    /**
+     * Gets all pages from the given offset asynchronously.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start from.
+     * @param pageSize The page size to request, or 0 to use the max page size of the resource.
+     * @return A CompletableFuture for the list of pages in offset order.
+     */
+    public CompletableFuture<List<EthosResponse>> getAllPagesFromOffsetAsync( String resourceName, String version, int offset, int pageSize ) {
+        EthosParallelPageFetcher parallelPageFetcher = getParallelPageFetcher( resourceName, version );
+        return CompletableFuture.supplyAsync( () -> {
+            try {
+                return parallelPageFetcher.getAllPagesFromOffset( offset, pageSize );
+            }
+            catch( IOException ioe ) {
+                throw new CompletionException( ioe );
+            }
+        }, coordinatorExecutor );
+    }
+
+    /**
+     * Gets all pages from the given offset as a Flow.Publisher, publishing each page as soon as it is fetched rather
+     * than completing once with the whole list.  Pages are fetched ahead of demand into a small bounded buffer, so
+     * processing of one page overlaps with fetching the next, and memory stays bounded by the subscriber's demand.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A Flow.Publisher of the pages in offset order.
+     */
+    public Flow.Publisher<EthosResponse> getAllPagesFromOffsetPublisher( String resourceName, String version, int offset, int pageSize ) {
+        EthosPageFetcher pageFetcher = EthosPageFetcher.forResource( ethosProxyClient, resourceName, version )
+                                                       .withMaxInFlight( inFlightPermits );
+        return new EthosPagePublisher( pageFetcher, offset, pageSize, requestExecutor, coordinatorExecutor, EthosPagePublisher.DEFAULT_PREFETCH );
+    }
+
+    /**
+     * Gets the given number of rows from the given offset asynchronously as a row-based list of JsonNodes.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param pageSize The page size to use when paging for the rows.
+     * @param offset The offset to start from.
+     * @param numRows The number of rows to get.
+     * @return A CompletableFuture for the list of rows.
+     */
+    public CompletableFuture<List<JsonNode>> getRowsFromOffsetAsJsonNodesAsync( String resourceName, String version, int pageSize,
+                                                                                int offset, int numRows ) {
+        EthosParallelPageFetcher parallelPageFetcher = getParallelPageFetcher( resourceName, version );
+        return CompletableFuture.supplyAsync( () -> {
+            try {
+                List<JsonNode> rowList = new ArrayList<>();
+                for( EthosResponse ethosResponse : parallelPageFetcher.getRowsFromOffset(offset, pageSize, numRows) ) {
+                    for( JsonNode row : EthosJsonSupport.readTree(ethosResponse) ) {
+                        if( rowList.size() == numRows ) {
+                            return rowList;
+                        }
+                        rowList.add( row );
+                    }
+                }
+                return rowList;
+            }
+            catch( IOException ioe ) {
+                throw new CompletionException( ioe );
+            }
+        }, coordinatorExecutor );
+    }
+
+    /**
+     * Gets the records of the given resource with the given ids asynchronously, making the requests concurrently
+     * within the in-flight limit of the client.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param ids The ids of the records, which may contain duplicates.
+     * @return A CompletableFuture for the EthosResponse or error of each distinct id.
+     */
+    public CompletableFuture<EthosByIdResults<EthosResponse>> getByIdsAsync( String resourceName, String version, Collection<String> ids ) {
+        return getByIdsAsync( ids, EthosParallelByIdFetcher.byIdLoader(ethosProxyClient, resourceName, version) );
+    }
+
+    /**
+     * Gets the records of the given resource with the given ids asynchronously as JavaBeans, making the requests
+     * concurrently within the in-flight limit of the client.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param ids The ids of the records, which may contain duplicates.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A CompletableFuture for the JavaBean or error of each distinct id.
+     */
+    public <T> CompletableFuture<EthosByIdResults<T>> getByIdsAsync( String resourceName, String version, Collection<String> ids,
+                                                                     Class<T> beanClass ) {
+        return getByIdsAsync( ids, EthosParallelByIdFetcher.byIdLoader(ethosProxyClient, resourceName, version, beanClass) );
+    }
+
+    /**
+     * Gets the maximum number of requests in flight for this client.
+     * @return The maximum number of requests in flight.
+     */
+    public int getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    /**
+     * Gets the number of requests currently in flight for this client.
+     * @return The number of requests in flight.
+     */
+    public int getInFlightRequests() {
+        return maxInFlightRequests - inFlightPermits.availablePermits();
+    }
+
+    /**
+     * Gets the underlying synchronous EthosProxyClient.
+     * @return The EthosProxyClient used to make the requests.
+     */
+    public EthosProxyClient getEthosProxyClient() {
+        return ethosProxyClient;
+    }
+
+    /**
+     * Shuts down the threads owned by this client.  An executor supplied to the Builder is not shut down.
+     */
+    @Override
+    public void close() {
+        coordinatorExecutor.shutdown();
+        if( ownsRequestExecutor ) {
+            requestExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Checks whether virtual threads are available in the running JVM (JDK 21+).
+     * @return True if virtual threads can be used, otherwise false.
+     */
+    public static boolean isVirtualThreadsSupported() {
+        try {
+            Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            return true;
+        }
+        catch( NoSuchMethodException nsme ) {
+            return false;
+        }
+    }
+
+    private <T> CompletableFuture<EthosByIdResults<T>> getByIdsAsync( Collection<String> ids, EthosParallelByIdFetcher.ByIdLoader<T> byIdLoader ) {
+        EthosParallelByIdFetcher parallelByIdFetcher = new EthosParallelByIdFetcher( maxInFlightRequests, requestExecutor );
+        EthosParallelByIdFetcher.ByIdLoader<T> boundedLoader = id -> {
+            try {
+                inFlightPermits.acquire();
+            }
+            catch( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while waiting to get id " + id );
+            }
+            try {
+                return byIdLoader.load( id );
+            }
+            finally {
+                inFlightPermits.release();
+            }
+        };
+        return CompletableFuture.supplyAsync( () -> {
+            try {
+                return parallelByIdFetcher.getByIds( ids, boundedLoader );
+            }
+            catch( IOException ioe ) {
+                throw new CompletionException( ioe );
+            }
+        }, coordinatorExecutor );
+    }
+
+    private EthosParallelPageFetcher getParallelPageFetcher( String resourceName, String version ) {
+        EthosPageFetcher pageFetcher = EthosPageFetcher.forResource( ethosProxyClient, resourceName, version )
+                                                       .withMaxInFlight( inFlightPermits );
+        return new EthosParallelPageFetcher( pageFetcher, maxInFlightRequests, requestExecutor );
+    }
+
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        // Looked up reflectively so this class still compiles and runs on the JDK 11 baseline of this project.
+        try {
+            Method method = Executors.class.getMethod( "newVirtualThreadPerTaskExecutor" );
+            return (ExecutorService) method.invoke( null );
+        }
+        catch( ReflectiveOperationException roe ) {
+            throw new IllegalStateException( "Virtual threads require JDK 21 or later.", roe );
+        }
+    }
+
+    private static ThreadFactory daemonThreadFactory( String namePrefix ) {
+        AtomicInteger threadCount = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread( runnable, namePrefix + threadCount.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        };
+    }
+
+    /**
+     * Builder for the BoundedEthosProxyClientAsync.
+     */
+    public static class Builder {
+
+        private final EthosClientBuilder ethosClientBuilder;
+        private ExecutorService executorService;
+        private boolean useVirtualThreads;
+        private int maxInFlightRequests = DEFAULT_MAX_IN_FLIGHT_REQUESTS;
+
+        /**
+         * Creates a Builder using the given EthosClientBuilder to build the underlying client.
+         * @param ethosClientBuilder The EthosClientBuilder configured with the API key and timeouts.
+         */
+        public Builder( EthosClientBuilder ethosClientBuilder ) {
+            if( ethosClientBuilder == null ) {
+                throw new IllegalArgumentException( "The ethosClientBuilder is required." );
+            }
+            this.ethosClientBuilder = ethosClientBuilder;
+        }
+
+        /**
+         * Runs requests on the given executor.  The executor is owned by the caller and is not shut down by the client.
+         * @param executorService The executor to run requests on.
+         * @return This builder.
+         */
+        public Builder withExecutor( ExecutorService executorService ) {
+            this.executorService = executorService;
+            return this;
+        }
+
+        /**
+         * Runs each request on its own virtual thread.  This requires JDK 21 or later, and is ignored if an executor
+         * is also supplied.
+         * @return This builder.
+         */
+        public Builder withVirtualThreads() {
+            this.useVirtualThreads = true;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of requests in flight for the client.
+         * @param maxInFlightRequests The maximum number of requests in flight, which must be at least 1.
+         * @return This builder.
+         */
+        public Builder withMaxInFlightRequests( int maxInFlightRequests ) {
+            if( maxInFlightRequests < 1 ) {
+                throw new IllegalArgumentException( "The maxInFlightRequests must be at least 1: " + maxInFlightRequests );
+            }
+            this.maxInFlightRequests = maxInFlightRequests;
+            return this;
+        }
+
+        /**
+         * Builds the BoundedEthosProxyClientAsync.
+         * @return A BoundedEthosProxyClientAsync.
+         */
+        public BoundedEthosProxyClientAsync build() {
+            if( useVirtualThreads && executorService == null && !isVirtualThreadsSupported() ) {
+                throw new IllegalStateException( "Virtual threads require JDK 21 or later." );
+            }
+            return new BoundedEthosProxyClientAsync( this );
+        }
+    }
+
+}
@@ -0,0 +1,237 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.authentication.AccessToken;
+import com.ellucian.ethos.integration.client.EthosClientBuilder;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * A process-wide cache of access tokens keyed by API key, for applications that work with many institutions' API keys
+ * in one JVM.  Code that needs a token for some API key asks the cache first, and the auth endpoint is only called
+ * when there is no usable token cached for that key.
+ * <p>
+ * The token of each API key is held by an EthosAccessTokenRefresher, so concurrent requests for the same key while a
+ * token is being obtained share a single call.  The tokens of the shared instance come from one SDK client per key,
+ * and an SDK client keeps handing out its token until that token has expired, so there is nothing to gain by asking
+ * it for a new one ahead of time.  A cached token therefore counts as a hit until its expiration time, and may be
+ * handed out with very little time left; the first request after it expires waits while the client gets a new one.
+ * Code that sends the token itself should be ready to ask again if the token is rejected as expired.
+ * <p>
+ * The cache is bounded, evicting the least recently used API key once the maximum number of keys is reached.  Hit,
+ * miss, refresh and eviction counts are kept to show how effective the cache is.
+ */
+public class EthosAccessTokenCache {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default maximum number of API keys held in the cache.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 256;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private static final EthosAccessTokenCache SHARED_INSTANCE = new EthosAccessTokenCache( DEFAULT_MAX_ENTRIES, apiKey -> {
+        // One client per API key, reused for every token of that key.
+        EthosProxyClient ethosProxyClient = new EthosClientBuilder( apiKey ).buildEthosProxyClient();
+        return ethosProxyClient::getAccessToken;
+    });
+
+    private final int maxEntries;
+    private final Function<String, EthosAccessTokenRefresher.TokenSupplier> tokenSupplierFactory;
+    private final Map<String, EthosAccessTokenRefresher> refresherMap;
+    private final ExecutorService refreshExecutor;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private long retiredRefreshCount;
+    private long retiredCoalescedCount;
+
+    /**
+     * Creates a cache.  Most applications should use the shared instance from getInstance() instead, so that all
+     * code in the process shares the same tokens.
+     * @param maxEntries The maximum number of API keys to hold tokens for.
+     * @param tokenSupplierFactory Creates the supplier of new tokens for an API key.  It is called once when the key is
+     * added to the cache, and the supplier it returns is reused for every token of that key.
+     */
+    public EthosAccessTokenCache( int maxEntries, Function<String, EthosAccessTokenRefresher.TokenSupplier> tokenSupplierFactory ) {
+        if( maxEntries < 1 ) {
+            throw new IllegalArgumentException( "The maxEntries must be at least 1: " + maxEntries );
+        }
+        if( tokenSupplierFactory == null ) {
+            throw new IllegalArgumentException( "The tokenSupplierFactory is required." );
+        }
+        this.maxEntries = maxEntries;
+        this.tokenSupplierFactory = tokenSupplierFactory;
+        this.refreshExecutor = Executors.newCachedThreadPool( runnable -> {
+            Thread thread = new Thread( runnable, "ethos-token-cache-" + THREAD_COUNT.incrementAndGet() );
+            thread.setDaemon( true );
+            return thread;
+        });
+        this.refresherMap = new LinkedHashMap<String, EthosAccessTokenRefresher>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, EthosAccessTokenRefresher> eldest ) {
+                if( size() > EthosAccessTokenCache.this.maxEntries ) {
+                    evictionCount.incrementAndGet();
+                    retire( eldest.getValue() );
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the process-wide shared cache, which gets the tokens of each API key from one client built for that key.
+     * @return The shared EthosAccessTokenCache.
+     */
+    public static EthosAccessTokenCache getInstance() {
+        return SHARED_INSTANCE;
+    }
+
+    /**
+     * Gets a valid access token for the given API key, from the cache if possible.
+     * @param apiKey The API key.
+     * @return A valid AccessToken for the API key.
+     * @throws IOException Thrown if there is no usable cached token and a new one could not be obtained.
+     */
+    public AccessToken getAccessToken( String apiKey ) throws IOException {
+        if( apiKey == null || apiKey.isBlank() ) {
+            throw new IllegalArgumentException( "The apiKey is required." );
+        }
+        EthosAccessTokenRefresher refresher;
+        synchronized( this ) {
+            refresher = refresherMap.get( apiKey );
+            if( refresher == null ) {
+                refresher = new EthosAccessTokenRefresher( tokenSupplierFactory.apply(apiKey), refreshExecutor );
+                refresherMap.put( apiKey, refresher );
+            }
+        }
+        if( refresher.getCurrentToken() != null ) {
+            hitCount.incrementAndGet();
+        }
+        else {
+            missCount.incrementAndGet();
+        }
+        return refresher.getAccessToken();
+    }
+
+    /**
+     * Removes the cached token for the given API key, so the next request gets a new token.
+     * @param apiKey The API key.
+     */
+    public synchronized void invalidate( String apiKey ) {
+        EthosAccessTokenRefresher refresher = refresherMap.remove( apiKey );
+        if( refresher != null ) {
+            retire( refresher );
+        }
+    }
+
+    /**
+     * Removes all cached tokens.
+     */
+    public synchronized void invalidateAll() {
+        refresherMap.values().forEach( this::retire );
+        refresherMap.clear();
+    }
+
+    /**
+     * Gets the number of API keys with a cached token.
+     * @return The number of cached tokens.
+     */
+    public synchronized int size() {
+        return refresherMap.size();
+    }
+
+    /**
+     * Gets the number of requests answered with a cached token that had not expired.
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of requests that did not find a cached token that had not expired.
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of cached tokens replaced by a new token.
+     * @return The refresh count.
+     */
+    public synchronized long getRefreshCount() {
+        long refreshes = retiredRefreshCount;
+        for( EthosAccessTokenRefresher refresher : refresherMap.values() ) {
+            // The first token of each key is a load, not a refresh.
+            refreshes += Math.max( 0, refresher.getRefreshCount() - 1 );
+        }
+        return refreshes;
+    }
+
+    /**
+     * Gets the number of requests that shared a token request already in progress for the same API key.
+     * @return The coalesced load count.
+     */
+    public synchronized long getCoalescedLoadCount() {
+        long coalesced = retiredCoalescedCount;
+        for( EthosAccessTokenRefresher refresher : refresherMap.values() ) {
+            coalesced += refresher.getCoalescedRequestCount();
+        }
+        return coalesced;
+    }
+
+    /**
+     * Gets the number of API keys evicted because the cache was full.
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets the ratio of hits to all requests.
+     * @return The hit rate between 0 and 1, or 0 if there have been no requests.
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        // API keys are deliberately left out, so the cache can be logged safely.
+        return String.format( "EthosAccessTokenCache[size=%s, maxEntries=%s, hits=%s, misses=%s, refreshes=%s, coalescedLoads=%s, evictions=%s]",
+                              size(), maxEntries, getHitCount(), getMissCount(), getRefreshCount(), getCoalescedLoadCount(), getEvictionCount() );
+    }
+
+    private void retire( EthosAccessTokenRefresher refresher ) {
+        // The refresher has no schedule or thread of its own, so a caller still using it is left to finish.
+        retiredRefreshCount += Math.max( 0, refresher.getRefreshCount() - 1 );
+        retiredCoalescedCount += refresher.getCoalescedRequestCount();
+    }
+
+}
@@ -0,0 +1,324 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.authentication.AccessToken;
+import com.ellucian.ethos.integration.client.EthosClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps an access token current by refreshing it on a background thread ahead of its expiration time, so that callers
+ * asking for a token never wait on the auth round trip once the first token has been obtained.
+ * <p>
+ * Refreshes are single-flight: however many threads find the token due for refresh at the same time, only one call
+ * is made to the auth endpoint and every waiting thread shares its result.  While a refresh is in progress, callers
+ * keep getting the current token for as long as it has more than the minimum remaining time left.  For a refresher
+ * created with the constructor that minimum is MIN_REMAINING_SECONDS, so a token handed out does not expire while the
+ * request using it is in flight.  A refresher from forClient() has no minimum, since its client cannot renew a token
+ * before it expires.  If a refresh fails, it is retried on the background thread after a short delay, and the
+ * current token keeps being used until then.
+ * <p>
+ * The SDK clients keep their own token and have no way to be given one, so a token from this refresher is only used
+ * by code that sends it itself.  To keep the token of an SDK client current instead, use forClient(): the client's own
+ * token is then renewed on the background thread rather than inline by the request that finds it expired.
+ */
+public class EthosAccessTokenRefresher implements Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default number of seconds before expiration that a token is refreshed.
+     */
+    public static final long DEFAULT_REFRESH_LEAD_SECONDS = 120;
+
+    /**
+     * The number of seconds a token must have left to be handed out without waiting for a refresh.
+     */
+    public static final long MIN_REMAINING_SECONDS = 15;
+
+    /**
+     * The number of seconds to wait before retrying a failed background refresh.
+     */
+    public static final long RETRY_DELAY_SECONDS = 10;
+
+    private static final long MIN_SCHEDULE_DELAY_MILLIS = 1000;
+
+    private final TokenSupplier tokenSupplier;
+    private final long refreshLeadMillis;
+    private final long minRemainingMillis;
+    private final Executor executor;
+    private final ScheduledExecutorService scheduler;
+    private final Object refreshLock = new Object();
+    private final AtomicLong refreshCount = new AtomicLong();
+    private final AtomicLong refreshFailureCount = new AtomicLong();
+    private final AtomicLong coalescedRequestCount = new AtomicLong();
+    private volatile AccessToken currentToken;
+    private CompletableFuture<AccessToken> inFlightRefresh;
+    private ScheduledFuture<?> scheduledRefresh;
+    private boolean closed;
+
+    /**
+     * Supplies a new access token from the auth endpoint.
+     */
+    @FunctionalInterface
+    public interface TokenSupplier {
+        /**
+         * Gets a new access token.
+         * @return A new AccessToken.
+         * @throws IOException Thrown if the token could not be obtained.
+         */
+        AccessToken getNewToken() throws IOException;
+    }
+
+    /**
+     * Creates a refresher.
+     * @param tokenSupplier Supplies a new access token each time it is called.
+     * @param refreshLeadSeconds The number of seconds before the expiration time of a token to refresh it, which is
+     * raised to MIN_REMAINING_SECONDS if lower.
+     */
+    public EthosAccessTokenRefresher( TokenSupplier tokenSupplier, long refreshLeadSeconds ) {
+        this( tokenSupplier, TimeUnit.SECONDS.toMillis(Math.max(refreshLeadSeconds, MIN_REMAINING_SECONDS)),
+              TimeUnit.SECONDS.toMillis(MIN_REMAINING_SECONDS) );
+    }
+
+    /**
+     * Creates a refresher that does not refresh on a schedule of its own, for a supplier that only has a new token once
+     * the current one has expired, as an SDK client does.  The token is handed out until its expiration time, and the
+     * first caller after that waits on the single refresh run on the given executor.  This is how the
+     * EthosAccessTokenCache keeps the token of each API key without a thread per key.
+     * @param tokenSupplier Supplies the access token of an SDK client.
+     * @param executor Runs the refreshes.  It is not shut down by close().
+     */
+    EthosAccessTokenRefresher( TokenSupplier tokenSupplier, Executor executor ) {
+        this( tokenSupplier, 0, 0, executor, null );
+    }
+
+    private EthosAccessTokenRefresher( TokenSupplier tokenSupplier, long refreshLeadMillis, long minRemainingMillis ) {
+        this( tokenSupplier, refreshLeadMillis, minRemainingMillis, null, Executors.newSingleThreadScheduledExecutor( runnable -> {
+            Thread thread = new Thread( runnable, "ethos-token-refresher" );
+            thread.setDaemon( true );
+            return thread;
+        }) );
+    }
+
+    private EthosAccessTokenRefresher( TokenSupplier tokenSupplier, long refreshLeadMillis, long minRemainingMillis, Executor executor,
+                                       ScheduledExecutorService scheduler ) {
+        if( tokenSupplier == null ) {
+            throw new IllegalArgumentException( "The tokenSupplier is required." );
+        }
+        this.tokenSupplier = tokenSupplier;
+        this.refreshLeadMillis = refreshLeadMillis;
+        this.minRemainingMillis = minRemainingMillis;
+        this.executor = (executor != null) ? executor : scheduler;
+        this.scheduler = scheduler;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Creates a refresher that keeps the token of the given client current.  Pass the client that makes the requests,
+     * for example from SharedEthosClients, so the token renewed here is the one its requests use.
+     * <p>
+     * An SDK client only gets a new token once its current one is no longer valid, so this refresher asks the client
+     * for its token at the token's expiration time rather than ahead of it, and hands the token out for as long as the
+     * client would use it.  The client then renews its token on the background thread, and only a request made in the
+     * same instant still waits on the auth round trip.  As a consequence, getAccessToken() may hand out the client's
+     * token with very little time left, just as the client itself would.
+     * @param ethosClient The client whose token is kept current.
+     * @return An EthosAccessTokenRefresher for the client.
+     */
+    public static EthosAccessTokenRefresher forClient( EthosClient ethosClient ) {
+        if( ethosClient == null ) {
+            throw new IllegalArgumentException( "The ethosClient is required." );
+        }
+        return new EthosAccessTokenRefresher( ethosClient::getAccessToken, 0, 0 );
+    }
+
+    /**
+     * Gets the first token and starts refreshing it in the background.
+     * @return This refresher.
+     * @throws IOException Thrown if the first token could not be obtained.
+     */
+    public EthosAccessTokenRefresher start() throws IOException {
+        await( refreshAsync() );
+        return this;
+    }
+
+    /**
+     * Gets the current access token.  This returns immediately while the current token has more than the minimum
+     * remaining time left, and otherwise waits on the single refresh shared by all callers.  The minimum is
+     * MIN_REMAINING_SECONDS for a refresher created with the constructor, so the token returned has at least that
+     * long left.  A refresher from forClient() has no minimum: it returns the client's token until it expires, however
+     * little time it has left, and only waits once it has expired.
+     * @return A valid AccessToken.
+     * @throws IOException Thrown if no valid token is available and a new one could not be obtained.
+     */
+    public AccessToken getAccessToken() throws IOException {
+        AccessToken token = currentToken;
+        long remainingMillis = getRemainingMillis( token );
+        if( remainingMillis > minRemainingMillis ) {
+            if( remainingMillis <= refreshLeadMillis ) {
+                // The background refresh has fallen behind, so kick one off without waiting for it.
+                refreshAsync();
+            }
+            return token;
+        }
+        return await( refreshAsync() );
+    }
+
+    /**
+     * Gets the current token if it has more than the minimum time left, without ever waiting for a refresh.
+     * @return The current AccessToken, or null if there is none with enough time left.
+     */
+    AccessToken getCurrentToken() {
+        AccessToken token = currentToken;
+        return (getRemainingMillis(token) > minRemainingMillis) ? token : null;
+    }
+
+    /**
+     * Gets the number of tokens obtained from the auth endpoint.
+     * @return The number of successful refreshes.
+     */
+    public long getRefreshCount() {
+        return refreshCount.get();
+    }
+
+    /**
+     * Gets the number of refreshes that failed.
+     * @return The number of failed refreshes.
+     */
+    public long getRefreshFailureCount() {
+        return refreshFailureCount.get();
+    }
+
+    /**
+     * Gets the number of refresh requests that joined a refresh already in progress instead of starting a new one.
+     * @return The number of coalesced refresh requests.
+     */
+    public long getCoalescedRequestCount() {
+        return coalescedRequestCount.get();
+    }
+
+    /**
+     * Stops refreshing the token in the background.
+     */
+    @Override
+    public void close() {
+        synchronized( refreshLock ) {
+            closed = true;
+            if( scheduledRefresh != null ) {
+                scheduledRefresh.cancel( false );
+            }
+        }
+        if( scheduler != null ) {
+            scheduler.shutdownNow();
+        }
+    }
+
+    private static long getRemainingMillis( AccessToken token ) {
+        ZonedDateTime expirationTime = (token == null) ? null : token.getExpirationTime();
+        if( expirationTime == null ) {
+            return 0;
+        }
+        return Duration.between( ZonedDateTime.now(), expirationTime ).toMillis();
+    }
+
+    private CompletableFuture<AccessToken> refreshAsync() {
+        synchronized( refreshLock ) {
+            if( closed ) {
+                CompletableFuture<AccessToken> failed = new CompletableFuture<>();
+                failed.completeExceptionally( new IOException("The token refresher has been closed.") );
+                return failed;
+            }
+            if( inFlightRefresh != null ) {
+                coalescedRequestCount.incrementAndGet();
+                return inFlightRefresh;
+            }
+            CompletableFuture<AccessToken> refresh = new CompletableFuture<>();
+            inFlightRefresh = refresh;
+            executor.execute( () -> refresh(refresh) );
+            return refresh;
+        }
+    }
+
+    private void refresh( CompletableFuture<AccessToken> refresh ) {
+        try {
+            AccessToken token = tokenSupplier.getNewToken();
+            if( token != currentToken ) {
+                refreshCount.incrementAndGet();
+            }
+            currentToken = token;
+            // Refresh the lead time before the token's own expiration time, but not before half of its remaining lifetime.
+            long remainingMillis = getRemainingMillis( token );
+            scheduleRefresh( Math.max(MIN_SCHEDULE_DELAY_MILLIS, Math.max(remainingMillis - refreshLeadMillis, remainingMillis / 2)) );
+            completeRefresh( refresh, token, null );
+        }
+        catch( Throwable t ) {
+            refreshFailureCount.incrementAndGet();
+            scheduleRefresh( TimeUnit.SECONDS.toMillis(RETRY_DELAY_SECONDS) );
+            completeRefresh( refresh, null, t );
+        }
+    }
+
+    private void completeRefresh( CompletableFuture<AccessToken> refresh, AccessToken token, Throwable error ) {
+        synchronized( refreshLock ) {
+            inFlightRefresh = null;
+        }
+        if( error == null ) {
+            refresh.complete( token );
+        }
+        else {
+            refresh.completeExceptionally( error );
+        }
+    }
+
+    private void scheduleRefresh( long delayMillis ) {
+        synchronized( refreshLock ) {
+            if( closed || scheduler == null ) {
+                return;
+            }
+            if( scheduledRefresh != null ) {
+                scheduledRefresh.cancel( false );
+            }
+            scheduledRefresh = scheduler.schedule( this::refreshAsync, delayMillis, TimeUnit.MILLISECONDS );
+        }
+    }
+
+    private AccessToken await( CompletableFuture<AccessToken> refresh ) throws IOException {
+        try {
+            return refresh.get();
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for an access token." );
+        }
+        catch( ExecutionException ee ) {
+            Throwable cause = ee.getCause();
+            if( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            throw new IOException( "Failed to get an access token.", cause );
+        }
+    }
+
+}
@@ -0,0 +1,314 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.notification.AbstractEthosChangeNotificationSubscriber;
+import com.ellucian.ethos.integration.service.EthosChangeNotificationService;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls for change notifications with an interval that follows the activity of the message queue, as an alternative
+ * to the fixed pollingIntervalSeconds of the EthosChangeNotificationPollService.  A fixed interval either wastes
+ * requests on an idle queue, or adds up to a whole interval of latency to every batch while the queue is busy.
+ * <p>
+ * This poller asks again immediately while batches come back full, since more notifications are likely waiting.  After
+ * a batch that is not full it waits the minimum interval, and every poll that comes back empty doubles the wait, up to
+ * the maximum interval.  A failed request is treated like an empty poll, so an unavailable service is not hammered.
+ * The current interval is exposed by getCurrentIntervalMillis().
+ * <p>
+ * Each change notification is handed to the given subscriber, as the poll service does, and errors are handed to its
+ * onChangeNotificationError().  The subscriber is not subscribed to a poll service, so stop polling by closing this
+ * poller rather than by cancelling the subscription.
+ */
+public class EthosAdaptiveChangeNotificationPoller implements Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default number of change notifications requested at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 20;
+
+    /**
+     * The default time in milliseconds to wait after a batch that is not full.
+     */
+    public static final long DEFAULT_MIN_INTERVAL_MILLIS = 500;
+
+    /**
+     * The default longest time in milliseconds to wait while polls come back empty.
+     */
+    public static final long DEFAULT_MAX_INTERVAL_MILLIS = 30_000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final EthosChangeNotificationService ethosChangeNotificationService;
+    private final AbstractEthosChangeNotificationSubscriber subscriber;
+    private final EthosBacklogBatchSizer batchSizer;
+    private final int batchSize;
+    private final long minIntervalMillis;
+    private final long maxIntervalMillis;
+    private final Thread pollThread;
+    private boolean started;
+    private volatile boolean running;
+    private volatile long currentIntervalMillis;
+    private final AtomicLong pollCount = new AtomicLong();
+    private final AtomicLong fullPollCount = new AtomicLong();
+    private final AtomicLong emptyPollCount = new AtomicLong();
+    private final AtomicLong failedPollCount = new AtomicLong();
+    private final AtomicLong notificationCount = new AtomicLong();
+
+    private EthosAdaptiveChangeNotificationPoller( Builder builder ) {
+        this.ethosChangeNotificationService = builder.ethosChangeNotificationService;
+        this.subscriber = builder.subscriber;
+        this.batchSizer = builder.batchSizer;
+        this.batchSize = builder.batchSize;
+        this.minIntervalMillis = builder.minIntervalMillis;
+        this.maxIntervalMillis = builder.maxIntervalMillis;
+        this.pollThread = new Thread( this::poll, "ethos-adaptive-poll-" + THREAD_COUNT.incrementAndGet() );
+        this.pollThread.setDaemon( true );
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Starts polling in a background thread.  The first poll is made immediately.  A poller can only be started once,
+     * so build a new one to poll again after closing it.
+     * @throws IllegalStateException Thrown if the poller has already been started, even if it has since been closed.
+     */
+    public synchronized void start() {
+        if( started ) {
+            throw new IllegalStateException( "The poller has already been started, and cannot be restarted once closed." );
+        }
+        started = true;
+        running = true;
+        pollThread.start();
+    }
+
+    /**
+     * Indicates whether the poller has been started and not closed.
+     * @return True if polling.
+     */
+    public boolean isRunning() {
+        return running;
+    }
+
+    /**
+     * Gets the time the poller waits before the next poll, which is 0 while batches come back full.
+     * @return The current interval in milliseconds.
+     */
+    public long getCurrentIntervalMillis() {
+        return currentIntervalMillis;
+    }
+
+    /**
+     * Gets the number of polls made.
+     * @return The poll count.
+     */
+    public long getPollCount() {
+        return pollCount.get();
+    }
+
+    /**
+     * Gets the number of polls that returned a full batch, after which the poller asked again immediately.
+     * @return The full poll count.
+     */
+    public long getFullPollCount() {
+        return fullPollCount.get();
+    }
+
+    /**
+     * Gets the number of polls that returned no change notifications.
+     * @return The empty poll count.
+     */
+    public long getEmptyPollCount() {
+        return emptyPollCount.get();
+    }
+
+    /**
+     * Gets the number of polls that failed.
+     * @return The failed poll count.
+     */
+    public long getFailedPollCount() {
+        return failedPollCount.get();
+    }
+
+    /**
+     * Gets the number of change notifications handed to the subscriber.
+     * @return The notification count.
+     */
+    public long getNotificationCount() {
+        return notificationCount.get();
+    }
+
+    /**
+     * Stops polling.  A batch being handed to the subscriber is finished first.
+     */
+    @Override
+    public void close() {
+        running = false;
+        pollThread.interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosAdaptiveChangeNotificationPoller[currentIntervalMillis=%s, polls=%s, fullPolls=%s, emptyPolls=%s, failedPolls=%s, notifications=%s]",
+                              getCurrentIntervalMillis(), getPollCount(), getFullPollCount(), getEmptyPollCount(), getFailedPollCount(),
+                              getNotificationCount() );
+    }
+
+    private void poll() {
+        try {
+            while( running ) {
+                pollCount.incrementAndGet();
+                try {
+                    List<ChangeNotification> changeNotificationList;
+                    int limit;
+                    if( batchSizer != null ) {
+                        changeNotificationList = batchSizer.getChangeNotifications( ethosChangeNotificationService );
+                        limit = batchSizer.getCurrentLimit();
+                    }
+                    else {
+                        changeNotificationList = ethosChangeNotificationService.getChangeNotifications( batchSize );
+                        limit = batchSize;
+                    }
+                    int receivedCount = (changeNotificationList == null) ? 0 : changeNotificationList.size();
+                    if( receivedCount == 0 ) {
+                        emptyPollCount.incrementAndGet();
+                        backOff();
+                    }
+                    else {
+                        publish( changeNotificationList );
+                        if( receivedCount >= limit ) {
+                            // A full batch, so more are likely waiting: ask again without waiting.
+                            fullPollCount.incrementAndGet();
+                            currentIntervalMillis = 0;
+                        }
+                        else {
+                            currentIntervalMillis = minIntervalMillis;
+                        }
+                    }
+                }
+                catch( IOException | RuntimeException e ) {
+                    failedPollCount.incrementAndGet();
+                    subscriber.onChangeNotificationError( e );
+                    backOff();
+                }
+                if( currentIntervalMillis > 0 ) {
+                    Thread.sleep( currentIntervalMillis );
+                }
+            }
+        }
+        catch( InterruptedException ie ) {
+            // Closed while waiting, so stop polling.
+        }
+        finally {
+            running = false;
+        }
+    }
+
+    private void publish( List<ChangeNotification> changeNotificationList ) {
+        for( ChangeNotification changeNotification : changeNotificationList ) {
+            notificationCount.incrementAndGet();
+            try {
+                subscriber.onChangeNotification( changeNotification );
+            }
+            catch( RuntimeException re ) {
+                subscriber.onChangeNotificationError( re );
+            }
+        }
+    }
+
+    private void backOff() {
+        long intervalMillis = currentIntervalMillis;
+        currentIntervalMillis = (intervalMillis < minIntervalMillis) ? minIntervalMillis : Math.min( maxIntervalMillis, intervalMillis * 2 );
+    }
+
+    /**
+     * Builds an EthosAdaptiveChangeNotificationPoller.
+     */
+    public static class Builder {
+
+        private final EthosChangeNotificationService ethosChangeNotificationService;
+        private final AbstractEthosChangeNotificationSubscriber subscriber;
+        private EthosBacklogBatchSizer batchSizer;
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private long minIntervalMillis = DEFAULT_MIN_INTERVAL_MILLIS;
+        private long maxIntervalMillis = DEFAULT_MAX_INTERVAL_MILLIS;
+
+        /**
+         * Creates a Builder.
+         * @param ethosChangeNotificationService The EthosChangeNotificationService used to get the change notifications.
+         * @param subscriber The subscriber handling each change notification.
+         */
+        public Builder( EthosChangeNotificationService ethosChangeNotificationService, AbstractEthosChangeNotificationSubscriber subscriber ) {
+            if( ethosChangeNotificationService == null || subscriber == null ) {
+                throw new IllegalArgumentException( "The ethosChangeNotificationService and subscriber are required." );
+            }
+            this.ethosChangeNotificationService = ethosChangeNotificationService;
+            this.subscriber = subscriber;
+        }
+
+        /**
+         * Requests the given number of change notifications at once.
+         * @param batchSize The number of change notifications requested at once.
+         * @return This builder.
+         */
+        public Builder withBatchSize( int batchSize ) {
+            if( batchSize < 1 ) {
+                throw new IllegalArgumentException( "The batchSize must be at least 1: " + batchSize );
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Requests the number of change notifications chosen by the given sizer from the depth of the message queue,
+         * in place of a fixed batch size.
+         * @param batchSizer The EthosBacklogBatchSizer choosing the number of change notifications requested at once.
+         * @return This builder.
+         */
+        public Builder withBatchSizer( EthosBacklogBatchSizer batchSizer ) {
+            this.batchSizer = batchSizer;
+            return this;
+        }
+
+        /**
+         * Waits between the given times while polls come back empty, doubling the wait after each empty poll.
+         * @param minIntervalMillis The time in milliseconds to wait after a batch that is not full, and after the first
+         * empty poll.
+         * @param maxIntervalMillis The longest time in milliseconds to wait.
+         * @return This builder.
+         */
+        public Builder withIntervalMillis( long minIntervalMillis, long maxIntervalMillis ) {
+            if( minIntervalMillis < 1 || maxIntervalMillis < minIntervalMillis ) {
+                throw new IllegalArgumentException( "The minIntervalMillis must be at least 1 and no more than the maxIntervalMillis." );
+            }
+            this.minIntervalMillis = minIntervalMillis;
+            this.maxIntervalMillis = maxIntervalMillis;
+            return this;
+        }
+
+        /**
+         * Builds the poller.  Call start() to begin polling.
+         * @return The EthosAdaptiveChangeNotificationPoller.
+         */
+        public EthosAdaptiveChangeNotificationPoller build() {
+            return new EthosAdaptiveChangeNotificationPoller( this );
+        }
+
+    }
+
+}
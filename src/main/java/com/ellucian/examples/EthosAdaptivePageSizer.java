@@ -0,0 +1,274 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import org.apache.http.client.HttpResponseException;
+
+import java.io.IOException;
+import java.net.SocketTimeoutException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * An EthosPageSizer that tunes the page size of a resource from the response time and body size of the pages already
+ * fetched, to get the most records per second without requests running into gateway timeouts.
+ * <p>
+ * Paging starts with the default page size of the resource.  While pages come back well within the target latency,
+ * and the records per second keep improving, the page size is doubled, up to the 'x-max-page-size' of the resource
+ * and to the number of rows that fit within the maximum body size.  If larger pages stop improving the records per
+ * second, the page size goes back to the best one seen, and larger sizes are tried again now and then in case
+ * conditions have changed.  A page slower than the target latency halves the page size, and a page that times out or
+ * fails with a gateway error is requested again at half the size.
+ * <p>
+ * The sizer keeps learning across calls when it is reused, and forResource() returns one shared sizer per client,
+ * resource and version for that purpose.  These are held in a static map, so they are shared by all code in the JVM
+ * using the same client, but each client, and so each API key and tenant, learns its own page sizes.  The map holds
+ * the clients weakly, so the sizers of a client are released along with it.  A sizer is safe to share across
+ * threads.
+ */
+public class EthosAdaptivePageSizer implements EthosPageSizer {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default latency a page should stay within, well below the timeouts of the API gateway.
+     */
+    public static final long DEFAULT_TARGET_LATENCY_MILLIS = 5000;
+
+    /**
+     * The default maximum size of a page body.
+     */
+    public static final long DEFAULT_MAX_BODY_BYTES = 16 * 1024 * 1024;
+
+    /**
+     * The smallest page size the sizer will request.
+     */
+    public static final int MIN_PAGE_SIZE = 5;
+
+    private static final int PROBE_INTERVAL_PAGES = 20;
+    private static final int MAX_CONSECUTIVE_RETRIES = 3;
+    private static final double IMPROVEMENT_THRESHOLD = 1.05;
+    private static final double REGRESSION_THRESHOLD = 0.90;
+    private static final Map<EthosProxyClient, Map<String, EthosAdaptivePageSizer>> SHARED_SIZER_MAP =
+            Collections.synchronizedMap( new WeakHashMap<>() );
+
+    private final long targetLatencyNanos;
+    private final long maxBodyBytes;
+    private int pageSize;
+    private int maxPageSize = Integer.MAX_VALUE;
+    private double bytesPerRow;
+    private double bestRecordsPerSecond;
+    private int bestPageSize;
+    private boolean growing = true;
+    private int pagesSinceProbe;
+    private int consecutiveRetries;
+    private long increaseCount;
+    private long decreaseCount;
+    private long retryCount;
+
+    /**
+     * Creates a sizer using the default target latency and maximum body size.
+     */
+    public EthosAdaptivePageSizer() {
+        this( DEFAULT_TARGET_LATENCY_MILLIS, DEFAULT_MAX_BODY_BYTES );
+    }
+
+    /**
+     * Creates a sizer.
+     * @param targetLatencyMillis The latency in milliseconds that a page should stay within.
+     * @param maxBodyBytes The maximum size of a page body in bytes.
+     */
+    public EthosAdaptivePageSizer( long targetLatencyMillis, long maxBodyBytes ) {
+        if( targetLatencyMillis < 1 || maxBodyBytes < 1 ) {
+            throw new IllegalArgumentException( "The targetLatencyMillis and maxBodyBytes must be positive." );
+        }
+        this.targetLatencyNanos = TimeUnit.MILLISECONDS.toNanos( targetLatencyMillis );
+        this.maxBodyBytes = maxBodyBytes;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the shared sizer for the given client, resource and version, so that what has been learned about the
+     * resource is kept across paging calls made with that client.
+     * @param ethosProxyClient The EthosProxyClient the pages are fetched with.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return The shared EthosAdaptivePageSizer for the client, resource and version.
+     */
+    public static EthosAdaptivePageSizer forResource( EthosProxyClient ethosProxyClient, String resourceName, String version ) {
+        if( ethosProxyClient == null ) {
+            throw new IllegalArgumentException( "The ethosProxyClient is required." );
+        }
+        String resourceVersion = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+        Map<String, EthosAdaptivePageSizer> sizerMap = SHARED_SIZER_MAP.computeIfAbsent( ethosProxyClient, client -> new ConcurrentHashMap<>() );
+        return sizerMap.computeIfAbsent( resourceName + "|" + resourceVersion, key -> new EthosAdaptivePageSizer() );
+    }
+
+    @Override
+    public synchronized int nextPageSize() {
+        return pageSize;
+    }
+
+    @Override
+    public synchronized void onPageFetched( EthosResponse page, int requestedPageSize, int rowCount, long latencyNanos ) {
+        consecutiveRetries = 0;
+        int headerMaxPageSize = EthosPageHeaders.getMaxPageSize( page );
+        if( headerMaxPageSize > 0 ) {
+            maxPageSize = headerMaxPageSize;
+        }
+        if( rowCount <= 0 ) {
+            return;
+        }
+        String content = page.getContent();
+        if( content != null ) {
+            double pageBytesPerRow = (double) content.length() / rowCount;
+            bytesPerRow = (bytesPerRow == 0) ? pageBytesPerRow : 0.7 * bytesPerRow + 0.3 * pageBytesPerRow;
+        }
+        if( requestedPageSize == 0 ) {
+            // The first page used the default page size of the resource, so start tuning from there.
+            setPageSize( rowCount );
+            return;
+        }
+        if( rowCount < requestedPageSize ) {
+            // A short last page says nothing about how larger pages perform.
+            return;
+        }
+        double recordsPerSecond = rowCount / Math.max( latencyNanos / 1e9, 1e-6 );
+        if( latencyNanos > targetLatencyNanos ) {
+            growing = false;
+            decreaseCount++;
+            setPageSize( requestedPageSize / 2 );
+            return;
+        }
+        if( recordsPerSecond > bestRecordsPerSecond * IMPROVEMENT_THRESHOLD || requestedPageSize == bestPageSize ) {
+            if( recordsPerSecond > bestRecordsPerSecond || requestedPageSize == bestPageSize ) {
+                bestRecordsPerSecond = (requestedPageSize == bestPageSize) ? Math.max( recordsPerSecond, bestRecordsPerSecond * REGRESSION_THRESHOLD ) : recordsPerSecond;
+                bestPageSize = requestedPageSize;
+            }
+        }
+        else if( recordsPerSecond < bestRecordsPerSecond * REGRESSION_THRESHOLD ) {
+            // Larger pages did not pay off, so settle on the best size seen.
+            growing = false;
+            if( bestPageSize < requestedPageSize ) {
+                decreaseCount++;
+            }
+            else if( bestPageSize > requestedPageSize ) {
+                increaseCount++;
+            }
+            setPageSize( bestPageSize );
+            return;
+        }
+        if( !growing && ++pagesSinceProbe >= PROBE_INTERVAL_PAGES ) {
+            growing = true;
+        }
+        if( growing && latencyNanos < targetLatencyNanos / 2 && requestedPageSize < getPageSizeLimit() ) {
+            pagesSinceProbe = 0;
+            increaseCount++;
+            setPageSize( requestedPageSize * 2 );
+            growing = recordsPerSecond >= bestRecordsPerSecond;
+        }
+    }
+
+    @Override
+    public synchronized boolean onPageFailed( IOException exception, int requestedPageSize ) {
+        if( !isTimeout(exception) || consecutiveRetries >= MAX_CONSECUTIVE_RETRIES || requestedPageSize == MIN_PAGE_SIZE ) {
+            return false;
+        }
+        consecutiveRetries++;
+        retryCount++;
+        decreaseCount++;
+        growing = false;
+        // A failed request with the default page size has no known size to halve, so fall back to the smallest size.
+        setPageSize( (requestedPageSize == 0) ? MIN_PAGE_SIZE : requestedPageSize / 2 );
+        return true;
+    }
+
+    /**
+     * Gets the page size that will be requested next.
+     * @return The current page size, or 0 if the default page size of the resource is still being used.
+     */
+    public synchronized int getPageSize() {
+        return pageSize;
+    }
+
+    /**
+     * Gets the page size with the best records per second seen so far.
+     * @return The best page size, or 0 if none has been measured yet.
+     */
+    public synchronized int getBestPageSize() {
+        return bestPageSize;
+    }
+
+    /**
+     * Gets the best records per second seen so far.
+     * @return The best records per second.
+     */
+    public synchronized double getBestRecordsPerSecond() {
+        return bestRecordsPerSecond;
+    }
+
+    /**
+     * Gets the number of times the page size was increased.
+     * @return The increase count.
+     */
+    public synchronized long getIncreaseCount() {
+        return increaseCount;
+    }
+
+    /**
+     * Gets the number of times the page size was decreased.
+     * @return The decrease count.
+     */
+    public synchronized long getDecreaseCount() {
+        return decreaseCount;
+    }
+
+    /**
+     * Gets the number of pages requested again at a smaller size after a timeout.
+     * @return The retry count.
+     */
+    public synchronized long getRetryCount() {
+        return retryCount;
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format( "EthosAdaptivePageSizer[pageSize=%s, bestPageSize=%s, bestRecordsPerSecond=%.1f, maxPageSize=%s, increases=%s, decreases=%s, retries=%s]",
+                              pageSize, bestPageSize, bestRecordsPerSecond, (maxPageSize == Integer.MAX_VALUE) ? "unknown" : maxPageSize,
+                              increaseCount, decreaseCount, retryCount );
+    }
+
+    private int getPageSizeLimit() {
+        int bodyLimit = (bytesPerRow > 0) ? (int) Math.min( Integer.MAX_VALUE, maxBodyBytes / bytesPerRow ) : Integer.MAX_VALUE;
+        return Math.max( MIN_PAGE_SIZE, Math.min(maxPageSize, bodyLimit) );
+    }
+
+    private void setPageSize( int newPageSize ) {
+        pageSize = Math.max( MIN_PAGE_SIZE, Math.min(newPageSize, getPageSizeLimit()) );
+    }
+
+    private static boolean isTimeout( IOException exception ) {
+        if( exception instanceof SocketTimeoutException ) {
+            return true;
+        }
+        if( exception instanceof HttpResponseException ) {
+            int statusCode = ((HttpResponseException) exception).getStatusCode();
+            return statusCode == 408 || statusCode == 502 || statusCode == 503 || statusCode == 504;
+        }
+        return false;
+    }
+
+}
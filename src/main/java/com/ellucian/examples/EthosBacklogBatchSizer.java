@@ -0,0 +1,192 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.client.messages.EthosMessagesClient;
+import com.ellucian.ethos.integration.service.EthosChangeNotificationService;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Chooses the number of change notifications to request at once from the depth of the message queue, rather than a
+ * fixed limit.  While the backlog is deep the limit doubles with each request up to the maximum, so a catch-up drains
+ * in few, large batches.  Once the queue is nearly empty the limit drops back to the minimum, so in steady state each
+ * notification is handed over as soon as it arrives, in a small, quick response.
+ * <p>
+ * The backlog is read with getNumAvailableMessages(), but not before every request.  A batch that comes back with
+ * fewer notifications than requested shows the queue has been drained, and a full batch is subtracted from the last
+ * backlog read.  The backlog is only read again when that estimate runs out while batches are still full, or once it
+ * is older than the refresh interval during a catch-up, so in steady state no extra requests are made.
+ */
+public class EthosBacklogBatchSizer {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default smallest number of change notifications requested at once.
+     */
+    public static final int DEFAULT_MIN_LIMIT = 3;
+
+    /**
+     * The default largest number of change notifications requested at once.
+     */
+    public static final int DEFAULT_MAX_LIMIT = 1000;
+
+    /**
+     * The default time in milliseconds after which the backlog read is refreshed while batches are full.
+     */
+    public static final long DEFAULT_REFRESH_MILLIS = 10_000;
+
+    private final EthosMessagesClient ethosMessagesClient;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long refreshNanos;
+    private int currentLimit;
+    private long estimatedBacklog;
+    private boolean backlogKnown;
+    private boolean lastBatchFull;
+    private long backlogReadAt;
+    private volatile int lastBacklog = -1;
+    private final AtomicLong backlogReadCount = new AtomicLong();
+
+    /**
+     * Creates a sizer using the default minimum and maximum limits and refresh interval.
+     * @param ethosMessagesClient The EthosMessagesClient used to read the number of available messages.
+     */
+    public EthosBacklogBatchSizer( EthosMessagesClient ethosMessagesClient ) {
+        this( ethosMessagesClient, DEFAULT_MIN_LIMIT, DEFAULT_MAX_LIMIT, DEFAULT_REFRESH_MILLIS );
+    }
+
+    /**
+     * Creates a sizer.
+     * @param ethosMessagesClient The EthosMessagesClient used to read the number of available messages.
+     * @param minLimit The smallest number of change notifications requested at once, used when the queue is nearly empty.
+     * @param maxLimit The largest number of change notifications requested at once, used when the backlog is deep.
+     * @param refreshMillis The time in milliseconds after which the backlog read is refreshed while batches are full.
+     */
+    public EthosBacklogBatchSizer( EthosMessagesClient ethosMessagesClient, int minLimit, int maxLimit, long refreshMillis ) {
+        if( ethosMessagesClient == null ) {
+            throw new IllegalArgumentException( "The ethosMessagesClient is required." );
+        }
+        if( minLimit < 1 || maxLimit < minLimit || refreshMillis < 0 ) {
+            throw new IllegalArgumentException( "The minLimit must be at least 1 and no more than the maxLimit, and the refreshMillis cannot be negative." );
+        }
+        this.ethosMessagesClient = ethosMessagesClient;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.refreshNanos = TimeUnit.MILLISECONDS.toNanos( refreshMillis );
+        this.currentLimit = minLimit;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the next batch of change notifications from the EthosChangeNotificationService, using the limit chosen by
+     * this sizer.
+     * @param ethosChangeNotificationService The EthosChangeNotificationService used to get the change notifications.
+     * @return The change notifications, which may be empty.
+     * @throws IOException Thrown if the backlog cannot be read or the request fails.
+     */
+    public List<ChangeNotification> getChangeNotifications( EthosChangeNotificationService ethosChangeNotificationService ) throws IOException {
+        if( ethosChangeNotificationService == null ) {
+            throw new IllegalArgumentException( "The ethosChangeNotificationService is required." );
+        }
+        int limit = nextLimit();
+        List<ChangeNotification> changeNotificationList = ethosChangeNotificationService.getChangeNotifications( limit );
+        onBatchReceived( limit, changeNotificationList == null ? 0 : changeNotificationList.size() );
+        return changeNotificationList;
+    }
+
+    /**
+     * Chooses the number of change notifications to request next, reading the backlog first if the estimate of it is
+     * unknown or stale.
+     * @return The limit of the next request.
+     * @throws IOException Thrown if the backlog cannot be read.
+     */
+    public synchronized int nextLimit() throws IOException {
+        boolean stale = lastBatchFull && System.nanoTime() - backlogReadAt > refreshNanos;
+        if( !backlogKnown || stale ) {
+            readBacklog();
+        }
+        int desiredLimit = (int) Math.max( minLimit, Math.min(maxLimit, estimatedBacklog) );
+        if( desiredLimit > currentLimit ) {
+            // Grow geometrically, so a single deep backlog read does not jump straight to one huge, slow request.
+            currentLimit = (int) Math.min( desiredLimit, (long) currentLimit * 2 );
+        }
+        else {
+            currentLimit = desiredLimit;
+        }
+        return currentLimit;
+    }
+
+    /**
+     * Records the size of a batch received, to keep the estimate of the backlog current without reading it again.
+     * @param limit The limit the batch was requested with.
+     * @param receivedCount The number of change notifications received.
+     */
+    public synchronized void onBatchReceived( int limit, int receivedCount ) {
+        lastBatchFull = receivedCount >= limit;
+        if( !lastBatchFull ) {
+            // Fewer than asked for, so the queue has been drained.
+            estimatedBacklog = 0;
+            backlogKnown = true;
+            return;
+        }
+        estimatedBacklog = Math.max( 0, estimatedBacklog - receivedCount );
+        if( estimatedBacklog == 0 ) {
+            // The backlog read has been used up, but the batch was full, so there may be more.
+            backlogKnown = false;
+        }
+    }
+
+    /**
+     * Gets the limit of the most recent request.
+     * @return The current limit.
+     */
+    public synchronized int getCurrentLimit() {
+        return currentLimit;
+    }
+
+    /**
+     * Gets the backlog from the last time it was read.
+     * @return The number of available messages, or -1 if it has not been read yet.
+     */
+    public int getLastBacklog() {
+        return lastBacklog;
+    }
+
+    /**
+     * Gets the number of times the backlog has been read.
+     * @return The backlog read count.
+     */
+    public long getBacklogReadCount() {
+        return backlogReadCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosBacklogBatchSizer[currentLimit=%s, minLimit=%s, maxLimit=%s, lastBacklog=%s, backlogReads=%s]",
+                              getCurrentLimit(), minLimit, maxLimit, getLastBacklog(), getBacklogReadCount() );
+    }
+
+    private void readBacklog() throws IOException {
+        int backlog = ethosMessagesClient.getNumAvailableMessages();
+        backlogReadCount.incrementAndGet();
+        backlogReadAt = System.nanoTime();
+        lastBacklog = backlog;
+        estimatedBacklog = Math.max( 0, backlog );
+        backlogKnown = true;
+    }
+
+}
@@ -0,0 +1,355 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.BufferedOutputStream;
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Properties;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Exports all pages of a resource to a local NDJSON file, one record per line, recording the offset reached after
+ * every page in a checkpoint file.  If the export fails part way, for example at page 900 of 1000, running it again
+ * resumes from the offset of the checkpoint instead of fetching the whole resource again.
+ * <p>
+ * Each page is appended to the export file and forced to disk before the checkpoint is replaced, so the checkpoint
+ * never refers to records that were not written.  On resume the export file is first truncated to the length recorded
+ * in the checkpoint, which discards any partly written page.  The checkpoint is written to a temporary file and then
+ * moved over the previous one, so it is never seen half written.
+ * <p>
+ * When the export file name ends with ".gz", each page is written as its own gzip member.  Concatenated gzip members
+ * form a valid gzip file that GZIPInputStream, gunzip and zcat read as one stream, and truncating at a member boundary
+ * on resume leaves a valid file.
+ * <p>
+ * Once an export completes its checkpoint is marked complete, and running it again returns without any requests.
+ * Call reset() to start the next export of the resource from the beginning.
+ */
+public class EthosBulkExporter {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The suffix added to the export file name to name its checkpoint file.
+     */
+    public static final String CHECKPOINT_SUFFIX = ".checkpoint";
+
+    private static final String GZIP_SUFFIX = ".gz";
+    private static final String PROP_RESOURCE_NAME = "resourceName";
+    private static final String PROP_VERSION = "version";
+    private static final String PROP_OFFSET = "offset";
+    private static final String PROP_RECORD_COUNT = "recordCount";
+    private static final String PROP_BYTE_COUNT = "byteCount";
+    private static final String PROP_COMPLETE = "complete";
+
+    private final Path exportFile;
+    private final Path checkpointFile;
+    private final boolean compressed;
+    private final JsonFactory jsonFactory = EthosJsonSupport.getObjectMapper().getFactory();
+
+    /**
+     * The progress of an export, as recorded in its checkpoint file.
+     */
+    public static final class Checkpoint {
+        private final String resourceName;
+        private final String version;
+        private final int offset;
+        private final long recordCount;
+        private final long byteCount;
+        private final boolean complete;
+
+        private Checkpoint( String resourceName, String version, int offset, long recordCount, long byteCount, boolean complete ) {
+            this.resourceName = resourceName;
+            this.version = version;
+            this.offset = offset;
+            this.recordCount = recordCount;
+            this.byteCount = byteCount;
+            this.complete = complete;
+        }
+
+        /**
+         * Gets the name of the exported resource.
+         * @return The resource name.
+         */
+        public String getResourceName() {
+            return resourceName;
+        }
+
+        /**
+         * Gets the version of the exported resource.
+         * @return The version.
+         */
+        public String getVersion() {
+            return version;
+        }
+
+        /**
+         * Gets the offset of the next page to export.
+         * @return The offset the export resumes from.
+         */
+        public int getOffset() {
+            return offset;
+        }
+
+        /**
+         * Gets the number of records written to the export file.
+         * @return The record count.
+         */
+        public long getRecordCount() {
+            return recordCount;
+        }
+
+        /**
+         * Gets the length of the export file up to the last completed page.
+         * @return The byte count.
+         */
+        public long getByteCount() {
+            return byteCount;
+        }
+
+        /**
+         * Checks whether every page has been exported.
+         * @return True if the export is complete, otherwise false.
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+
+        @Override
+        public String toString() {
+            return String.format( "Checkpoint[resource=%s, version=%s, offset=%s, records=%s, bytes=%s, complete=%s]",
+                                  resourceName, version, offset, recordCount, byteCount, complete );
+        }
+    }
+
+    /**
+     * Creates an exporter writing to the given file, with the checkpoint file beside it.  Pages are gzip compressed
+     * when the file name ends with ".gz".
+     * @param exportFile The NDJSON file to export to.
+     */
+    public EthosBulkExporter( Path exportFile ) {
+        this( exportFile, checkpointFileFor(exportFile), exportFile != null && exportFile.toString().endsWith(GZIP_SUFFIX) );
+    }
+
+    /**
+     * Creates an exporter.
+     * @param exportFile The NDJSON file to export to.
+     * @param checkpointFile The file recording the progress of the export.
+     * @param compressed Whether to write each page as a gzip member.
+     */
+    public EthosBulkExporter( Path exportFile, Path checkpointFile, boolean compressed ) {
+        if( exportFile == null || checkpointFile == null ) {
+            throw new IllegalArgumentException( "The exportFile and checkpointFile are required." );
+        }
+        this.exportFile = exportFile;
+        this.checkpointFile = checkpointFile;
+        this.compressed = compressed;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Exports all pages of the given resource and version, resuming from the checkpoint if there is one.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return The checkpoint of the completed export.
+     * @throws IOException Thrown if a request fails or the files cannot be written.  The checkpoint then records the
+     * last page exported, and the export can be run again to resume.
+     */
+    public Checkpoint exportAllPages( EthosProxyClient ethosProxyClient, String resourceName, String version, int pageSize ) throws IOException {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosProxyClient ).pageFetcher( resourceName, version );
+        return exportPages( pageFetcher, resourceName, version, 0, EthosPageSizer.fixed(pageSize) );
+    }
+
+    /**
+     * Exports all pages of the given resource and version starting from the given offset, resuming from the checkpoint
+     * if there is one, with the page size of each request chosen by the given sizer, such as the EthosAdaptivePageSizer.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param resourceName The name of the resource, which identifies the export in the checkpoint.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start from when there is no checkpoint.
+     * @param pageSizer The EthosPageSizer choosing the page size of each request.
+     * @return The checkpoint of the completed export.
+     * @throws IOException Thrown if a request fails or the files cannot be written, or the checkpoint is for a
+     * different resource or version.
+     */
+    public Checkpoint exportPages( EthosPageFetcher pageFetcher, String resourceName, String version, int offset,
+                                   EthosPageSizer pageSizer ) throws IOException {
+        if( pageFetcher == null || resourceName == null || pageSizer == null ) {
+            throw new IllegalArgumentException( "The pageFetcher, resourceName and pageSizer are required." );
+        }
+        String resourceVersion = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+        Checkpoint checkpoint = readCheckpoint();
+        if( checkpoint == null ) {
+            checkpoint = new Checkpoint( resourceName, resourceVersion, offset, 0, 0, false );
+        }
+        else if( !checkpoint.resourceName.equals(resourceName) || !checkpoint.version.equals(resourceVersion) ) {
+            throw new IOException( "The checkpoint " + checkpointFile + " is for " + checkpoint.resourceName + " " + checkpoint.version
+                                   + ", not " + resourceName + " " + resourceVersion + "." );
+        }
+        if( checkpoint.complete ) {
+            return checkpoint;
+        }
+        try( FileChannel exportChannel = FileChannel.open(exportFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE) ) {
+            // Anything past the checkpoint is a page that was not completed, so it is written again.
+            exportChannel.truncate( checkpoint.byteCount );
+            exportChannel.position( checkpoint.byteCount );
+            EthosPageIterator pageIterator = new EthosPageIterator( pageFetcher, checkpoint.offset, pageSizer );
+            while( pageIterator.hasNext() ) {
+                EthosResponse page = pageIterator.next();
+                long pageRecordCount = writePage( page, exportChannel );
+                exportChannel.force( false );
+                checkpoint = new Checkpoint( resourceName, resourceVersion, pageIterator.getOffset(), checkpoint.recordCount + pageRecordCount,
+                                             exportChannel.position(), false );
+                writeCheckpoint( checkpoint );
+            }
+        }
+        catch( UncheckedIOException uioe ) {
+            throw uioe.getCause();
+        }
+        checkpoint = new Checkpoint( resourceName, resourceVersion, checkpoint.offset, checkpoint.recordCount, checkpoint.byteCount, true );
+        writeCheckpoint( checkpoint );
+        return checkpoint;
+    }
+
+    /**
+     * Reads the checkpoint of the export.
+     * @return The checkpoint, or null if the export has not started.
+     * @throws IOException Thrown if the checkpoint file cannot be read.
+     */
+    public Checkpoint readCheckpoint() throws IOException {
+        if( !Files.exists(checkpointFile) ) {
+            return null;
+        }
+        Properties properties = new Properties();
+        try( InputStream inputStream = Files.newInputStream(checkpointFile) ) {
+            properties.load( inputStream );
+        }
+        try {
+            return new Checkpoint( properties.getProperty(PROP_RESOURCE_NAME), properties.getProperty(PROP_VERSION),
+                                   Integer.parseInt( properties.getProperty(PROP_OFFSET) ),
+                                   Long.parseLong( properties.getProperty(PROP_RECORD_COUNT) ),
+                                   Long.parseLong( properties.getProperty(PROP_BYTE_COUNT) ),
+                                   Boolean.parseBoolean( properties.getProperty(PROP_COMPLETE) ) );
+        }
+        catch( NumberFormatException | NullPointerException e ) {
+            throw new IOException( "The checkpoint " + checkpointFile + " is not valid.", e );
+        }
+    }
+
+    /**
+     * Deletes the export file and its checkpoint, so the next export starts from the beginning.
+     * @throws IOException Thrown if the files cannot be deleted.
+     */
+    public void reset() throws IOException {
+        Files.deleteIfExists( checkpointFile );
+        Files.deleteIfExists( exportFile );
+    }
+
+    /**
+     * Gets the NDJSON file exported to.
+     * @return The export file.
+     */
+    public Path getExportFile() {
+        return exportFile;
+    }
+
+    /**
+     * Gets the file recording the progress of the export.
+     * @return The checkpoint file.
+     */
+    public Path getCheckpointFile() {
+        return checkpointFile;
+    }
+
+    private long writePage( EthosResponse page, FileChannel exportChannel ) throws IOException {
+        String content = page.getContent();
+        if( content == null || content.isBlank() ) {
+            return 0;
+        }
+        long recordCount = 0;
+        // The channel stays open across pages, so closing the streams of one page must not close it.
+        OutputStream channelStream = new FilterOutputStream( Channels.newOutputStream(exportChannel) ) {
+            @Override
+            public void write( byte[] bytes, int offset, int length ) throws IOException {
+                out.write( bytes, offset, length );
+            }
+
+            @Override
+            public void close() throws IOException {
+                flush();
+            }
+        };
+        OutputStream pageStream = compressed ? new GZIPOutputStream( channelStream, 64 * 1024 ) : channelStream;
+        try( OutputStream outputStream = new BufferedOutputStream(pageStream, 64 * 1024);
+             JsonParser pageParser = jsonFactory.createParser(content);
+             JsonGenerator recordGenerator = jsonFactory.createGenerator(outputStream) ) {
+            if( pageParser.nextToken() != JsonToken.START_ARRAY ) {
+                throw new IOException( "Expected the page to be a JSON array of records from " + page.getRequestedUrl() );
+            }
+            recordGenerator.setRootValueSeparator( null );
+            while( pageParser.nextToken() == JsonToken.START_OBJECT ) {
+                recordGenerator.copyCurrentStructure( pageParser );
+                recordGenerator.writeRaw( '\n' );
+                recordCount++;
+            }
+        }
+        return recordCount;
+    }
+
+    private void writeCheckpoint( Checkpoint checkpoint ) throws IOException {
+        Properties properties = new Properties();
+        properties.setProperty( PROP_RESOURCE_NAME, checkpoint.resourceName );
+        properties.setProperty( PROP_VERSION, checkpoint.version );
+        properties.setProperty( PROP_OFFSET, Integer.toString(checkpoint.offset) );
+        properties.setProperty( PROP_RECORD_COUNT, Long.toString(checkpoint.recordCount) );
+        properties.setProperty( PROP_BYTE_COUNT, Long.toString(checkpoint.byteCount) );
+        properties.setProperty( PROP_COMPLETE, Boolean.toString(checkpoint.complete) );
+        Path tempFile = checkpointFile.resolveSibling( checkpointFile.getFileName() + ".tmp" );
+        try( FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING) ) {
+            properties.store( Channels.newOutputStream(tempChannel), "Export of " + exportFile.getFileName() );
+            tempChannel.force( true );
+        }
+        try {
+            Files.move( tempFile, checkpointFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+        }
+        catch( AtomicMoveNotSupportedException amnse ) {
+            Files.move( tempFile, checkpointFile, StandardCopyOption.REPLACE_EXISTING );
+        }
+    }
+
+    private static Path checkpointFileFor( Path exportFile ) {
+        if( exportFile == null ) {
+            throw new IllegalArgumentException( "The exportFile is required." );
+        }
+        return exportFile.resolveSibling( exportFile.getFileName() + CHECKPOINT_SUFFIX );
+    }
+
+}
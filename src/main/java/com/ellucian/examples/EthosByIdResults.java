@@ -0,0 +1,114 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import org.apache.http.client.HttpResponseException;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * The results of getting a batch of records by id with the EthosParallelByIdFetcher.  Every distinct id requested has
+ * either a result or an error, so one failed id does not fail the whole batch.  Both maps are in the order the ids
+ * were first given.
+ * @param <T> The type of each result, such as an EthosResponse or a JavaBean.
+ */
+public class EthosByIdResults<T> {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private final Map<String, T> resultMap;
+    private final Map<String, IOException> errorMap;
+
+    /**
+     * Creates the results of a batch.
+     * @param resultMap The result of each id that succeeded.
+     * @param errorMap The error of each id that failed.
+     */
+    public EthosByIdResults( Map<String, T> resultMap, Map<String, IOException> errorMap ) {
+        this.resultMap = Collections.unmodifiableMap( resultMap );
+        this.errorMap = Collections.unmodifiableMap( errorMap );
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the result of each id that succeeded.
+     * @return An unmodifiable map of id to result.
+     */
+    public Map<String, T> getResults() {
+        return resultMap;
+    }
+
+    /**
+     * Gets the error of each id that failed.
+     * @return An unmodifiable map of id to error.
+     */
+    public Map<String, IOException> getErrors() {
+        return errorMap;
+    }
+
+    /**
+     * Gets the result for the given id.
+     * @param id The id.
+     * @return The result, or null if the id failed or was not requested.
+     */
+    public T get( String id ) {
+        return resultMap.get( id );
+    }
+
+    /**
+     * Gets the error for the given id.
+     * @param id The id.
+     * @return The error, or null if the id succeeded or was not requested.
+     */
+    public IOException getError( String id ) {
+        return errorMap.get( id );
+    }
+
+    /**
+     * Gets the ids that failed because no record exists for them, as a record that was deleted after the change
+     * notification naming it was published.
+     * @return The ids that returned a 404.
+     */
+    public List<String> getNotFoundIds() {
+        List<String> notFoundIdList = new ArrayList<>();
+        for( Map.Entry<String, IOException> error : errorMap.entrySet() ) {
+            if( error.getValue() instanceof HttpResponseException && ((HttpResponseException) error.getValue()).getStatusCode() == 404 ) {
+                notFoundIdList.add( error.getKey() );
+            }
+        }
+        return notFoundIdList;
+    }
+
+    /**
+     * Checks whether every id succeeded.
+     * @return True if there are no errors, otherwise false.
+     */
+    public boolean isAllSuccessful() {
+        return errorMap.isEmpty();
+    }
+
+    /**
+     * Gets the number of distinct ids requested.
+     * @return The number of results and errors together.
+     */
+    public int size() {
+        return resultMap.size() + errorMap.size();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosByIdResults[results=%s, errors=%s]", resultMap.size(), errorMap.size() );
+    }
+
+}
@@ -8,6 +8,7 @@ package com.ellucian.examples;
 
 import com.ellucian.ethos.integration.client.EthosClientBuilder;
 import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.client.messages.EthosMessagesClient;
 import com.ellucian.ethos.integration.service.EthosChangeNotificationService;
 
 import java.io.IOException;
@@ -45,6 +46,7 @@ public class EthosChangeNotificationServiceExample {
         EthosChangeNotificationServiceExample ethosChangeNotificationServiceExample = new EthosChangeNotificationServiceExample( apiKey );
         ethosChangeNotificationServiceExample.getNotificationsWithoutOverridesExample();
         ethosChangeNotificationServiceExample.getNotificationsWithOverridesExample();
+        ethosChangeNotificationServiceExample.getNotificationsWithBacklogAwareLimitExample();
     }
 
     /**
@@ -105,4 +107,34 @@ public class EthosChangeNotificationServiceExample {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * This example shows how to retrieve change notifications with a limit that follows the depth of the message queue,
+     * instead of a fixed changeNotificationLimit.  Large batches are requested while there is a backlog, and small ones
+     * once it has been drained.
+     */
+    public void getNotificationsWithBacklogAwareLimitExample() {
+        System.out.println( "******* getNotificationsWithBacklogAwareLimitExample() *******" );
+        // Build an EthosClientBuilder specifying an API key with timeout values.
+        EthosClientBuilder ethosClientBuilder = new EthosClientBuilder(apiKey)
+                                                .withConnectionTimeout(30)
+                                                .withConnectionRequestTimeout(30)
+                                                .withSocketTimeout(30);
+        EthosChangeNotificationService ethosChangeNotificationService = new EthosChangeNotificationService.Builder(ethosClientBuilder)
+                                                                        .build();
+        // The sizer reads the number of available messages with an EthosMessagesClient for the same API key.
+        EthosMessagesClient ethosMessagesClient = ethosClientBuilder.buildEthosMessagesClient();
+        EthosBacklogBatchSizer batchSizer = new EthosBacklogBatchSizer( ethosMessagesClient );
+        try {
+            // Keep getting change notifications until the queue has been drained.
+            List<ChangeNotification> changeNotificationList;
+            do {
+                changeNotificationList = batchSizer.getChangeNotifications( ethosChangeNotificationService );
+                System.out.println( "CHANGE NOTIFICATION LIST LENGTH: " + changeNotificationList.size() + ", " + batchSizer );
+            } while( !changeNotificationList.isEmpty() );
+        }
+        catch( IOException ioe ) {
+            ioe.printStackTrace();
+        }
+    }
+
+}
@@ -9,6 +9,10 @@ import com.ellucian.ethos.integration.notification.EthosChangeNotificationListPo
 import com.ellucian.ethos.integration.notification.EthosChangeNotificationPollService;
 import com.ellucian.ethos.integration.service.EthosChangeNotificationService;
 
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
 /**
  * This is an example class that shows how to retrieve change notifications in a more automated way.
  * A custom subscriber class can be added to the EthosChangeNotificationPollService so that messages can be retrieved
@@ -38,6 +42,9 @@ public class EthosChangeNotificationSubscriberExample {
         EthosChangeNotificationSubscriberExample subscriberExample = new EthosChangeNotificationSubscriberExample( apiKey );
         subscriberExample.subscribeToChangeNotifications();
         subscriberExample.subscribeToChangeNotificationLists();
+        subscriberExample.subscribeResponseCacheToChangeNotifications();
+        subscriberExample.subscribeWithCheckpoints();
+        subscriberExample.subscribeWithAdaptivePolling();
     }
 
     /**
@@ -106,4 +113,102 @@ public class EthosChangeNotificationSubscriberExample {
         }
     }
 
-}
\ No newline at end of file
+    /**
+     * This example keeps an EthosResponseCache up to date from change notifications.  An EthosResponseCacheInvalidator
+     * is subscribed to an EthosChangeNotificationPollService, and replaces or invalidates the cached responses of each
+     * record named by a change notification as it arrives.  This allows the cache to use a TTL of an hour instead of
+     * minutes while still serving near real-time data.
+     */
+    public void subscribeResponseCacheToChangeNotifications() {
+        int numNotifications = 3;
+        long pollingIntervalSeconds = 5;
+        // Build a response cache with a long TTL, relying on change notifications to keep it current.
+        EthosResponseCache ethosResponseCache = new EthosResponseCache( 60 * 60_000, EthosResponseCache.DEFAULT_MAX_ENTRIES );
+        // Build an EthosChangeNotificationService using an API key.
+        EthosChangeNotificationService cnService = new EthosChangeNotificationService.Builder(apiKey)
+                                                   .build();
+        // Build an EthosChangeNotificationPollService using the cnService.
+        EthosChangeNotificationPollService ethosChangeNotificationPollService = new EthosChangeNotificationPollService( cnService, pollingIntervalSeconds );
+        // Subscribe the invalidator for the cache to the poll service.
+        EthosResponseCacheInvalidator cacheInvalidator = new EthosResponseCacheInvalidator( ethosResponseCache, numNotifications );
+        ethosChangeNotificationPollService.subscribe( cacheInvalidator );
+        try {
+            // Sleeping to simulate time taken to do other stuff, reading records through the cache...
+            System.out.println( "Waiting 5 seconds to simulate other processing while change notifications update the cache.");
+            Thread.sleep(5000);
+        }
+        catch( InterruptedException ie ) {
+            ie.printStackTrace();
+        }
+        System.out.println( cacheInvalidator );
+        System.out.println( ethosResponseCache );
+        // When ready, cancel the subscription to stop receiving notifications.
+        if( cacheInvalidator.isSubscriptionRunning() ) {
+            cacheInvalidator.cancelSubscription();
+        }
+    }
+
+    /**
+     * This example wraps the custom application subscriber in an EthosCheckpointingSubscriber, which saves the ID of
+     * each change notification to an EthosFileCheckpointStore once the custom subscriber has handled it.  The poll
+     * service still resumes wherever the message queue left off, so the store records how far the last run got rather
+     * than deciding where the next one starts.
+     */
+    public void subscribeWithCheckpoints() {
+        int numNotifications = 3;
+        long pollingIntervalSeconds = 5;
+        Path checkpointFile = Paths.get( System.getProperty("java.io.tmpdir"), "ethos-checkpoints.log" );
+        // Build an EthosChangeNotificationService using an API key.
+        EthosChangeNotificationService cnService = new EthosChangeNotificationService.Builder(apiKey)
+                                                   .build();
+        // Build an EthosChangeNotificationPollService using the cnService.
+        EthosChangeNotificationPollService ethosChangeNotificationPollService = new EthosChangeNotificationPollService( cnService, pollingIntervalSeconds );
+        try( EthosFileCheckpointStore checkpointStore = new EthosFileCheckpointStore(checkpointFile) ) {
+            // Wrap your custom application subscriber, and subscribe the wrapper to the poll service.
+            EthosCheckpointingSubscriber checkpointingSubscriber = new EthosCheckpointingSubscriber( new MyChangeNotificationSubscriber(), checkpointStore,
+                                                                                                    apiKey, numNotifications );
+            System.out.println( "Last processed ID of the previous run: " + checkpointingSubscriber.getLastProcessedId() );
+            ethosChangeNotificationPollService.subscribe( checkpointingSubscriber );
+            // Sleeping to simulate time taken to do other stuff...
+            System.out.println( "Waiting 5 seconds to simulate other processing while change notifications are retrieved.");
+            Thread.sleep(5000);
+            // When ready, cancel the subscription through the wrapper to stop receiving notifications.
+            if( checkpointingSubscriber.isSubscriptionRunning() ) {
+                checkpointingSubscriber.cancelSubscription();
+            }
+            System.out.println( "Last processed ID: " + checkpointingSubscriber.getLastProcessedId() + ", skipped: " + checkpointingSubscriber.getSkippedCount() );
+        }
+        catch( IOException | InterruptedException e ) {
+            e.printStackTrace();
+        }
+    }
+
+    /**
+     * This example polls for change notifications with an EthosAdaptiveChangeNotificationPoller instead of an
+     * EthosChangeNotificationPollService.  The poller asks again immediately while batches come back full, and waits
+     * longer after each empty poll, up to the maximum interval.
+     */
+    public void subscribeWithAdaptivePolling() {
+        // Build an EthosChangeNotificationService using an API key.
+        EthosChangeNotificationService cnService = new EthosChangeNotificationService.Builder(apiKey)
+                                                   .build();
+        // Build the poller with your custom application subscriber, waiting between 0.5 and 30 seconds while the queue is idle.
+        EthosAdaptiveChangeNotificationPoller poller = new EthosAdaptiveChangeNotificationPoller.Builder( cnService, new MyChangeNotificationSubscriber() )
+                                                       .withBatchSize( 20 )
+                                                       .withIntervalMillis( 500, 30_000 )
+                                                       .build();
+        poller.start();
+        try {
+            // Sleeping to simulate time taken to do other stuff...
+            System.out.println( "Waiting 5 seconds to simulate other processing while change notifications are retrieved.");
+            Thread.sleep(5000);
+        }
+        catch( InterruptedException ie ) {
+            ie.printStackTrace();
+        }
+        System.out.println( "Current polling interval: " + poller.getCurrentIntervalMillis() + " ms, " + poller );
+        // When ready, close the poller to stop receiving notifications.
+        poller.close();
+    }
+
+}
@@ -0,0 +1,88 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Stores the ID of the last change notification successfully processed for each API key, so a consumer that restarts
+ * can consume from where it left off rather than from the current position of the queue.  The
+ * EthosPrefetchingMessageConsumer and EthosDeltaSync read their starting point from a store and save their progress to
+ * it.  The EthosCheckpointingSubscriber only saves its progress, since the poll services it subscribes to cannot be
+ * started from a message ID.
+ * <p>
+ * API keys are secrets, so stores should never keep them as given.  Implementations key their entries by keyFor(),
+ * a SHA-256 hash of the API key.
+ */
+public interface EthosCheckpointStore {
+
+    /**
+     * Gets the ID of the last change notification processed for the given API key.
+     * @param apiKey The API key of the message queue.
+     * @return The last processed ID, or 0 if none has been saved.
+     * @throws IOException Thrown if the store cannot be read.
+     */
+    long getLastProcessedId( String apiKey ) throws IOException;
+
+    /**
+     * Saves the ID of the last change notification processed for the given API key.  The save must be durable when
+     * this returns.
+     * @param apiKey The API key of the message queue.
+     * @param lastProcessedId The last processed ID.
+     * @throws IOException Thrown if the store cannot be written.
+     */
+    void saveLastProcessedId( String apiKey, long lastProcessedId ) throws IOException;
+
+    /**
+     * Builds a store that only keeps the checkpoints in memory, for tests and for consumers that do not need to resume
+     * after a restart.
+     * @return An in-memory EthosCheckpointStore.
+     */
+    static EthosCheckpointStore inMemory() {
+        Map<String, Long> checkpointMap = new ConcurrentHashMap<>();
+        return new EthosCheckpointStore() {
+            @Override
+            public long getLastProcessedId( String apiKey ) {
+                return checkpointMap.getOrDefault( keyFor(apiKey), 0L );
+            }
+
+            @Override
+            public void saveLastProcessedId( String apiKey, long lastProcessedId ) {
+                checkpointMap.put( keyFor(apiKey), lastProcessedId );
+            }
+        };
+    }
+
+    /**
+     * Gets the key a checkpoint is stored under for the given API key: the hex SHA-256 hash of the API key, so the API
+     * key itself is never written.
+     * @param apiKey The API key.
+     * @return The key of the checkpoint.
+     */
+    static String keyFor( String apiKey ) {
+        if( apiKey == null || apiKey.isBlank() ) {
+            throw new IllegalArgumentException( "The apiKey is required." );
+        }
+        try {
+            byte[] hash = MessageDigest.getInstance( "SHA-256" ).digest( apiKey.getBytes(StandardCharsets.UTF_8) );
+            StringBuilder key = new StringBuilder( hash.length * 2 );
+            for( byte b : hash ) {
+                key.append( Character.forDigit((b >> 4) & 0xf, 16) ).append( Character.forDigit(b & 0xf, 16) );
+            }
+            return key.toString();
+        }
+        catch( NoSuchAlgorithmException nsae ) {
+            // Every Java platform is required to support SHA-256.
+            throw new IllegalStateException( nsae );
+        }
+    }
+
+}
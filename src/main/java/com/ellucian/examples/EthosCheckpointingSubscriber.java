@@ -0,0 +1,138 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.notification.AbstractEthosChangeNotificationSubscriber;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A change notification subscriber for the poll services that records progress in an EthosCheckpointStore.  Each
+ * change notification is handed to the given subscriber, and once that returns without an exception its message ID is
+ * saved as the last processed ID of the API key.  A notification with an ID no greater than the last one saved is
+ * skipped rather than handed over again.
+ * <p>
+ * This only records progress; it does not make a poll service resume from the store after a restart.  The poll
+ * services consume without a last processed ID, so the message queue decides where they resume, and whatever it has
+ * already handed out is not delivered again whatever the store holds.  The skip therefore only fires if the queue
+ * redelivers a message.  To resume from the store, consume from the saved ID with the EthosPrefetchingMessageConsumer
+ * or EthosDeltaSync instead, or read getLastProcessedId() after a restart to find out how far the last run got.
+ * <p>
+ * Subscribe this class to the poll service in place of the given subscriber.  The given subscriber is only used to
+ * handle the notifications and errors; cancel the subscription through this class.
+ */
+public class EthosCheckpointingSubscriber extends AbstractEthosChangeNotificationSubscriber {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private final AbstractEthosChangeNotificationSubscriber subscriber;
+    private final EthosCheckpointStore checkpointStore;
+    private final String apiKey;
+    private volatile long lastProcessedId;
+    private final AtomicLong skippedCount = new AtomicLong();
+
+    /**
+     * Creates a subscriber that checkpoints the notifications handled by the given subscriber, receiving the default
+     * number of notifications at once.
+     * @param subscriber The subscriber handling each change notification.
+     * @param checkpointStore The store of the last processed ID.
+     * @param apiKey The API key of the message queue.
+     * @throws IOException Thrown if the last processed ID cannot be read from the store.
+     */
+    public EthosCheckpointingSubscriber( AbstractEthosChangeNotificationSubscriber subscriber, EthosCheckpointStore checkpointStore,
+                                         String apiKey ) throws IOException {
+        super();
+        if( subscriber == null || checkpointStore == null || apiKey == null ) {
+            throw new IllegalArgumentException( "The subscriber, checkpointStore and apiKey are required." );
+        }
+        this.subscriber = subscriber;
+        this.checkpointStore = checkpointStore;
+        this.apiKey = apiKey;
+        this.lastProcessedId = checkpointStore.getLastProcessedId( apiKey );
+    }
+
+    /**
+     * Creates a subscriber that checkpoints the notifications handled by the given subscriber.
+     * @param subscriber The subscriber handling each change notification.
+     * @param checkpointStore The store of the last processed ID.
+     * @param apiKey The API key of the message queue.
+     * @param numNotifications The number of notifications to retrieve at once.
+     * @throws IOException Thrown if the last processed ID cannot be read from the store.
+     */
+    public EthosCheckpointingSubscriber( AbstractEthosChangeNotificationSubscriber subscriber, EthosCheckpointStore checkpointStore,
+                                         String apiKey, int numNotifications ) throws IOException {
+        super( numNotifications );
+        if( subscriber == null || checkpointStore == null || apiKey == null ) {
+            throw new IllegalArgumentException( "The subscriber, checkpointStore and apiKey are required." );
+        }
+        this.subscriber = subscriber;
+        this.checkpointStore = checkpointStore;
+        this.apiKey = apiKey;
+        this.lastProcessedId = checkpointStore.getLastProcessedId( apiKey );
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Hands the change notification to the subscriber unless it has already been processed, and then saves its ID as
+     * the last processed ID.
+     * @param changeNotification An individual change notification.
+     */
+    @Override
+    public void onChangeNotification( ChangeNotification changeNotification ) {
+        long messageId;
+        try {
+            messageId = Long.parseLong( changeNotification.getId() );
+        }
+        catch( NumberFormatException nfe ) {
+            subscriber.onChangeNotificationError( new IOException("The change notification has an invalid message ID: " + changeNotification.getId(), nfe) );
+            return;
+        }
+        if( messageId <= lastProcessedId ) {
+            skippedCount.incrementAndGet();
+            return;
+        }
+        subscriber.onChangeNotification( changeNotification );
+        try {
+            checkpointStore.saveLastProcessedId( apiKey, messageId );
+            lastProcessedId = messageId;
+        }
+        catch( IOException ioe ) {
+            subscriber.onChangeNotificationError( ioe );
+        }
+    }
+
+    /**
+     * Hands the error to the subscriber.
+     * @param throwable The exception thrown when something bad happened while receiving change notifications.
+     */
+    @Override
+    public void onChangeNotificationError( Throwable throwable ) {
+        subscriber.onChangeNotificationError( throwable );
+    }
+
+    /**
+     * Gets the ID of the last change notification processed.
+     * @return The last processed ID.
+     */
+    public long getLastProcessedId() {
+        return lastProcessedId;
+    }
+
+    /**
+     * Gets the number of change notifications skipped because they had already been processed.
+     * @return The skipped count.
+     */
+    public long getSkippedCount() {
+        return skippedCount.get();
+    }
+
+}
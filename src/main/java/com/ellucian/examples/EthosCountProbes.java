@@ -0,0 +1,154 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.ethos.integration.client.proxy.filter.CriteriaFilter;
+import com.ellucian.ethos.integration.client.proxy.filter.FilterMap;
+import com.ellucian.ethos.integration.client.proxy.filter.NamedQueryFilter;
+
+import java.io.IOException;
+
+/**
+ * Lightweight alternatives to the getTotalCount() methods of the EthosProxyClient and EthosFilterQueryClient.  Those
+ * request a full default page of the resource only to read the 'x-total-count' header from it.  The probes here
+ * request a single row instead, with limit=1, and read the count from the headers without ever deserializing the
+ * response body, so a count check costs little more than the round trip.
+ * <p>
+ * Criteria filters, named query filters and filter maps all become query string parameters of a GET request, so they
+ * are probed the same way.  QAPI requests are POSTs whose paging the SDK does not expose, so their counts still come
+ * from the EthosFilterQueryClient.
+ * <p>
+ * The headers of every probe are also recorded in the EthosResourceMetadataCache of the client, so paging that
+ * follows a count check can use the max page size returned with it.
+ */
+public final class EthosCountProbes {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The page size of a count probe.  A limit of 0 would return the default page size, so one row is the least that
+     * can be asked for.
+     */
+    public static final int PROBE_PAGE_SIZE = 1;
+
+    private EthosCountProbes() {
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the total count of the given resource and version.
+     * @param ethosProxyClient The EthosProxyClient used to make the request.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the request fails.
+     */
+    public static int getTotalCount( EthosProxyClient ethosProxyClient, String resourceName, String version ) throws IOException {
+        return probe( ethosProxyClient, resourceName, version, null,
+                      EthosPageFetcher.forResource(ethosProxyClient, resourceName, version) );
+    }
+
+    /**
+     * Gets the total count of the given resource and version matching the given criteria filter.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilter The criteria filter.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the request fails.
+     */
+    public static int getTotalCount( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                     CriteriaFilter criteriaFilter ) throws IOException {
+        if( criteriaFilter == null ) {
+            throw new IllegalArgumentException( "The criteriaFilter is required." );
+        }
+        return getTotalCount( ethosFilterQueryClient, resourceName, version, criteriaFilter.toString() );
+    }
+
+    /**
+     * Gets the total count of the given resource and version matching the given named query filter.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param namedQueryFilter The named query filter.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the request fails.
+     */
+    public static int getTotalCount( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                     NamedQueryFilter namedQueryFilter ) throws IOException {
+        if( namedQueryFilter == null ) {
+            throw new IllegalArgumentException( "The namedQueryFilter is required." );
+        }
+        return getTotalCount( ethosFilterQueryClient, resourceName, version, namedQueryFilter.toString() );
+    }
+
+    /**
+     * Gets the total count of the given resource and version matching the given filter map.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param filterMap The filter map.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the request fails.
+     */
+    public static int getTotalCount( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                     FilterMap filterMap ) throws IOException {
+        if( filterMap == null ) {
+            throw new IllegalArgumentException( "The filterMap is required." );
+        }
+        return getTotalCount( ethosFilterQueryClient, resourceName, version, filterMap.toString() );
+    }
+
+    /**
+     * Gets the total count of the given resource and version matching the given filter query string, such as the
+     * toString() of a CriteriaFilter, NamedQueryFilter or FilterMap.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param filterStr The filter query string, for example "?criteria={...}".
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the request fails.
+     */
+    public static int getTotalCount( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                     String filterStr ) throws IOException {
+        return probe( ethosFilterQueryClient, resourceName, version, filterStr,
+                      EthosPageFetcher.forCriteriaFilter(ethosFilterQueryClient, resourceName, version, filterStr) );
+    }
+
+    /**
+     * Gets the total count of the given resource matching the given QAPI request body.  This is left to the
+     * EthosFilterQueryClient, as the paging of QAPI requests is not exposed by the SDK.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request.
+     * @param resourceName The name of the resource.
+     * @param qapiRequestBody The QAPI request body.
+     * @param <T> The type of the QAPI request body.
+     * @return The total count.
+     * @throws IOException Thrown if the request fails.
+     */
+    public static <T> int getTotalCountWithQAPI( EthosFilterQueryClient ethosFilterQueryClient, String resourceName,
+                                                 T qapiRequestBody ) throws IOException {
+        return ethosFilterQueryClient.getTotalCount( resourceName, qapiRequestBody );
+    }
+
+    private static int probe( EthosProxyClient ethosProxyClient, String resourceName, String version, String filterStr,
+                              EthosPageFetcher pageFetcher ) throws IOException {
+        if( ethosProxyClient == null || resourceName == null ) {
+            throw new IllegalArgumentException( "The client and resourceName are required." );
+        }
+        EthosResponse page = pageFetcher.fetchPage( 0, PROBE_PAGE_SIZE );
+        EthosResourceMetadataCache.forClient( ethosProxyClient ).record( resourceName, version, filterStr, page, 0, PROBE_PAGE_SIZE );
+        return EthosPageHeaders.getTotalCount( page );
+    }
+
+}
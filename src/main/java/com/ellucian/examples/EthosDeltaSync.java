@@ -0,0 +1,493 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.client.messages.EthosMessagesClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Keeps a local replica of one or more resources current at a cost proportional to the number of changes rather than
+ * the size of the resources.  Each resource is bulk loaded once, and from then on only the change notifications of the
+ * message queue are applied to the replica.
+ * <p>
+ * Before a resource is loaded the queue is drained, applying the notifications of resources already loaded and
+ * skipping the rest, and the ID of the last message is kept as the high-water mark.  The notifications published
+ * while the load runs are left in the queue and applied after it from that mark.  Some of them may already be
+ * reflected in the loaded records, but applying a change is idempotent, so the replica converges either way.
+ * <p>
+ * A notification carrying the full representation of the record, in the version being replicated, is applied as is.
+ * Deleted records are deleted.  Other records are fetched by id, concurrently, and deleted if no longer found.  Within
+ * a batch only the last notification of each record is applied.  The high-water mark only moves past a batch once all
+ * of it has been applied, so a failure leads to notifications being applied again rather than lost.
+ * <p>
+ * Given an EthosCheckpointStore, the high-water mark is read from the store on the first sync and saved to it after
+ * every batch, so a restart carries on from the last batch applied.
+ */
+public class EthosDeltaSync {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default number of change notifications requested at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 20;
+
+    private static final String OPERATION_DELETED = EthosResponseCacheInvalidator.OPERATION_DELETED;
+    private static final String CONTENT_TYPE_RESOURCE_REPRESENTATION = EthosResponseCacheInvalidator.CONTENT_TYPE_RESOURCE_REPRESENTATION;
+
+    private final EthosProxyClient ethosProxyClient;
+    private final EthosMessagesClient ethosMessagesClient;
+    private final ReplicaStore replicaStore;
+    private final EthosCheckpointStore checkpointStore;
+    private final String apiKey;
+    private boolean checkpointRead;
+    private final Map<String, SyncedResource> resourceMap;
+    private final int batchSize;
+    private final int pageSize;
+    private final EthosParallelByIdFetcher byIdFetcher;
+    private volatile long lastProcessedId;
+    private final AtomicLong loadedRecordCount = new AtomicLong();
+    private final AtomicLong notificationCount = new AtomicLong();
+    private final AtomicLong upsertCount = new AtomicLong();
+    private final AtomicLong deleteCount = new AtomicLong();
+    private final AtomicLong fetchedByIdCount = new AtomicLong();
+
+    /**
+     * The local replica the changes are applied to, such as a database table per resource.  Every method must be
+     * idempotent, as a change may be applied more than once.
+     */
+    public interface ReplicaStore {
+
+        /**
+         * Called before a resource is bulk loaded, for example to clear any records left from an earlier load.
+         * @param resourceName The name of the resource.
+         * @throws IOException Thrown if the replica cannot be prepared.
+         */
+        default void beginLoad( String resourceName ) throws IOException {
+        }
+
+        /**
+         * Called once every record of a resource has been bulk loaded.
+         * @param resourceName The name of the resource.
+         * @param recordCount The number of records loaded.
+         * @throws IOException Thrown if the load cannot be completed.
+         */
+        default void endLoad( String resourceName, long recordCount ) throws IOException {
+        }
+
+        /**
+         * Inserts or replaces a record.
+         * @param resourceName The name of the resource.
+         * @param id The id of the record.
+         * @param record The record.
+         * @throws IOException Thrown if the record cannot be stored.
+         */
+        void upsert( String resourceName, String id, JsonNode record ) throws IOException;
+
+        /**
+         * Deletes a record if it exists.
+         * @param resourceName The name of the resource.
+         * @param id The id of the record.
+         * @throws IOException Thrown if the record cannot be deleted.
+         */
+        void delete( String resourceName, String id ) throws IOException;
+    }
+
+    /**
+     * A resource being replicated.
+     */
+    private static final class SyncedResource {
+        private final String resourceName;
+        private final String version;
+        private volatile boolean loaded;
+
+        private SyncedResource( String resourceName, String version, boolean loaded ) {
+            this.resourceName = resourceName;
+            this.version = version;
+            this.loaded = loaded;
+        }
+    }
+
+    private EthosDeltaSync( Builder builder ) {
+        this.ethosProxyClient = builder.ethosProxyClient;
+        this.ethosMessagesClient = builder.ethosMessagesClient;
+        this.replicaStore = builder.replicaStore;
+        this.checkpointStore = builder.checkpointStore;
+        this.apiKey = builder.apiKey;
+        this.resourceMap = new LinkedHashMap<>( builder.resourceMap );
+        this.batchSize = builder.batchSize;
+        this.pageSize = builder.pageSize;
+        this.byIdFetcher = new EthosParallelByIdFetcher( builder.parallelism );
+        this.lastProcessedId = builder.lastProcessedId;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Brings the replica up to date.  Any resource not loaded yet is bulk loaded first, and then every change
+     * notification available is applied.  Call this periodically, for example from a ScheduledExecutorService.
+     * @return The number of change notifications applied.
+     * @throws IOException Thrown if a request fails or the replica cannot be updated.  The replica is left consistent
+     * up to the last processed ID, and the next sync carries on from there.
+     */
+    public synchronized long sync() throws IOException {
+        if( checkpointStore != null && !checkpointRead ) {
+            lastProcessedId = Math.max( lastProcessedId, checkpointStore.getLastProcessedId(apiKey) );
+            checkpointRead = true;
+        }
+        long applied = 0;
+        List<SyncedResource> unloadedList = new ArrayList<>();
+        for( SyncedResource syncedResource : resourceMap.values() ) {
+            if( !syncedResource.loaded ) {
+                unloadedList.add( syncedResource );
+            }
+        }
+        if( !unloadedList.isEmpty() ) {
+            // Drain the notifications published before the load, as the loaded records are newer than any of them.
+            applied += applyAvailableNotifications();
+            for( SyncedResource syncedResource : unloadedList ) {
+                load( syncedResource );
+            }
+        }
+        applied += applyAvailableNotifications();
+        return applied;
+    }
+
+    /**
+     * Gets the ID of the last change notification applied, the high-water mark from which the next sync consumes.
+     * Persist this along with the replica to resume from it with Builder.withLastProcessedId().
+     * @return The last processed ID, or 0 if none has been processed.
+     */
+    public long getLastProcessedId() {
+        return lastProcessedId;
+    }
+
+    /**
+     * Checks whether the given resource has been bulk loaded.
+     * @param resourceName The name of the resource.
+     * @return True if the resource is loaded, otherwise false.
+     */
+    public boolean isLoaded( String resourceName ) {
+        SyncedResource syncedResource = resourceMap.get( resourceName );
+        return syncedResource != null && syncedResource.loaded;
+    }
+
+    /**
+     * Gets the number of records bulk loaded.
+     * @return The loaded record count.
+     */
+    public long getLoadedRecordCount() {
+        return loadedRecordCount.get();
+    }
+
+    /**
+     * Gets the number of change notifications consumed, including those skipped or superseded in their batch.
+     * @return The notification count.
+     */
+    public long getNotificationCount() {
+        return notificationCount.get();
+    }
+
+    /**
+     * Gets the number of records inserted or replaced from change notifications.
+     * @return The upsert count.
+     */
+    public long getUpsertCount() {
+        return upsertCount.get();
+    }
+
+    /**
+     * Gets the number of records deleted from change notifications.
+     * @return The delete count.
+     */
+    public long getDeleteCount() {
+        return deleteCount.get();
+    }
+
+    /**
+     * Gets the number of records fetched by id because their change notification had no usable content.
+     * @return The fetched by id count.
+     */
+    public long getFetchedByIdCount() {
+        return fetchedByIdCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosDeltaSync[lastProcessedId=%s, loadedRecords=%s, notifications=%s, upserts=%s, deletes=%s, fetchedById=%s]",
+                              getLastProcessedId(), getLoadedRecordCount(), getNotificationCount(), getUpsertCount(), getDeleteCount(),
+                              getFetchedByIdCount() );
+    }
+
+    private void load( SyncedResource syncedResource ) throws IOException {
+        replicaStore.beginLoad( syncedResource.resourceName );
+        long recordCount = 0;
+        try( Stream<JsonNode> recordStream = EthosRecordStreams.streamAllRecordsAsJsonNodes(ethosProxyClient, syncedResource.resourceName,
+                                                                                             syncedResource.version, pageSize) ) {
+            Iterator<JsonNode> recordIterator = recordStream.iterator();
+            while( recordIterator.hasNext() ) {
+                JsonNode record = recordIterator.next();
+                String id = record.path( "id" ).asText( null );
+                if( id != null ) {
+                    replicaStore.upsert( syncedResource.resourceName, id, record );
+                    recordCount++;
+                }
+            }
+        }
+        catch( UncheckedIOException uioe ) {
+            throw uioe.getCause();
+        }
+        replicaStore.endLoad( syncedResource.resourceName, recordCount );
+        loadedRecordCount.addAndGet( recordCount );
+        syncedResource.loaded = true;
+    }
+
+    private long applyAvailableNotifications() throws IOException {
+        long applied = 0;
+        while( true ) {
+            List<ChangeNotification> notificationList = ethosMessagesClient.consume( batchSize, lastProcessedId );
+            if( notificationList == null || notificationList.isEmpty() ) {
+                return applied;
+            }
+            applied += applyBatch( notificationList );
+            if( notificationList.size() < batchSize ) {
+                return applied;
+            }
+        }
+    }
+
+    private long applyBatch( List<ChangeNotification> notificationList ) throws IOException {
+        notificationCount.addAndGet( notificationList.size() );
+        // Only the last change of each record in the batch matters.
+        Map<String, ChangeNotification> lastChangeMap = new LinkedHashMap<>();
+        long batchLastId = lastProcessedId;
+        for( ChangeNotification changeNotification : notificationList ) {
+            batchLastId = Math.max( batchLastId, parseMessageId(changeNotification) );
+            if( changeNotification.getResource() == null || changeNotification.getResource().getId() == null ) {
+                continue;
+            }
+            SyncedResource syncedResource = resourceMap.get( changeNotification.getResource().getName() );
+            if( syncedResource != null && syncedResource.loaded ) {
+                String key = syncedResource.resourceName + "|" + changeNotification.getResource().getId();
+                lastChangeMap.remove( key );
+                lastChangeMap.put( key, changeNotification );
+            }
+        }
+        Map<SyncedResource, List<String>> fetchIdMap = new LinkedHashMap<>();
+        for( ChangeNotification changeNotification : lastChangeMap.values() ) {
+            SyncedResource syncedResource = resourceMap.get( changeNotification.getResource().getName() );
+            String id = changeNotification.getResource().getId();
+            JsonNode content = changeNotification.getContent();
+            if( OPERATION_DELETED.equals(changeNotification.getOperation()) ) {
+                replicaStore.delete( syncedResource.resourceName, id );
+                deleteCount.incrementAndGet();
+            }
+            else if( CONTENT_TYPE_RESOURCE_REPRESENTATION.equals(changeNotification.getContentType()) && content != null
+                     && content.isObject() && isReplicatedVersion(syncedResource, changeNotification.getResource().getVersion()) ) {
+                replicaStore.upsert( syncedResource.resourceName, id, content );
+                upsertCount.incrementAndGet();
+            }
+            else {
+                fetchIdMap.computeIfAbsent( syncedResource, key -> new ArrayList<>() ).add( id );
+            }
+        }
+        for( Map.Entry<SyncedResource, List<String>> fetchIds : fetchIdMap.entrySet() ) {
+            applyFetched( fetchIds.getKey(), fetchIds.getValue() );
+        }
+        if( checkpointStore != null ) {
+            checkpointStore.saveLastProcessedId( apiKey, batchLastId );
+        }
+        lastProcessedId = batchLastId;
+        return lastChangeMap.size();
+    }
+
+    private void applyFetched( SyncedResource syncedResource, List<String> idList ) throws IOException {
+        EthosByIdResults<EthosResponse> results = byIdFetcher.getByIds(
+                idList, EthosParallelByIdFetcher.byIdLoader(ethosProxyClient, syncedResource.resourceName, syncedResource.version) );
+        fetchedByIdCount.addAndGet( results.size() );
+        List<String> notFoundIdList = results.getNotFoundIds();
+        for( String id : idList ) {
+            EthosResponse ethosResponse = results.get( id );
+            if( ethosResponse != null ) {
+                replicaStore.upsert( syncedResource.resourceName, id, EthosJsonSupport.readTree(ethosResponse) );
+                upsertCount.incrementAndGet();
+            }
+            else if( notFoundIdList.contains(id) ) {
+                replicaStore.delete( syncedResource.resourceName, id );
+                deleteCount.incrementAndGet();
+            }
+            else {
+                throw results.getError( id );
+            }
+        }
+    }
+
+    private static boolean isReplicatedVersion( SyncedResource syncedResource, String version ) {
+        // Without a version to compare, the content cannot be assumed to match the records that were loaded.
+        return syncedResource.version != null && syncedResource.version.equals( version );
+    }
+
+    private static long parseMessageId( ChangeNotification changeNotification ) throws IOException {
+        try {
+            return Long.parseLong( changeNotification.getId() );
+        }
+        catch( NumberFormatException nfe ) {
+            throw new IOException( "The change notification has an invalid message ID: " + changeNotification.getId(), nfe );
+        }
+    }
+
+    /**
+     * Builds an EthosDeltaSync.
+     */
+    public static class Builder {
+
+        private final EthosProxyClient ethosProxyClient;
+        private final EthosMessagesClient ethosMessagesClient;
+        private final ReplicaStore replicaStore;
+        private EthosCheckpointStore checkpointStore;
+        private String apiKey;
+        private final Map<String, SyncedResource> resourceMap = new LinkedHashMap<>();
+        private int batchSize = DEFAULT_BATCH_SIZE;
+        private int pageSize;
+        private int parallelism = EthosParallelByIdFetcher.DEFAULT_PARALLELISM;
+        private long lastProcessedId;
+
+        /**
+         * Creates a Builder.
+         * @param ethosProxyClient The EthosProxyClient used to load the resources and get records by id.
+         * @param ethosMessagesClient The EthosMessagesClient used to consume the change notifications.
+         * @param replicaStore The local replica the changes are applied to.
+         */
+        public Builder( EthosProxyClient ethosProxyClient, EthosMessagesClient ethosMessagesClient, ReplicaStore replicaStore ) {
+            if( ethosProxyClient == null || ethosMessagesClient == null || replicaStore == null ) {
+                throw new IllegalArgumentException( "The ethosProxyClient, ethosMessagesClient and replicaStore are required." );
+            }
+            this.ethosProxyClient = ethosProxyClient;
+            this.ethosMessagesClient = ethosMessagesClient;
+            this.replicaStore = replicaStore;
+        }
+
+        /**
+         * Replicates the given resource and version.  It is bulk loaded on the first sync.
+         * @param resourceName The name of the resource.
+         * @param version The version of the resource, which should match the version of the change notifications for
+         * their content to be used directly, or null for the default version.
+         * @return This builder.
+         */
+        public Builder withResource( String resourceName, String version ) {
+            return withResource( resourceName, version, false );
+        }
+
+        /**
+         * Replicates the given resource and version, optionally as already loaded when resuming from a persisted last
+         * processed ID.
+         * @param resourceName The name of the resource.
+         * @param version The version of the resource, or null for the default version.
+         * @param loaded True if the replica already holds the resource, so it is not bulk loaded again.
+         * @return This builder.
+         */
+        public Builder withResource( String resourceName, String version, boolean loaded ) {
+            if( resourceName == null ) {
+                throw new IllegalArgumentException( "The resourceName is required." );
+            }
+            resourceMap.put( resourceName, new SyncedResource(resourceName, version, loaded) );
+            return this;
+        }
+
+        /**
+         * Resumes consuming after the given message ID, as returned by getLastProcessedId() before a restart.
+         * @param lastProcessedId The ID of the last change notification applied.
+         * @return This builder.
+         */
+        public Builder withLastProcessedId( long lastProcessedId ) {
+            if( lastProcessedId < 0 ) {
+                throw new IllegalArgumentException( "The lastProcessedId cannot be negative: " + lastProcessedId );
+            }
+            this.lastProcessedId = lastProcessedId;
+            return this;
+        }
+
+        /**
+         * Reads the last processed ID from the given store on the first sync, and saves it there after every batch.
+         * @param checkpointStore The store of the last processed ID.
+         * @param apiKey The API key of the message queue.
+         * @return This builder.
+         */
+        public Builder withCheckpointStore( EthosCheckpointStore checkpointStore, String apiKey ) {
+            if( checkpointStore == null || apiKey == null ) {
+                throw new IllegalArgumentException( "The checkpointStore and apiKey are required." );
+            }
+            this.checkpointStore = checkpointStore;
+            this.apiKey = apiKey;
+            return this;
+        }
+
+        /**
+         * Sets the number of change notifications requested at once.
+         * @param batchSize The batch size, which must be at least 1.
+         * @return This builder.
+         */
+        public Builder withBatchSize( int batchSize ) {
+            if( batchSize < 1 ) {
+                throw new IllegalArgumentException( "The batchSize must be at least 1: " + batchSize );
+            }
+            this.batchSize = batchSize;
+            return this;
+        }
+
+        /**
+         * Sets the page size of the bulk loads.
+         * @param pageSize The page size to request, or 0 to use the default page size of each resource.
+         * @return This builder.
+         */
+        public Builder withPageSize( int pageSize ) {
+            this.pageSize = Math.max( pageSize, 0 );
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of records fetched by id at the same time.
+         * @param parallelism The parallelism, which must be at least 1.
+         * @return This builder.
+         */
+        public Builder withParallelism( int parallelism ) {
+            if( parallelism < 1 ) {
+                throw new IllegalArgumentException( "The parallelism must be at least 1: " + parallelism );
+            }
+            this.parallelism = parallelism;
+            return this;
+        }
+
+        /**
+         * Builds the EthosDeltaSync.
+         * @return The EthosDeltaSync.
+         */
+        public EthosDeltaSync build() {
+            if( resourceMap.isEmpty() ) {
+                throw new IllegalArgumentException( "At least one resource is required." );
+            }
+            return new EthosDeltaSync( this );
+        }
+    }
+
+}
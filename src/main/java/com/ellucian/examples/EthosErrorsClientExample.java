@@ -6,7 +6,6 @@
 package com.ellucian.examples;
 
 
-import com.ellucian.ethos.integration.client.EthosClientBuilder;
 import com.ellucian.ethos.integration.client.EthosResponse;
 import com.ellucian.ethos.integration.client.EthosResponseConverter;
 import com.ellucian.ethos.integration.client.errors.ErrorFactory;
@@ -73,15 +72,12 @@ public class EthosErrorsClientExample {
     }
 
     /**
-     * Builds and returns an EthosErrorsClient using the API key and timeout values.
+     * Returns an EthosErrorsClient for the API key and timeout values.  The client is shared by all of the example
+     * methods through SharedEthosClients.
      * @return An EthosErrorClient.
      */
     private EthosErrorsClient getEthosErrorsClient() {
-        return new EthosClientBuilder(apiKey)
-                   .withConnectionTimeout(30)
-                   .withConnectionRequestTimeout(30)
-                   .withSocketTimeout(30)
-                   .buildEthosErrorsClient();
+        return SharedEthosClients.forApiKey( apiKey ).getEthosErrorsClient();
     }
 
     /**
@@ -0,0 +1,227 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * An EthosCheckpointStore backed by an append-only log file.  Each save appends one line holding the hashed API key and
+ * the last processed ID, and forces it to disk before returning, so a checkpoint that was saved survives a crash.
+ * Appending a short line is much cheaper than rewriting a file, which matters when a checkpoint is saved after every
+ * batch.
+ * <p>
+ * The latest line for each key wins.  Once the given number of lines has been appended since the last compaction, the
+ * log is compacted: the latest checkpoint of each key is written to a temporary file, forced to disk, and moved over
+ * the log.  When the log is opened, a last line left incomplete by a crash during a save is discarded.
+ */
+public class EthosFileCheckpointStore implements EthosCheckpointStore, Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default number of saves after which the log is compacted.
+     */
+    public static final int DEFAULT_COMPACTION_THRESHOLD = 1000;
+
+    private final Path logFile;
+    private final int compactionThreshold;
+    private final Map<String, Long> checkpointMap = new LinkedHashMap<>();
+    private FileChannel logChannel;
+    private int appendedLineCount;
+    private long compactionCount;
+
+    /**
+     * Opens the store using the default compaction threshold, creating the log file if it does not exist.
+     * @param logFile The log file.
+     * @throws IOException Thrown if the log file cannot be read or created.
+     */
+    public EthosFileCheckpointStore( Path logFile ) throws IOException {
+        this( logFile, DEFAULT_COMPACTION_THRESHOLD );
+    }
+
+    /**
+     * Opens the store, creating the log file if it does not exist.
+     * @param logFile The log file.
+     * @param compactionThreshold The number of saves after which the log is compacted.
+     * @throws IOException Thrown if the log file cannot be read or created.
+     */
+    public EthosFileCheckpointStore( Path logFile, int compactionThreshold ) throws IOException {
+        if( logFile == null ) {
+            throw new IllegalArgumentException( "The logFile is required." );
+        }
+        if( compactionThreshold < 1 ) {
+            throw new IllegalArgumentException( "The compactionThreshold must be at least 1: " + compactionThreshold );
+        }
+        this.logFile = logFile;
+        this.compactionThreshold = compactionThreshold;
+        this.logChannel = FileChannel.open( logFile, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE );
+        try {
+            load();
+        }
+        catch( IOException | RuntimeException e ) {
+            logChannel.close();
+            throw e;
+        }
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    @Override
+    public synchronized long getLastProcessedId( String apiKey ) throws IOException {
+        ensureOpen();
+        return checkpointMap.getOrDefault( EthosCheckpointStore.keyFor(apiKey), 0L );
+    }
+
+    @Override
+    public synchronized void saveLastProcessedId( String apiKey, long lastProcessedId ) throws IOException {
+        ensureOpen();
+        if( lastProcessedId < 0 ) {
+            throw new IllegalArgumentException( "The lastProcessedId cannot be negative: " + lastProcessedId );
+        }
+        String key = EthosCheckpointStore.keyFor( apiKey );
+        Long currentId = checkpointMap.get( key );
+        if( currentId != null && currentId == lastProcessedId ) {
+            return;
+        }
+        ByteBuffer line = ByteBuffer.wrap( toLine(key, lastProcessedId).getBytes(StandardCharsets.UTF_8) );
+        while( line.hasRemaining() ) {
+            logChannel.write( line );
+        }
+        logChannel.force( false );
+        checkpointMap.put( key, lastProcessedId );
+        if( ++appendedLineCount >= compactionThreshold ) {
+            compact();
+        }
+    }
+
+    /**
+     * Rewrites the log with only the latest checkpoint of each key.
+     * @throws IOException Thrown if the log cannot be rewritten.
+     */
+    public synchronized void compact() throws IOException {
+        ensureOpen();
+        Path tempFile = logFile.resolveSibling( logFile.getFileName() + ".tmp" );
+        StringBuilder content = new StringBuilder();
+        for( Map.Entry<String, Long> checkpoint : checkpointMap.entrySet() ) {
+            content.append( toLine(checkpoint.getKey(), checkpoint.getValue()) );
+        }
+        try( FileChannel tempChannel = FileChannel.open(tempFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                                                        StandardOpenOption.TRUNCATE_EXISTING) ) {
+            ByteBuffer contentBuffer = ByteBuffer.wrap( content.toString().getBytes(StandardCharsets.UTF_8) );
+            while( contentBuffer.hasRemaining() ) {
+                tempChannel.write( contentBuffer );
+            }
+            tempChannel.force( true );
+        }
+        logChannel.close();
+        try {
+            Files.move( tempFile, logFile, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING );
+        }
+        catch( AtomicMoveNotSupportedException amnse ) {
+            Files.move( tempFile, logFile, StandardCopyOption.REPLACE_EXISTING );
+        }
+        finally {
+            logChannel = FileChannel.open( logFile, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND );
+        }
+        appendedLineCount = 0;
+        compactionCount++;
+    }
+
+    /**
+     * Gets the number of times the log has been compacted since the store was opened.
+     * @return The compaction count.
+     */
+    public synchronized long getCompactionCount() {
+        return compactionCount;
+    }
+
+    /**
+     * Gets the log file.
+     * @return The log file.
+     */
+    public Path getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Closes the log file.  Every checkpoint saved is already on disk.
+     * @throws IOException Thrown if the log file cannot be closed.
+     */
+    @Override
+    public synchronized void close() throws IOException {
+        if( logChannel.isOpen() ) {
+            logChannel.close();
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return String.format( "EthosFileCheckpointStore[file=%s, keys=%s, linesSinceCompaction=%s, compactions=%s]",
+                              logFile, checkpointMap.size(), appendedLineCount, compactionCount );
+    }
+
+    private void load() throws IOException {
+        long size = logChannel.size();
+        if( size > Integer.MAX_VALUE ) {
+            throw new IOException( "The checkpoint log " + logFile + " is too large to load." );
+        }
+        ByteBuffer contentBuffer = ByteBuffer.allocate( (int) size );
+        while( contentBuffer.hasRemaining() && logChannel.read(contentBuffer) >= 0 ) {
+            // Keep reading until the whole log is in the buffer.
+        }
+        String content = new String( contentBuffer.array(), 0, contentBuffer.position(), StandardCharsets.UTF_8 );
+        int lineStart = 0;
+        int lineEnd;
+        while( (lineEnd = content.indexOf('\n', lineStart)) >= 0 ) {
+            String line = content.substring( lineStart, lineEnd );
+            int separator = line.indexOf( ' ' );
+            try {
+                checkpointMap.put( line.substring(0, separator), Long.parseLong(line.substring(separator + 1)) );
+            }
+            catch( IndexOutOfBoundsException | NumberFormatException e ) {
+                throw new IOException( "The checkpoint log " + logFile + " has an invalid line: " + line, e );
+            }
+            appendedLineCount++;
+            lineStart = lineEnd + 1;
+        }
+        // Anything after the last newline is a save that did not complete, so it is discarded.
+        long validLength = content.substring( 0, lineStart ).getBytes( StandardCharsets.UTF_8 ).length;
+        if( validLength < size ) {
+            logChannel.truncate( validLength );
+            logChannel.force( false );
+        }
+        logChannel.position( validLength );
+        if( appendedLineCount >= compactionThreshold ) {
+            compact();
+        }
+    }
+
+    private void ensureOpen() throws IOException {
+        if( !logChannel.isOpen() ) {
+            throw new IOException( "The checkpoint store " + logFile + " has been closed." );
+        }
+    }
+
+    private static String toLine( String key, long lastProcessedId ) {
+        return key + " " + lastProcessedId + "\n";
+    }
+
+}
@@ -6,7 +6,6 @@
 package com.ellucian.examples;
 
 
-import com.ellucian.ethos.integration.client.EthosClientBuilder;
 import com.ellucian.ethos.integration.client.EthosResponse;
 import com.ellucian.ethos.integration.client.EthosResponseConverter;
 import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
@@ -29,11 +28,13 @@ import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
 import java.util.Date;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * This is an example class that shows how to use the EthosFilterQueryClient to make API GET requests using filter criteria,
@@ -65,6 +66,7 @@ public class EthosFilterQueryClientExample {
         ethosFilterQueryClientExample.getUsingCriteriaFilterString();
         ethosFilterQueryClientExample.getUsingCriteriaFilter();
         ethosFilterQueryClientExample.getUsingCriteriaFilterWithJavaBeans();
+        ethosFilterQueryClientExample.streamRecordsUsingCriteriaFilterAsJavaBeans();
         ethosFilterQueryClientExample.getUsingNamedQueryFilter();
         ethosFilterQueryClientExample.getUsingNamedQueryFilterWithJavaBeans();
         ethosFilterQueryClientExample.getWithSimpleCriteriaArrayValues();
@@ -93,15 +95,12 @@ public class EthosFilterQueryClientExample {
     }
 
     /**
-     * This shows how to obtain an EthosFilterQueryClient for the given API key.
+     * This shows how to obtain an EthosFilterQueryClient for the given API key.  The client is shared by all of the
+     * example methods through SharedEthosClients.
      * @return An EthosFilterQueryClient
      */
     public EthosFilterQueryClient getEthosFilterQueryClient() {
-        return new EthosClientBuilder(apiKey)
-                   .withConnectionTimeout(60)
-                   .withConnectionRequestTimeout(60)
-                   .withSocketTimeout(60)
-                   .buildEthosFilterQueryClient();
+        return SharedEthosClients.forApiKey( apiKey, 60 ).getEthosFilterQueryClient();
     }
 
     /**
@@ -328,6 +327,30 @@ public class EthosFilterQueryClientExample {
         }
     }
 
+    /**
+     * This example shows how to stream the records matching a CriteriaFilter one at a time as JavaBeans with
+     * EthosRecordStreams.  Each page is parsed incrementally, so only one Persons JavaBean is held in memory at a time
+     * rather than a list of the whole page.  Pages are only requested as the stream needs them, so limiting the stream
+     * also limits the number of requests made.
+     */
+    public void streamRecordsUsingCriteriaFilterAsJavaBeans() {
+        System.out.println( "******* streamRecordsUsingCriteriaFilterAsJavaBeans() using CriteriaFilter *******" );
+        String resource = "persons";
+        String version = "application/vnd.hedtech.integration.v12.4.0+json";
+        int pageSize = 25;
+        CriteriaFilter criteriaFilter = new SimpleCriteria.Builder()
+                .withSimpleCriteriaArray("names", "firstName", "John")
+                .buildCriteriaFilter();
+        EthosFilterQueryClient ethosFilterQueryClient = getEthosFilterQueryClient();
+        try( Stream<Persons> personsStream = EthosRecordStreams.streamAllRecords(ethosFilterQueryClient, resource, version, criteriaFilter, pageSize, Persons.class) ) {
+            personsStream.limit( 60 )
+                         .forEach( persons -> System.out.println("PERSON: " + persons.toString()) );
+        }
+        catch( UncheckedIOException uioe ) {
+            uioe.printStackTrace();
+        }
+    }
+
     /**
      * This example shows how to build a NamedQueryFilter to make a GET request for a resource that supports named queries.
      */
@@ -659,7 +682,7 @@ public class EthosFilterQueryClientExample {
             CriteriaFilter criteriaFilter = new SimpleCriteria.Builder()
                                             .withSimpleCriteriaArray(criteriaLabel, criteriaKey, criteriaValue)
                                             .buildCriteriaFilter();
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, criteriaFilter );
+            int totalCount = EthosCountProbes.getTotalCount( ethosFilterQueryClient, resourceName, null, criteriaFilter );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             // Make the request using the criteriaFilter and other params.
@@ -701,7 +724,7 @@ public class EthosFilterQueryClientExample {
             CriteriaFilter criteriaFilter = new SimpleCriteria.Builder()
                     .withSimpleCriteriaArray(criteriaLabel, criteriaKey, criteriaValue)
                     .buildCriteriaFilter();
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, criteriaFilter );
+            int totalCount = EthosCountProbes.getTotalCount( ethosFilterQueryClient, resourceName, null, criteriaFilter );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             // Make the request using the criteriaFilter and other params.
@@ -748,7 +771,7 @@ public class EthosFilterQueryClientExample {
             NamedQueryFilter namedQueryFilter = new SimpleCriteria.Builder()
                                                 .withNamedQuery( queryName, queryKey, queryValue)
                                                 .buildNamedQueryFilter();
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, namedQueryFilter );
+            int totalCount = EthosCountProbes.getTotalCount( ethosFilterQueryClient, resourceName, null, namedQueryFilter );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             // Make the request using the namedQueryFilter and other params.
@@ -790,7 +813,7 @@ public class EthosFilterQueryClientExample {
             NamedQueryFilter namedQueryFilter = new SimpleCriteria.Builder()
                     .withNamedQuery( queryName, queryKey, queryValue)
                     .buildNamedQueryFilter();
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, namedQueryFilter );
+            int totalCount = EthosCountProbes.getTotalCount( ethosFilterQueryClient, resourceName, null, namedQueryFilter );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             // Make the request using the namedQueryFilter and other params.
@@ -910,7 +933,7 @@ public class EthosFilterQueryClientExample {
             FilterMap filterMap = new FilterMap.Builder()
                     .withParameterPair(filterMapKey, filterMapValue)
                     .build();
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, version, filterMap );
+            int totalCount = EthosCountProbes.getTotalCount( ethosFilterQueryClient, resourceName, version, filterMap );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             // Make the request using the filterMap and other params.
@@ -952,7 +975,7 @@ public class EthosFilterQueryClientExample {
             FilterMap filterMap = new FilterMap.Builder()
                     .withParameterPair(filterMapKey, filterMapValue)
                     .build();
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, version, filterMap );
+            int totalCount = EthosCountProbes.getTotalCount( ethosFilterQueryClient, resourceName, version, filterMap );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             // Specifying v6 of the Persons JavaBean to make the request with per the version header value above.
@@ -1268,8 +1291,9 @@ public class EthosFilterQueryClientExample {
         termCodes100QapiPost.setAcyrCode( "2021" );
         try {
             EthosFilterQueryClient ethosFilterQueryClient = getEthosFilterQueryClient();
-            // Make the call to get the total count using the ethosFilterQueryClient.
-            int totalCount = ethosFilterQueryClient.getTotalCount( resourceName, termCodes100QapiPost );
+            // Make the call to get the total count using the ethosFilterQueryClient.  Unlike the GET filters, QAPI
+            // counts cannot be probed with a single row request, so EthosCountProbes leaves them to the SDK.
+            int totalCount = EthosCountProbes.getTotalCountWithQAPI( ethosFilterQueryClient, resourceName, termCodes100QapiPost );
             System.out.println( "TOTAL COUNT FOR RESOURCE: " + resourceName + ", IS: " + totalCount );
         }
         catch( IOException ioe ) {
@@ -0,0 +1,186 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Holds a single, preconfigured ObjectMapper and the ObjectReaders derived from it, shared by every example and
+ * helper class that reads Ethos response bodies.
+ * <p>
+ * An ObjectMapper is expensive to create and caches the deserializers it builds for each type, so creating a new one
+ * per response throws that work away every time.  The mapper and readers here are thread safe and are created once.
+ * The readers read straight into the requested shape, a JsonNode tree, a JavaBean or a list of JavaBeans, without an
+ * intermediate tree, and the InputStream variants let a body be read without first being held as a String.
+ * <p>
+ * Unknown properties are ignored when reading JavaBeans, so newer minor versions of a resource with added properties
+ * can still be read into the existing JavaBean classes.
+ */
+public final class EthosJsonSupport {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper()
+                                                      .configure( DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES, false );
+    private static final ObjectReader TREE_READER = OBJECT_MAPPER.reader();
+    private static final Map<Class<?>, ObjectReader> BEAN_READER_MAP = new ConcurrentHashMap<>();
+    private static final Map<Class<?>, ObjectReader> BEAN_LIST_READER_MAP = new ConcurrentHashMap<>();
+
+    private EthosJsonSupport() {
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the shared ObjectMapper.  It must not be reconfigured, as it is shared by every caller.
+     * @return The shared ObjectMapper.
+     */
+    public static ObjectMapper getObjectMapper() {
+        return OBJECT_MAPPER;
+    }
+
+    /**
+     * Gets the shared ObjectReader for a JavaBean type.
+     * @param beanClass The JavaBean class.
+     * @return An ObjectReader reading a single JavaBean.
+     */
+    public static ObjectReader getBeanReader( Class<?> beanClass ) {
+        return BEAN_READER_MAP.computeIfAbsent( beanClass, OBJECT_MAPPER::readerFor );
+    }
+
+    /**
+     * Gets the shared ObjectReader for a list of a JavaBean type, such as the JSON array in a page of a resource.
+     * @param beanClass The JavaBean class of the list elements.
+     * @return An ObjectReader reading a list of JavaBeans.
+     */
+    public static ObjectReader getBeanListReader( Class<?> beanClass ) {
+        return BEAN_LIST_READER_MAP.computeIfAbsent( beanClass,
+                type -> OBJECT_MAPPER.readerFor(OBJECT_MAPPER.getTypeFactory().constructCollectionType(List.class, type)) );
+    }
+
+    /**
+     * Reads the body of an EthosResponse as a JsonNode.
+     * @param ethosResponse The EthosResponse.
+     * @return The body as a JsonNode, or a MissingNode if the body is empty.
+     * @throws IOException Thrown if the body is not valid JSON.
+     */
+    public static JsonNode readTree( EthosResponse ethosResponse ) throws IOException {
+        return readTree( ethosResponse.getContent() );
+    }
+
+    /**
+     * Reads a JSON formatted string as a JsonNode.
+     * @param content The JSON formatted string.
+     * @return The content as a JsonNode, or a MissingNode if the content is empty.
+     * @throws IOException Thrown if the content is not valid JSON.
+     */
+    public static JsonNode readTree( String content ) throws IOException {
+        return TREE_READER.readTree( content );
+    }
+
+    /**
+     * Reads a JSON stream as a JsonNode.  The stream is not closed.
+     * @param inputStream The stream of JSON.
+     * @return The content as a JsonNode, or a MissingNode if the stream is empty.
+     * @throws IOException Thrown if the stream cannot be read or is not valid JSON.
+     */
+    public static JsonNode readTree( InputStream inputStream ) throws IOException {
+        return TREE_READER.readTree( inputStream );
+    }
+
+    /**
+     * Reads a JSON formatted string as a JavaBean.
+     * @param content The JSON formatted string.
+     * @param beanClass The JavaBean class.
+     * @param <T> The JavaBean type.
+     * @return The JavaBean.
+     * @throws IOException Thrown if the content is not valid JSON for the JavaBean.
+     */
+    public static <T> T readValue( String content, Class<T> beanClass ) throws IOException {
+        return getBeanReader( beanClass ).readValue( content );
+    }
+
+    /**
+     * Reads the body of an EthosResponse as a list of JavaBeans.
+     * @param ethosResponse The EthosResponse, whose body is a JSON array.
+     * @param beanClass The JavaBean class of the list elements.
+     * @param <T> The JavaBean type.
+     * @return The list of JavaBeans.
+     * @throws IOException Thrown if the body is not a valid JSON array of the JavaBean.
+     */
+    public static <T> List<T> readList( EthosResponse ethosResponse, Class<T> beanClass ) throws IOException {
+        return readList( ethosResponse.getContent(), beanClass );
+    }
+
+    /**
+     * Reads a JSON array formatted string as a list of JavaBeans.
+     * @param content The JSON array formatted string.
+     * @param beanClass The JavaBean class of the list elements.
+     * @param <T> The JavaBean type.
+     * @return The list of JavaBeans.
+     * @throws IOException Thrown if the content is not a valid JSON array of the JavaBean.
+     */
+    public static <T> List<T> readList( String content, Class<T> beanClass ) throws IOException {
+        return getBeanListReader( beanClass ).readValue( content );
+    }
+
+    /**
+     * Reads a JSON array stream as a list of JavaBeans.  The stream is not closed.
+     * @param inputStream The stream of a JSON array.
+     * @param beanClass The JavaBean class of the list elements.
+     * @param <T> The JavaBean type.
+     * @return The list of JavaBeans.
+     * @throws IOException Thrown if the stream cannot be read or is not a valid JSON array of the JavaBean.
+     */
+    public static <T> List<T> readList( InputStream inputStream, Class<T> beanClass ) throws IOException {
+        return getBeanListReader( beanClass ).readValue( inputStream );
+    }
+
+    /**
+     * Counts the elements of a JSON array formatted string without building a JsonNode tree, skipping over the
+     * content of each element.  This is much cheaper than readTree(content).size() when only the count is needed.
+     * @param content The JSON formatted string.
+     * @return The number of elements if the content is a JSON array, 1 if it is any other JSON value, or 0 if the
+     *         content is empty.
+     * @throws IOException Thrown if the content is not valid JSON.
+     */
+    public static int countArrayElements( String content ) throws IOException {
+        if( content == null || content.isBlank() ) {
+            return 0;
+        }
+        try( JsonParser jsonParser = OBJECT_MAPPER.getFactory().createParser(content) ) {
+            JsonToken token = jsonParser.nextToken();
+            if( token == null ) {
+                return 0;
+            }
+            if( token != JsonToken.START_ARRAY ) {
+                return 1;
+            }
+            int count = 0;
+            while( jsonParser.nextToken() != JsonToken.END_ARRAY ) {
+                jsonParser.skipChildren();
+                count++;
+            }
+            return count;
+        }
+    }
+
+}
@@ -5,12 +5,17 @@
  */
 package com.ellucian.examples;
 
-import com.ellucian.ethos.integration.client.EthosClientBuilder;
 import com.ellucian.ethos.integration.client.messages.ChangeNotification;
 import com.ellucian.ethos.integration.client.messages.EthosMessagesClient;
+import com.fasterxml.jackson.databind.JsonNode;
 
 import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
 
 /**
  * This is an example class that shows how to retrieve change notification messages from the message queue service
@@ -39,6 +44,18 @@ public class EthosMessagesClientExample {
         EthosMessagesClientExample ethosMessagesClientExample = new EthosMessagesClientExample( apiKey );
         ethosMessagesClientExample.checkAvailableMessages();
         ethosMessagesClientExample.consumeMessages();
+        ethosMessagesClientExample.consumeMessagesWithPrefetch();
+        ethosMessagesClientExample.consumeMessagesFromCheckpoint();
+        ethosMessagesClientExample.syncReplica();
+    }
+
+    /**
+     * Gets an EthosMessagesClient for the given API key.  The client is built once and shared by the example methods
+     * through SharedEthosClients, so its connections and access token are reused.
+     * @return An EthosMessagesClient.
+     */
+    private EthosMessagesClient getEthosMessagesClient() {
+        return SharedEthosClients.forApiKey( apiKey ).getEthosMessagesClient();
     }
 
     /**
@@ -47,7 +64,7 @@ public class EthosMessagesClientExample {
      * @throws IOException
      */
     public void checkAvailableMessages() throws IOException {
-        EthosMessagesClient client = new EthosClientBuilder(apiKey).buildEthosMessagesClient();
+        EthosMessagesClient client = getEthosMessagesClient();
         int numMessages = client.getNumAvailableMessages();
         System.out.printf("Number of available messages: %s\n", numMessages);
     }
@@ -59,7 +76,7 @@ public class EthosMessagesClientExample {
      * @throws IOException
      */
     public void consumeMessages() throws IOException {
-        EthosMessagesClient client = new EthosClientBuilder(apiKey).buildEthosMessagesClient();
+        EthosMessagesClient client = getEthosMessagesClient();
         List<ChangeNotification> cnList = client.consume();
         System.out.printf("Retrieved '%d' messages.\n", cnList.size());
         System.out.println("Requesting the same set of messages again, using 'lastProcessedID=0'.");
@@ -73,4 +90,76 @@ public class EthosMessagesClientExample {
                                 ", content: " + cn.getContent().toString() );
         }
     }
+
+    /**
+     * This example consumes change notification messages with an EthosPrefetchingMessageConsumer, which requests the
+     * next batch while the current one is being handled.  It stops once no batch arrives within a few seconds.  Asking
+     * for the next batch marks the previous one as processed, and the last processed ID is printed at the end.
+     * @throws IOException
+     */
+    public void consumeMessagesWithPrefetch() throws IOException {
+        long lastProcessedId = 0;
+        try( EthosPrefetchingMessageConsumer consumer = new EthosPrefetchingMessageConsumer(getEthosMessagesClient(), lastProcessedId) ) {
+            List<ChangeNotification> cnList;
+            while( (cnList = consumer.poll(5, TimeUnit.SECONDS)) != null ) {
+                System.out.printf("Retrieved '%d' messages, '%d' more batches already fetched.\n", cnList.size(), consumer.getBufferedBatchCount());
+                for( ChangeNotification cn : cnList ) {
+                    System.out.println( "Resource: " + cn.getResource().getName() + ", id: " + cn.getResource().getId() );
+                }
+            }
+            System.out.printf("Last processed ID: %d\n", consumer.getLastProcessedId());
+            System.out.println( consumer );
+        }
+    }
+
+    /**
+     * This example consumes change notification messages from the last processed ID saved in an
+     * EthosFileCheckpointStore, rather than from 'lastProcessedID=0'.  The last processed ID is saved after each batch
+     * is handled, so running this example again resumes where the previous run left off.  The checkpoint is stored
+     * under a hash of the API key, never the API key itself.
+     * @throws IOException
+     */
+    public void consumeMessagesFromCheckpoint() throws IOException {
+        Path checkpointFile = Paths.get( System.getProperty("java.io.tmpdir"), "ethos-checkpoints.log" );
+        try( EthosFileCheckpointStore checkpointStore = new EthosFileCheckpointStore(checkpointFile);
+             EthosPrefetchingMessageConsumer consumer = new EthosPrefetchingMessageConsumer(getEthosMessagesClient(), checkpointStore, apiKey) ) {
+            System.out.printf("Resuming from last processed ID: %d\n", checkpointStore.getLastProcessedId(apiKey));
+            List<ChangeNotification> cnList;
+            while( (cnList = consumer.poll(5, TimeUnit.SECONDS)) != null ) {
+                System.out.printf("Retrieved '%d' messages.\n", cnList.size());
+            }
+            System.out.printf("Saved last processed ID: %d\n", checkpointStore.getLastProcessedId(apiKey));
+        }
+    }
+
+    /**
+     * This example keeps an in-memory replica of the student-cohorts resource current with an EthosDeltaSync.  The
+     * first sync bulk loads the resource, and every sync after that applies only the change notifications consumed
+     * since the last processed ID.  A real replica would persist the records and the last processed ID together, and
+     * pass them back to the builder on restart.
+     * @throws IOException
+     */
+    public void syncReplica() throws IOException {
+        String resourceName = "student-cohorts";
+        Map<String, JsonNode> replicaMap = new ConcurrentHashMap<>();
+        EthosDeltaSync.ReplicaStore replicaStore = new EthosDeltaSync.ReplicaStore() {
+            @Override
+            public void upsert( String resourceName, String id, JsonNode record ) {
+                replicaMap.put( id, record );
+            }
+
+            @Override
+            public void delete( String resourceName, String id ) {
+                replicaMap.remove( id );
+            }
+        };
+        EthosDeltaSync ethosDeltaSync = new EthosDeltaSync.Builder( SharedEthosClients.forApiKey( apiKey ).getEthosProxyClient(), getEthosMessagesClient(), replicaStore )
+                                        .withResource( resourceName, null )
+                                        .build();
+        long applied = ethosDeltaSync.sync();
+        System.out.printf("Loaded '%d' %s records and applied '%d' changes.\n", replicaMap.size(), resourceName, applied);
+        applied = ethosDeltaSync.sync();
+        System.out.printf("Applied '%d' changes since the load, last processed ID: %d.\n", applied, ethosDeltaSync.getLastProcessedId());
+        System.out.println( ethosDeltaSync );
+    }
 }
@@ -0,0 +1,113 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.ethos.integration.client.proxy.filter.CriteriaFilter;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.concurrent.Semaphore;
+
+/**
+ * Fetches a single page of data for some resource at the given offset and page size.  This is the one request
+ * primitive that the paging utilities in this package are built on, so that the same paging code can be used
+ * with any client (or any other source of pages) that can return one page at a time.
+ */
+@FunctionalInterface
+public interface EthosPageFetcher {
+
+    /**
+     * The version used when no specific version of a resource is requested.
+     */
+    String DEFAULT_VERSION = "application/json";
+
+    /**
+     * Fetches one page of data.
+     * @param offset The row offset of the first row in the page.
+     * @param pageSize The number of rows requested for the page.
+     * @return An EthosResponse containing the page of data.
+     * @throws IOException Propagates any exception thrown while making the request.
+     */
+    EthosResponse fetchPage( int offset, int pageSize ) throws IOException;
+
+    /**
+     * Returns an EthosPageFetcher that waits for a permit from the given semaphore before each request, and releases
+     * it when the request completes.  Sharing one semaphore across fetchers caps the number of requests in flight
+     * across all of them.
+     * @param inFlightPermits The semaphore limiting the number of requests in flight.
+     * @return An EthosPageFetcher bounded by the given semaphore.
+     */
+    default EthosPageFetcher withMaxInFlight( Semaphore inFlightPermits ) {
+        return (offset, pageSize) -> {
+            try {
+                inFlightPermits.acquire();
+            }
+            catch( InterruptedException ie ) {
+                Thread.currentThread().interrupt();
+                throw new InterruptedIOException( "Interrupted while waiting to fetch a page." );
+            }
+            try {
+                return fetchPage( offset, pageSize );
+            }
+            finally {
+                inFlightPermits.release();
+            }
+        };
+    }
+
+    /**
+     * Builds an EthosPageFetcher that gets pages of the given resource using the EthosProxyClient.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource to get pages for.
+     * @param version The version of the resource, or null for the default version.
+     * @return An EthosPageFetcher for the given resource.
+     */
+    static EthosPageFetcher forResource( EthosProxyClient ethosProxyClient, String resourceName, String version ) {
+        String resourceVersion = (version == null || version.isBlank()) ? DEFAULT_VERSION : version;
+        return (offset, pageSize) -> ethosProxyClient.get( resourceName, resourceVersion, offset, pageSize );
+    }
+
+    /**
+     * Builds an EthosPageFetcher that gets pages of the given resource matching a criteria filter using the
+     * EthosFilterQueryClient.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the requests.
+     * @param resourceName The name of the resource to get pages for.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilter The criteria filter to apply.
+     * @return An EthosPageFetcher for the given resource and criteria filter.
+     */
+    static EthosPageFetcher forCriteriaFilter( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                               CriteriaFilter criteriaFilter ) {
+        return forCriteriaFilter( ethosFilterQueryClient, resourceName, version, criteriaFilter.toString() );
+    }
+
+    /**
+     * Builds an EthosPageFetcher that gets pages of the given resource matching a criteria filter string using the
+     * EthosFilterQueryClient.  The offset and limit of each page are appended to the filter string.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the requests.
+     * @param resourceName The name of the resource to get pages for.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilterStr The criteria filter query string, for example "?criteria={...}".
+     * @return An EthosPageFetcher for the given resource and criteria filter.
+     */
+    static EthosPageFetcher forCriteriaFilter( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                               String criteriaFilterStr ) {
+        String resourceVersion = (version == null || version.isBlank()) ? DEFAULT_VERSION : version;
+        String filterStr = (criteriaFilterStr == null) ? "" : criteriaFilterStr;
+        String separator = filterStr.isEmpty() ? "?" : "&";
+        return (offset, pageSize) -> {
+            StringBuilder pagedFilterStr = new StringBuilder( filterStr ).append( separator ).append( "offset=" ).append( offset );
+            if( pageSize > 0 ) {
+                pagedFilterStr.append( "&limit=" ).append( pageSize );
+            }
+            return ethosFilterQueryClient.getWithCriteriaFilter( resourceName, resourceVersion, pagedFilterStr.toString() );
+        };
+    }
+
+}
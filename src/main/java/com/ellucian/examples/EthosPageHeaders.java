@@ -0,0 +1,95 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import org.apache.http.Header;
+
+import java.io.IOException;
+
+/**
+ * Utility methods for reading the paging related headers from an EthosResponse.
+ */
+public final class EthosPageHeaders {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * Value returned when a header is not present or cannot be read as a number.
+     */
+    public static final int UNKNOWN = -1;
+
+    private EthosPageHeaders() {
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the total number of rows for the resource from the 'x-total-count' header.
+     * @param ethosResponse The EthosResponse containing the headers.
+     * @return The total count, or UNKNOWN if the header is not present.
+     */
+    public static int getTotalCount( EthosResponse ethosResponse ) {
+        return getIntHeader( ethosResponse, EthosProxyClient.HDR_X_TOTAL_COUNT );
+    }
+
+    /**
+     * Gets the max page size for the resource from the 'x-max-page-size' header.
+     * @param ethosResponse The EthosResponse containing the headers.
+     * @return The max page size, or UNKNOWN if the header is not present.
+     */
+    public static int getMaxPageSize( EthosResponse ethosResponse ) {
+        return getIntHeader( ethosResponse, EthosProxyClient.HDR_X_MAX_PAGE_SIZE );
+    }
+
+    /**
+     * Gets the value of the given header as an int.
+     * @param ethosResponse The EthosResponse containing the headers.
+     * @param headerName The name of the header.
+     * @return The header value, or UNKNOWN if the header is not present or is not numeric.
+     */
+    public static int getIntHeader( EthosResponse ethosResponse, String headerName ) {
+        if( ethosResponse == null ) {
+            return UNKNOWN;
+        }
+        Header header = ethosResponse.getHeader( headerName );
+        if( header == null || header.getValue() == null ) {
+            return UNKNOWN;
+        }
+        try {
+            return Integer.parseInt( header.getValue().trim() );
+        }
+        catch( NumberFormatException nfe ) {
+            return UNKNOWN;
+        }
+    }
+
+    /**
+     * Gets the number of rows contained in the given page.  When the page size requested and the paging headers are
+     * known, the row count is calculated from them without reading the response body.  Otherwise the response body
+     * is read to count the rows.
+     * @param ethosResponse The EthosResponse for the page.
+     * @param offset The offset the page was requested from.
+     * @param pageSize The page size requested, or 0 if the default page size of the resource was used.
+     * @return The number of rows in the page.
+     * @throws IOException Thrown if the response body must be read and is not valid JSON.
+     */
+    public static int getRowCount( EthosResponse ethosResponse, int offset, int pageSize ) throws IOException {
+        int totalCount = getTotalCount( ethosResponse );
+        int maxPageSize = getMaxPageSize( ethosResponse );
+        if( pageSize > 0 && totalCount != UNKNOWN && maxPageSize != UNKNOWN ) {
+            int effectivePageSize = Math.min( pageSize, maxPageSize );
+            return Math.max( 0, Math.min( effectivePageSize, totalCount - offset ) );
+        }
+        return EthosJsonSupport.countArrayElements( ethosResponse.getContent() );
+    }
+
+}
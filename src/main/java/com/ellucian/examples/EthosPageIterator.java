@@ -0,0 +1,145 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+/**
+ * An Iterator that lazily pages through a resource, fetching the next page only when the caller asks for it.
+ * Only the current page is held in memory, regardless of the total number of rows for the resource.
+ * <p>
+ * The end of the resource is detected from the 'x-total-count' header of the pages already fetched, so no extra
+ * request is made to get the total count up front.  If that header is not returned, paging stops at the first
+ * empty page.
+ * <p>
+ * The page size is either fixed, or chosen for each page by an EthosPageSizer such as the EthosAdaptivePageSizer.
+ * <p>
+ * Because Iterator methods cannot throw checked exceptions, an IOException thrown while fetching a page is
+ * rethrown as an UncheckedIOException.
+ */
+public class EthosPageIterator implements Iterator<EthosResponse> {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private final EthosPageFetcher pageFetcher;
+    private final EthosPageSizer pageSizer;
+    private int offset;
+    private int totalCount = EthosPageHeaders.UNKNOWN;
+    private EthosResponse nextPage;
+    private boolean finished;
+
+    /**
+     * Creates an iterator starting at the given offset.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     */
+    public EthosPageIterator( EthosPageFetcher pageFetcher, int offset, int pageSize ) {
+        this( pageFetcher, offset, EthosPageSizer.fixed(pageSize) );
+    }
+
+    /**
+     * Creates an iterator starting at the given offset, with the page size of each request chosen by the given sizer.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSizer The EthosPageSizer choosing the page size of each request.
+     */
+    public EthosPageIterator( EthosPageFetcher pageFetcher, int offset, EthosPageSizer pageSizer ) {
+        if( pageFetcher == null || pageSizer == null ) {
+            throw new IllegalArgumentException( "The pageFetcher and pageSizer are required." );
+        }
+        if( offset < 0 ) {
+            throw new IllegalArgumentException( "The offset cannot be negative: " + offset );
+        }
+        this.pageFetcher = pageFetcher;
+        this.offset = offset;
+        this.pageSizer = pageSizer;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    @Override
+    public boolean hasNext() {
+        if( nextPage != null ) {
+            return true;
+        }
+        if( finished ) {
+            return false;
+        }
+        if( totalCount != EthosPageHeaders.UNKNOWN && offset >= totalCount ) {
+            finished = true;
+            return false;
+        }
+        try {
+            int pageSize;
+            EthosResponse page;
+            long fetchNanos;
+            while( true ) {
+                pageSize = Math.max( pageSizer.nextPageSize(), 0 );
+                long startNanos = System.nanoTime();
+                try {
+                    page = pageFetcher.fetchPage( offset, pageSize );
+                    fetchNanos = System.nanoTime() - startNanos;
+                    break;
+                }
+                catch( IOException ioe ) {
+                    if( !pageSizer.onPageFailed(ioe, pageSize) ) {
+                        throw ioe;
+                    }
+                }
+            }
+            int rowCount = EthosPageHeaders.getRowCount( page, offset, pageSize );
+            pageSizer.onPageFetched( page, pageSize, rowCount, fetchNanos );
+            totalCount = EthosPageHeaders.getTotalCount( page );
+            if( rowCount == 0 ) {
+                finished = true;
+                return false;
+            }
+            offset += rowCount;
+            nextPage = page;
+            return true;
+        }
+        catch( IOException ioe ) {
+            finished = true;
+            throw new UncheckedIOException( ioe );
+        }
+    }
+
+    @Override
+    public EthosResponse next() {
+        if( !hasNext() ) {
+            throw new NoSuchElementException();
+        }
+        EthosResponse page = nextPage;
+        nextPage = null;
+        return page;
+    }
+
+    /**
+     * Gets the offset of the next page to be fetched.
+     * @return The offset of the next page.
+     */
+    public int getOffset() {
+        return offset;
+    }
+
+    /**
+     * Gets the total count of rows for the resource, as read from the last page fetched.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if no page has been fetched yet.
+     */
+    public int getTotalCount() {
+        return totalCount;
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Flow;
+
+/**
+ * A Flow.Publisher that publishes the pages of a resource one at a time as they are fetched, with backpressure.
+ * <p>
+ * Each subscriber gets its own pass through the resource.  Pages are fetched ahead of the subscriber's demand into a
+ * small bounded buffer, so that while the subscriber is processing one page the next page is already being fetched.
+ * Fetching pauses whenever the buffer is full, so a slow subscriber never causes more than the prefetch count of pages
+ * to be held in memory.  The first page is delivered as soon as it arrives, regardless of how many pages the resource
+ * has.
+ * <p>
+ * Pages are fetched on the fetch executor and delivered to the subscriber on the delivery executor, and the subscriber
+ * methods are never called concurrently for the same subscription.  If the subscriber's onNext() throws, the
+ * subscription is cancelled and the subscriber gets no further signals, not even onError(), as the Flow contract
+ * requires; the subscriber is expected to handle its own errors.
+ */
+public class EthosPagePublisher implements Flow.Publisher<EthosResponse> {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default number of pages fetched ahead of the subscriber.
+     */
+    public static final int DEFAULT_PREFETCH = 2;
+
+    private final EthosPageFetcher pageFetcher;
+    private final int offset;
+    private final int pageSize;
+    private final Executor fetchExecutor;
+    private final Executor deliveryExecutor;
+    private final int prefetch;
+
+    /**
+     * Creates a publisher that both fetches and delivers pages on the given executor.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param executor The executor used to fetch and deliver pages.
+     */
+    public EthosPagePublisher( EthosPageFetcher pageFetcher, int offset, int pageSize, Executor executor ) {
+        this( pageFetcher, offset, pageSize, executor, executor, DEFAULT_PREFETCH );
+    }
+
+    /**
+     * Creates a publisher.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param fetchExecutor The executor used to fetch pages.
+     * @param deliveryExecutor The executor used to deliver pages to the subscriber.
+     * @param prefetch The maximum number of pages fetched ahead of the subscriber's demand.
+     */
+    public EthosPagePublisher( EthosPageFetcher pageFetcher, int offset, int pageSize, Executor fetchExecutor,
+                               Executor deliveryExecutor, int prefetch ) {
+        if( pageFetcher == null || fetchExecutor == null || deliveryExecutor == null ) {
+            throw new IllegalArgumentException( "The pageFetcher, fetchExecutor and deliveryExecutor are required." );
+        }
+        if( prefetch < 1 ) {
+            throw new IllegalArgumentException( "The prefetch must be at least 1: " + prefetch );
+        }
+        this.pageFetcher = pageFetcher;
+        this.offset = offset;
+        this.pageSize = pageSize;
+        this.fetchExecutor = fetchExecutor;
+        this.deliveryExecutor = deliveryExecutor;
+        this.prefetch = prefetch;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    @Override
+    public void subscribe( Flow.Subscriber<? super EthosResponse> subscriber ) {
+        if( subscriber == null ) {
+            throw new NullPointerException( "The subscriber is required." );
+        }
+        PageSubscription pageSubscription = new PageSubscription( subscriber, new EthosPageIterator(pageFetcher, offset, pageSize) );
+        subscriber.onSubscribe( pageSubscription );
+    }
+
+    /**
+     * The subscription for a single subscriber.  All state is guarded by the subscription's monitor, and subscriber
+     * methods are always called outside of it.
+     */
+    private class PageSubscription implements Flow.Subscription {
+
+        private final Flow.Subscriber<? super EthosResponse> subscriber;
+        private final EthosPageIterator pageIterator;
+        private final Deque<EthosResponse> buffer = new ArrayDeque<>();
+        private long demand;
+        private boolean fetching;
+        private boolean delivering;
+        private boolean finished;
+        private boolean terminated;
+        private boolean cancelled;
+        private Throwable error;
+
+        PageSubscription( Flow.Subscriber<? super EthosResponse> subscriber, EthosPageIterator pageIterator ) {
+            this.subscriber = subscriber;
+            this.pageIterator = pageIterator;
+        }
+
+        @Override
+        public synchronized void request( long n ) {
+            if( cancelled || terminated ) {
+                return;
+            }
+            if( n <= 0 ) {
+                error = new IllegalArgumentException( "The number of pages requested must be positive: " + n );
+                finished = true;
+                buffer.clear();
+            }
+            else {
+                demand = (demand + n < 0) ? Long.MAX_VALUE : demand + n;
+            }
+            schedule();
+        }
+
+        @Override
+        public synchronized void cancel() {
+            cancelled = true;
+            buffer.clear();
+        }
+
+        // Must be called while holding the monitor.
+        private void schedule() {
+            if( cancelled ) {
+                return;
+            }
+            if( !fetching && !finished && buffer.size() < prefetch ) {
+                fetching = true;
+                fetchExecutor.execute( this::fetchPage );
+            }
+            boolean canDeliver = (demand > 0 && !buffer.isEmpty()) || (buffer.isEmpty() && finished && !terminated);
+            if( !delivering && canDeliver ) {
+                delivering = true;
+                deliveryExecutor.execute( this::deliver );
+            }
+        }
+
+        private void fetchPage() {
+            EthosResponse page = null;
+            Throwable fetchError = null;
+            try {
+                if( pageIterator.hasNext() ) {
+                    page = pageIterator.next();
+                }
+            }
+            catch( Throwable t ) {
+                fetchError = t;
+            }
+            synchronized( this ) {
+                fetching = false;
+                if( fetchError != null ) {
+                    error = fetchError;
+                    finished = true;
+                }
+                else if( page == null ) {
+                    finished = true;
+                }
+                else if( !cancelled ) {
+                    buffer.add( page );
+                }
+                schedule();
+            }
+        }
+
+        private void deliver() {
+            while( true ) {
+                EthosResponse page = null;
+                Throwable terminalError = null;
+                boolean complete = false;
+                synchronized( this ) {
+                    if( cancelled ) {
+                        delivering = false;
+                        return;
+                    }
+                    if( demand > 0 && !buffer.isEmpty() ) {
+                        page = buffer.poll();
+                        demand--;
+                        // Start fetching the next page now that there is room in the buffer.
+                        schedule();
+                    }
+                    else if( buffer.isEmpty() && finished && !terminated ) {
+                        terminated = true;
+                        terminalError = error;
+                        complete = (error == null);
+                    }
+                    else {
+                        delivering = false;
+                        return;
+                    }
+                }
+                if( page != null ) {
+                    try {
+                        subscriber.onNext( page );
+                    }
+                    catch( Throwable t ) {
+                        // A subscriber that throws has broken the contract, so it is not signalled again.
+                        synchronized( this ) {
+                            cancel();
+                            delivering = false;
+                        }
+                        return;
+                    }
+                }
+                else {
+                    if( complete ) {
+                        subscriber.onComplete();
+                    }
+                    else {
+                        subscriber.onError( terminalError );
+                    }
+                    synchronized( this ) {
+                        delivering = false;
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+
+import java.io.IOException;
+
+/**
+ * Chooses the page size of each request made by an EthosPageIterator.  A fixed page size is used unless an adaptive
+ * sizer such as the EthosAdaptivePageSizer is given, which is told how each page went so it can choose the next size.
+ */
+public interface EthosPageSizer {
+
+    /**
+     * Gets the page size to request for the next page.
+     * @return The page size, or 0 to use the default page size of the resource.
+     */
+    int nextPageSize();
+
+    /**
+     * Called after each page is fetched.
+     * @param page The page fetched.
+     * @param pageSize The page size requested for the page.
+     * @param rowCount The number of rows in the page.
+     * @param latencyNanos The time taken to fetch the page in nanoseconds.
+     */
+    default void onPageFetched( EthosResponse page, int pageSize, int rowCount, long latencyNanos ) {
+    }
+
+    /**
+     * Called when fetching a page fails, to decide whether the page should be requested again with the page size then
+     * returned from nextPageSize(), for example after a gateway timeout.
+     * @param exception The exception thrown while fetching the page.
+     * @param pageSize The page size requested for the page.
+     * @return True if the page should be requested again, or false to propagate the exception.
+     */
+    default boolean onPageFailed( IOException exception, int pageSize ) {
+        return false;
+    }
+
+    /**
+     * Gets a sizer that always uses the given page size.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A fixed EthosPageSizer.
+     */
+    static EthosPageSizer fixed( int pageSize ) {
+        int fixedPageSize = Math.max( pageSize, 0 );
+        return () -> fixedPageSize;
+    }
+
+}
@@ -0,0 +1,181 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streaming alternatives to the EthosProxyClient getAllPages*() methods.  Rather than collecting every page into a
+ * list before returning, the streams returned here fetch the next page only when the consumer pulls it, so memory
+ * use is bounded to the page currently being processed regardless of the total count of the resource.
+ * <p>
+ * The streams are sequential and ordered by offset.  Any IOException thrown while fetching or reading a page is
+ * rethrown as an UncheckedIOException from the stream operation that pulled the page.
+ * <p>
+ * Pages fetched with an EthosProxyClient are recorded in the EthosResourceMetadataCache of the client, so the total
+ * count and page sizes of the resource can be looked up afterwards without another request.
+ */
+public final class EthosPageStreams {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+    private EthosPageStreams() {
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Streams all pages of the given resource using the default version.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of EthosResponses, one per page.
+     */
+    public static Stream<EthosResponse> streamAllPages( EthosProxyClient ethosProxyClient, String resourceName, int pageSize ) {
+        return streamAllPagesFromOffset( ethosProxyClient, resourceName, null, 0, pageSize );
+    }
+
+    /**
+     * Streams all pages of the given resource and version starting from the given offset.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of EthosResponses, one per page.
+     */
+    public static Stream<EthosResponse> streamAllPagesFromOffset( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                                  int offset, int pageSize ) {
+        return streamPages( EthosResourceMetadataCache.forClient(ethosProxyClient).pageFetcher(resourceName, version), offset, pageSize );
+    }
+
+    /**
+     * Streams all pages of the given resource as JsonNodes, where each JsonNode is the array of rows in one page.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of JsonNodes, one per page.
+     */
+    public static Stream<JsonNode> streamAllPagesAsJsonNodes( EthosProxyClient ethosProxyClient, String resourceName, int pageSize ) {
+        return streamAllPagesFromOffsetAsJsonNodes( ethosProxyClient, resourceName, null, 0, pageSize );
+    }
+
+    /**
+     * Streams all pages of the given resource and version as JsonNodes starting from the given offset.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of JsonNodes, one per page.
+     */
+    public static Stream<JsonNode> streamAllPagesFromOffsetAsJsonNodes( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                                        int offset, int pageSize ) {
+        return streamAllPagesFromOffset( ethosProxyClient, resourceName, version, offset, pageSize )
+               .map( EthosPageStreams::toJsonNode );
+    }
+
+    /**
+     * Streams all pages of the given resource as lists of JavaBeans of the given type.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A lazy stream of JavaBean lists, one per page.
+     */
+    public static <T> Stream<List<T>> streamAllPages( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                      int pageSize, Class<T> beanClass ) {
+        return streamAllPagesFromOffset( ethosProxyClient, resourceName, version, 0, pageSize, beanClass );
+    }
+
+    /**
+     * Streams all pages of the given resource from the given offset as lists of JavaBeans of the given type.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A lazy stream of JavaBean lists, one per page.
+     */
+    public static <T> Stream<List<T>> streamAllPagesFromOffset( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                                int offset, int pageSize, Class<T> beanClass ) {
+        return streamAllPagesFromOffset( ethosProxyClient, resourceName, version, offset, pageSize )
+               .map( ethosResponse -> toBeanList(ethosResponse, beanClass) );
+    }
+
+    /**
+     * Streams all pages of the given resource and version, with the page size tuned as paging goes by the shared
+     * EthosAdaptivePageSizer for the client, resource and version.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return A lazy stream of EthosResponses, one per page.
+     */
+    public static Stream<EthosResponse> streamAllPagesAdaptively( EthosProxyClient ethosProxyClient, String resourceName, String version ) {
+        return streamPages( EthosResourceMetadataCache.forClient(ethosProxyClient).pageFetcher(resourceName, version), 0,
+                            EthosAdaptivePageSizer.forResource(ethosProxyClient, resourceName, version) );
+    }
+
+    /**
+     * Streams pages from any EthosPageFetcher.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of EthosResponses, one per page.
+     */
+    public static Stream<EthosResponse> streamPages( EthosPageFetcher pageFetcher, int offset, int pageSize ) {
+        return streamPages( pageFetcher, offset, EthosPageSizer.fixed(pageSize) );
+    }
+
+    /**
+     * Streams pages from any EthosPageFetcher, with the page size of each request chosen by the given sizer.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSizer The EthosPageSizer choosing the page size of each request.
+     * @return A lazy stream of EthosResponses, one per page.
+     */
+    public static Stream<EthosResponse> streamPages( EthosPageFetcher pageFetcher, int offset, EthosPageSizer pageSizer ) {
+        EthosPageIterator pageIterator = new EthosPageIterator( pageFetcher, offset, pageSizer );
+        Spliterator<EthosResponse> spliterator = Spliterators.spliteratorUnknownSize( pageIterator, Spliterator.ORDERED | Spliterator.NONNULL );
+        return StreamSupport.stream( spliterator, false );
+    }
+
+    private static JsonNode toJsonNode( EthosResponse ethosResponse ) {
+        try {
+            return EthosJsonSupport.readTree( ethosResponse );
+        }
+        catch( IOException ioe ) {
+            throw new UncheckedIOException( ioe );
+        }
+    }
+
+    private static <T> List<T> toBeanList( EthosResponse ethosResponse, Class<T> beanClass ) {
+        try {
+            return EthosJsonSupport.readList( ethosResponse, beanClass );
+        }
+        catch( IOException ioe ) {
+            throw new UncheckedIOException( ioe );
+        }
+    }
+
+}
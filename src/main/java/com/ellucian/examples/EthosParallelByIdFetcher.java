@@ -0,0 +1,258 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gets a batch of records by id by making the getById requests concurrently rather than one after another, for jobs
+ * such as reconciling the records named by thousands of change notifications.
+ * <p>
+ * The ids are de-duplicated first, so each distinct id is requested once, and no more than the configured parallelism
+ * of requests are in flight at once.  A failed id does not fail the batch: its error is returned in the
+ * EthosByIdResults alongside the results of the other ids.
+ */
+public class EthosParallelByIdFetcher {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The parallelism used when none is specified.
+     */
+    public static final int DEFAULT_PARALLELISM = 8;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final int parallelism;
+    private final ExecutorService executorService;
+
+    /**
+     * Gets one record by id.
+     * @param <T> The type of the record.
+     */
+    @FunctionalInterface
+    public interface ByIdLoader<T> {
+        /**
+         * Gets the record with the given id.
+         * @param id The id of the record.
+         * @return The record.
+         * @throws IOException Thrown if the record could not be obtained.
+         */
+        T load( String id ) throws IOException;
+    }
+
+    /**
+     * Creates a fetcher that uses its own threads for each batch, up to the given parallelism.
+     * @param parallelism The maximum number of requests in flight at the same time.
+     */
+    public EthosParallelByIdFetcher( int parallelism ) {
+        this( parallelism, null );
+    }
+
+    /**
+     * Creates a fetcher that runs the requests on the given ExecutorService, with no more than the given parallelism
+     * in flight at once.  The ExecutorService is not shut down by this class.
+     * @param parallelism The maximum number of requests in flight at the same time.
+     * @param executorService The ExecutorService to run the requests on, or null to use threads owned by each batch.
+     */
+    public EthosParallelByIdFetcher( int parallelism, ExecutorService executorService ) {
+        if( parallelism < 1 ) {
+            throw new IllegalArgumentException( "The parallelism must be at least 1: " + parallelism );
+        }
+        this.parallelism = parallelism;
+        this.executorService = executorService;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Convenience method to get the records of the given resource with the given ids using the EthosProxyClient.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param ids The ids of the records, which may contain duplicates.
+     * @param parallelism The maximum number of requests in flight at the same time.
+     * @return The EthosResponse or error of each distinct id.
+     * @throws IOException Thrown if interrupted while waiting for the requests.
+     */
+    public static EthosByIdResults<EthosResponse> getByIds( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                            Collection<String> ids, int parallelism ) throws IOException {
+        return new EthosParallelByIdFetcher( parallelism ).getByIds( ids, byIdLoader(ethosProxyClient, resourceName, version) );
+    }
+
+    /**
+     * Convenience method to get the records of the given resource with the given ids as JavaBeans using the
+     * EthosProxyClient.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param ids The ids of the records, which may contain duplicates.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param parallelism The maximum number of requests in flight at the same time.
+     * @param <T> The JavaBean type.
+     * @return The JavaBean or error of each distinct id.
+     * @throws IOException Thrown if interrupted while waiting for the requests.
+     */
+    public static <T> EthosByIdResults<T> getByIds( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                    Collection<String> ids, Class<T> beanClass, int parallelism ) throws IOException {
+        return new EthosParallelByIdFetcher( parallelism ).getByIds( ids, byIdLoader(ethosProxyClient, resourceName, version, beanClass) );
+    }
+
+    /**
+     * Builds a ByIdLoader that gets records of the given resource as EthosResponses using the EthosProxyClient.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return A ByIdLoader for the resource.
+     */
+    public static ByIdLoader<EthosResponse> byIdLoader( EthosProxyClient ethosProxyClient, String resourceName, String version ) {
+        if( ethosProxyClient == null || resourceName == null ) {
+            throw new IllegalArgumentException( "The ethosProxyClient and resourceName are required." );
+        }
+        String resourceVersion = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+        return id -> ethosProxyClient.getById( resourceName, resourceVersion, id );
+    }
+
+    /**
+     * Builds a ByIdLoader that gets records of the given resource as JavaBeans using the EthosProxyClient.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A ByIdLoader for the resource.
+     */
+    public static <T> ByIdLoader<T> byIdLoader( EthosProxyClient ethosProxyClient, String resourceName, String version, Class<T> beanClass ) {
+        if( beanClass == null ) {
+            throw new IllegalArgumentException( "The beanClass is required." );
+        }
+        ByIdLoader<EthosResponse> responseLoader = byIdLoader( ethosProxyClient, resourceName, version );
+        return id -> EthosJsonSupport.readValue( responseLoader.load(id).getContent(), beanClass );
+    }
+
+    /**
+     * Gets the records with the given ids, making the requests concurrently.  Duplicate and null ids are skipped.
+     * @param ids The ids of the records.
+     * @param byIdLoader Gets one record by id.
+     * @param <T> The type of the records.
+     * @return The record or error of each distinct id, in the order the ids were first given.
+     * @throws IOException Thrown if interrupted while waiting for the requests.
+     */
+    public <T> EthosByIdResults<T> getByIds( Collection<String> ids, ByIdLoader<T> byIdLoader ) throws IOException {
+        if( ids == null || byIdLoader == null ) {
+            throw new IllegalArgumentException( "The ids and byIdLoader are required." );
+        }
+        Set<String> distinctIdSet = new LinkedHashSet<>( ids );
+        distinctIdSet.remove( null );
+        Map<String, T> resultMap = new ConcurrentHashMap<>();
+        Map<String, IOException> errorMap = new ConcurrentHashMap<>();
+        if( !distinctIdSet.isEmpty() ) {
+            fetchAll( distinctIdSet, byIdLoader, resultMap, errorMap );
+        }
+        // Put the results back in the order the ids were given.
+        Map<String, T> orderedResultMap = new LinkedHashMap<>();
+        Map<String, IOException> orderedErrorMap = new LinkedHashMap<>();
+        for( String id : distinctIdSet ) {
+            if( resultMap.containsKey(id) ) {
+                orderedResultMap.put( id, resultMap.get(id) );
+            }
+            else if( errorMap.containsKey(id) ) {
+                orderedErrorMap.put( id, errorMap.get(id) );
+            }
+        }
+        return new EthosByIdResults<>( orderedResultMap, orderedErrorMap );
+    }
+
+    /**
+     * Gets the configured parallelism.
+     * @return The maximum number of requests in flight at the same time.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private <T> void fetchAll( Set<String> idSet, ByIdLoader<T> byIdLoader, Map<String, T> resultMap,
+                               Map<String, IOException> errorMap ) throws IOException {
+        ExecutorService idExecutor = executorService;
+        if( idExecutor == null ) {
+            idExecutor = Executors.newFixedThreadPool( Math.min(parallelism, idSet.size()), runnable -> {
+                Thread thread = new Thread( runnable, "ethos-by-id-fetcher-" + THREAD_COUNT.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            });
+        }
+        Semaphore inFlight = new Semaphore( parallelism );
+        List<Future<?>> futureList = new ArrayList<>( idSet.size() );
+        try {
+            for( String id : idSet ) {
+                inFlight.acquire();
+                try {
+                    futureList.add( idExecutor.submit(() -> {
+                        try {
+                            T result = byIdLoader.load( id );
+                            if( result != null ) {
+                                resultMap.put( id, result );
+                            }
+                            else {
+                                errorMap.put( id, new IOException("No record was returned for id " + id) );
+                            }
+                        }
+                        catch( IOException ioe ) {
+                            errorMap.put( id, ioe );
+                        }
+                        catch( RuntimeException re ) {
+                            errorMap.put( id, new IOException("Failed to get id " + id, re) );
+                        }
+                        finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+                catch( RuntimeException re ) {
+                    inFlight.release();
+                    throw re;
+                }
+            }
+            // Once every permit is back, every request has completed.
+            inFlight.acquire( parallelism );
+            inFlight.release( parallelism );
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            for( Future<?> future : futureList ) {
+                future.cancel( true );
+            }
+            throw new InterruptedIOException( "Interrupted while getting records by id." );
+        }
+        finally {
+            if( idExecutor != executorService ) {
+                idExecutor.shutdownNow();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,238 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Gets all pages of a resource from some offset by fetching the pages concurrently rather than one after another.
+ * <p>
+ * The first page is fetched on the calling thread, and its 'x-total-count' and 'x-max-page-size' headers are used to
+ * calculate the offset of every remaining page.  The remaining pages are then fetched concurrently, with no more than
+ * the configured parallelism in flight at once, and returned in offset order.  Without an 'x-max-page-size' header,
+ * a first page with fewer rows than requested while more rows remain shows the server capped it, so the remaining
+ * offsets step by the rows actually returned.  If the total count is not returned by the resource, the remaining
+ * pages are fetched serially instead.
+ */
+public class EthosParallelPageFetcher {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The parallelism used when none is specified.
+     */
+    public static final int DEFAULT_PARALLELISM = 4;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    private final EthosPageFetcher pageFetcher;
+    private final int parallelism;
+    private final ExecutorService executorService;
+
+    /**
+     * Creates a parallel page fetcher that uses its own threads for each call, up to the given parallelism.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param parallelism The maximum number of pages to fetch at the same time.
+     */
+    public EthosParallelPageFetcher( EthosPageFetcher pageFetcher, int parallelism ) {
+        this( pageFetcher, parallelism, null );
+    }
+
+    /**
+     * Creates a parallel page fetcher that runs the page requests on the given ExecutorService, with no more than the
+     * given parallelism in flight at once.  The ExecutorService is not shut down by this class.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param parallelism The maximum number of pages to fetch at the same time.
+     * @param executorService The ExecutorService to run the page requests on, or null to use threads owned by each call.
+     */
+    public EthosParallelPageFetcher( EthosPageFetcher pageFetcher, int parallelism, ExecutorService executorService ) {
+        if( pageFetcher == null ) {
+            throw new IllegalArgumentException( "The pageFetcher is required." );
+        }
+        if( parallelism < 1 ) {
+            throw new IllegalArgumentException( "The parallelism must be at least 1: " + parallelism );
+        }
+        this.pageFetcher = pageFetcher;
+        this.parallelism = parallelism;
+        this.executorService = executorService;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Convenience method to get all pages of the given resource from some offset using the EthosProxyClient.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start from.
+     * @param pageSize The page size to request, or 0 to use the max page size of the resource.
+     * @param parallelism The maximum number of pages to fetch at the same time.
+     * @return A list of EthosResponses, one per page, in offset order.
+     * @throws IOException Propagates any exception thrown while fetching a page.
+     */
+    public static List<EthosResponse> getAllPagesFromOffset( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                             int offset, int pageSize, int parallelism ) throws IOException {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosProxyClient ).pageFetcher( resourceName, version );
+        return new EthosParallelPageFetcher( pageFetcher, parallelism ).getAllPagesFromOffset( offset, pageSize );
+    }
+
+    /**
+     * Gets all pages from the given offset, fetching them concurrently.
+     * @param offset The offset to start from.
+     * @param pageSize The page size to request, or 0 to use the max page size of the resource.
+     * @return A list of EthosResponses, one per page, in offset order.
+     * @throws IOException Propagates any exception thrown while fetching a page.
+     */
+    public List<EthosResponse> getAllPagesFromOffset( int offset, int pageSize ) throws IOException {
+        return getPages( offset, pageSize, Integer.MAX_VALUE );
+    }
+
+    /**
+     * Gets the pages containing the given number of rows from the given offset, fetching them concurrently.  When the
+     * total count of the resource is known, the last page is requested with only the number of rows remaining, so that
+     * the pages together contain no more than the number of rows requested.
+     * @param offset The offset to start from.
+     * @param pageSize The page size to request, or 0 to use the max page size of the resource.
+     * @param numRows The number of rows to get.
+     * @return A list of EthosResponses, one per page, in offset order.
+     * @throws IOException Propagates any exception thrown while fetching a page.
+     */
+    public List<EthosResponse> getRowsFromOffset( int offset, int pageSize, int numRows ) throws IOException {
+        if( numRows < 1 ) {
+            return new ArrayList<>();
+        }
+        return getPages( offset, pageSize, numRows );
+    }
+
+    /**
+     * Gets the configured parallelism.
+     * @return The maximum number of pages fetched at the same time.
+     */
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    private List<EthosResponse> getPages( int offset, int pageSize, int numRows ) throws IOException {
+        List<EthosResponse> pageList = new ArrayList<>();
+        int firstPageSize = numRows < Integer.MAX_VALUE && (pageSize <= 0 || numRows < pageSize) ? numRows : pageSize;
+        EthosResponse firstPage = pageFetcher.fetchPage( offset, firstPageSize );
+        int firstRowCount = EthosPageHeaders.getRowCount( firstPage, offset, firstPageSize );
+        if( firstRowCount == 0 ) {
+            return pageList;
+        }
+        pageList.add( firstPage );
+
+        int totalCount = EthosPageHeaders.getTotalCount( firstPage );
+        int maxPageSize = EthosPageHeaders.getMaxPageSize( firstPage );
+        int nextOffset = offset + firstRowCount;
+        long requestedEnd = (long) offset + numRows;
+        if( totalCount == EthosPageHeaders.UNKNOWN ) {
+            // Without a total count the offsets cannot be calculated up front, so page serially.
+            EthosPageIterator pageIterator = new EthosPageIterator( pageFetcher, nextOffset, pageSize );
+            while( pageIterator.getOffset() < requestedEnd && pageIterator.hasNext() ) {
+                pageList.add( pageIterator.next() );
+            }
+            return pageList;
+        }
+        int endOffset = (int) Math.min( totalCount, requestedEnd );
+        int stepSize = getStepSize( pageSize, maxPageSize, firstRowCount );
+        if( maxPageSize == EthosPageHeaders.UNKNOWN && firstRowCount < firstPageSize && nextOffset < endOffset ) {
+            // The server returned fewer rows than requested with more to come, so it caps the page size below the
+            // size requested; stepping by the size requested would skip the rows in between.
+            stepSize = Math.min( stepSize, firstRowCount );
+        }
+        List<int[]> rangeList = new ArrayList<>();
+        for( int pageOffset = nextOffset; pageOffset < endOffset; pageOffset += stepSize ) {
+            rangeList.add( new int[] { pageOffset, Math.min(stepSize, endOffset - pageOffset) } );
+        }
+        pageList.addAll( fetchPages(rangeList) );
+        return pageList;
+    }
+
+    private int getStepSize( int pageSize, int maxPageSize, int firstRowCount ) {
+        if( maxPageSize == EthosPageHeaders.UNKNOWN ) {
+            return pageSize > 0 ? pageSize : firstRowCount;
+        }
+        return pageSize > 0 ? Math.min( pageSize, maxPageSize ) : maxPageSize;
+    }
+
+    private List<EthosResponse> fetchPages( List<int[]> rangeList ) throws IOException {
+        if( rangeList.isEmpty() ) {
+            return new ArrayList<>();
+        }
+        ExecutorService pageExecutor = executorService;
+        if( pageExecutor == null ) {
+            pageExecutor = Executors.newFixedThreadPool( Math.min(parallelism, rangeList.size()), runnable -> {
+                Thread thread = new Thread( runnable, "ethos-page-fetcher-" + THREAD_COUNT.incrementAndGet() );
+                thread.setDaemon( true );
+                return thread;
+            });
+        }
+        Semaphore inFlight = new Semaphore( parallelism );
+        List<Future<EthosResponse>> futureList = new ArrayList<>( rangeList.size() );
+        try {
+            for( int[] range : rangeList ) {
+                inFlight.acquire();
+                try {
+                    futureList.add( pageExecutor.submit(() -> {
+                        try {
+                            return pageFetcher.fetchPage( range[0], range[1] );
+                        }
+                        finally {
+                            inFlight.release();
+                        }
+                    }));
+                }
+                catch( RuntimeException re ) {
+                    inFlight.release();
+                    throw re;
+                }
+            }
+            List<EthosResponse> pageList = new ArrayList<>( futureList.size() );
+            for( Future<EthosResponse> future : futureList ) {
+                pageList.add( future.get() );
+            }
+            return pageList;
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while fetching pages." );
+        }
+        catch( ExecutionException | CancellationException e ) {
+            Throwable cause = e.getCause() != null ? e.getCause() : e;
+            if( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            throw new IOException( "Failed to fetch a page.", cause );
+        }
+        finally {
+            for( Future<EthosResponse> future : futureList ) {
+                future.cancel( true );
+            }
+            if( pageExecutor != executorService ) {
+                pageExecutor.shutdownNow();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,415 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.client.messages.EthosMessagesClient;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Consumes change notifications with the next request already made while the current batch is handled.  A background
+ * thread calls consume() from the ID of the last message it fetched and puts each batch into a bounded buffer, so the
+ * network wait of the next batch overlaps the processing of the current one, and a deep queue drains up to twice as
+ * fast as calling consume() and then processing the list.
+ * <p>
+ * The buffer holds at most the given number of batches.  When it is full the background thread waits, so memory use
+ * is bounded however deep the queue is.  When the queue is empty the thread waits the idle delay before asking again.
+ * <p>
+ * Note that consuming from an ID tells the message queue that every message up to it has been processed, so each
+ * prefetched batch is acknowledged before the caller handles it.  If the process stops, the batches still in the
+ * buffer are not delivered again.  Keep the buffer small, and use getLastProcessedId() rather than the queue to know
+ * how far the caller actually got.
+ * <p>
+ * Given an EthosCheckpointStore, the consumer starts from the last processed ID saved for the API key and saves it
+ * again each time the caller finishes with a batch.  Because of the acknowledgement above, a restart does not resume
+ * exactly where the caller left off: the queue has already handed out everything up to the last ID fetched, so up to
+ * bufferCapacity + 1 batches that were fetched but not finished (the buffered batches and the one being handled) are
+ * lost.  The checkpoint still shows how far the caller got, so the lost range of message IDs is known.  Where no
+ * message may be lost, call consume() from the last processed ID directly instead of prefetching.
+ */
+public class EthosPrefetchingMessageConsumer implements Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default number of change notifications requested at once.
+     */
+    public static final int DEFAULT_BATCH_SIZE = 20;
+
+    /**
+     * The default number of batches held in the buffer.
+     */
+    public static final int DEFAULT_BUFFER_CAPACITY = 2;
+
+    /**
+     * The default time in milliseconds to wait before asking again when the queue is empty or a request fails.
+     */
+    public static final long DEFAULT_IDLE_DELAY_MILLIS = 1000;
+
+    private static final AtomicInteger THREAD_COUNT = new AtomicInteger();
+
+    // How often a thread waiting on the buffer checks whether the consumer has been closed.
+    private static final long CLOSE_CHECK_MILLIS = 100;
+
+    private final MessageFetcher messageFetcher;
+    private final EthosCheckpointStore checkpointStore;
+    private final String apiKey;
+    private final int batchSize;
+    private final long idleDelayMillis;
+    private final BlockingQueue<FetchedBatch> bufferQueue;
+    private final Thread prefetchThread;
+    private volatile boolean running = true;
+    private volatile long lastFetchedId;
+    private volatile long lastProcessedId;
+    private long lastTakenId;
+    private final AtomicLong fetchedBatchCount = new AtomicLong();
+    private final AtomicLong fetchedMessageCount = new AtomicLong();
+    private final AtomicLong emptyFetchCount = new AtomicLong();
+    private final AtomicLong failedFetchCount = new AtomicLong();
+    private final AtomicLong consumerWaitNanos = new AtomicLong();
+
+    /**
+     * Consumes a batch of change notifications from the message queue.  EthosMessagesClient.consume(int, long) is one,
+     * and the benchmarks module provides one for the MockEthosServer.
+     */
+    @FunctionalInterface
+    public interface MessageFetcher {
+        /**
+         * Consumes up to the given number of change notifications after the given message ID.
+         * @param limit The maximum number of change notifications to return.
+         * @param lastProcessedId The ID of the last message processed.
+         * @return The change notifications, which may be empty.
+         * @throws IOException Thrown if the request fails.
+         */
+        List<ChangeNotification> consume( int limit, long lastProcessedId ) throws IOException;
+    }
+
+    /**
+     * A batch fetched by the background thread, or the error of a failed request.
+     */
+    private static final class FetchedBatch {
+        private final List<ChangeNotification> notificationList;
+        private final long lastId;
+        private final IOException error;
+
+        private FetchedBatch( List<ChangeNotification> notificationList, long lastId, IOException error ) {
+            this.notificationList = notificationList;
+            this.lastId = lastId;
+            this.error = error;
+        }
+    }
+
+    /**
+     * Creates a consumer using the default batch size, buffer capacity and idle delay, and starts prefetching.
+     * @param ethosMessagesClient The EthosMessagesClient used to consume the change notifications.
+     * @param lastProcessedId The ID of the last message processed, or 0 to start from the current position of the queue.
+     */
+    public EthosPrefetchingMessageConsumer( EthosMessagesClient ethosMessagesClient, long lastProcessedId ) {
+        this( ethosMessagesClient, lastProcessedId, DEFAULT_BATCH_SIZE, DEFAULT_BUFFER_CAPACITY, DEFAULT_IDLE_DELAY_MILLIS );
+    }
+
+    /**
+     * Creates a consumer and starts prefetching.
+     * @param ethosMessagesClient The EthosMessagesClient used to consume the change notifications.
+     * @param lastProcessedId The ID of the last message processed, or 0 to start from the current position of the queue.
+     * @param batchSize The number of change notifications requested at once.
+     * @param bufferCapacity The maximum number of batches held in the buffer.
+     * @param idleDelayMillis The time in milliseconds to wait before asking again when the queue is empty or a request fails.
+     */
+    public EthosPrefetchingMessageConsumer( EthosMessagesClient ethosMessagesClient, long lastProcessedId, int batchSize,
+                                            int bufferCapacity, long idleDelayMillis ) {
+        this( toMessageFetcher(ethosMessagesClient), null, null, lastProcessedId, batchSize, bufferCapacity, idleDelayMillis );
+    }
+
+    /**
+     * Creates a consumer that consumes through the given MessageFetcher, and starts prefetching.
+     * @param messageFetcher Consumes each batch of change notifications.
+     * @param lastProcessedId The ID of the last message processed, or 0 to start from the current position of the queue.
+     * @param batchSize The number of change notifications requested at once.
+     * @param bufferCapacity The maximum number of batches held in the buffer.
+     * @param idleDelayMillis The time in milliseconds to wait before asking again when the queue is empty or a request fails.
+     */
+    public EthosPrefetchingMessageConsumer( MessageFetcher messageFetcher, long lastProcessedId, int batchSize, int bufferCapacity,
+                                            long idleDelayMillis ) {
+        this( messageFetcher, null, null, lastProcessedId, batchSize, bufferCapacity, idleDelayMillis );
+    }
+
+    /**
+     * Creates a consumer that starts from the last processed ID saved in the given store for the API key, using the
+     * default batch size, buffer capacity and idle delay, and starts prefetching.
+     * @param ethosMessagesClient The EthosMessagesClient used to consume the change notifications.
+     * @param checkpointStore The store of the last processed ID.
+     * @param apiKey The API key of the message queue.
+     * @throws IOException Thrown if the last processed ID cannot be read from the store.
+     */
+    public EthosPrefetchingMessageConsumer( EthosMessagesClient ethosMessagesClient, EthosCheckpointStore checkpointStore,
+                                            String apiKey ) throws IOException {
+        this( toMessageFetcher(ethosMessagesClient), checkpointStore, apiKey, getCheckpoint(checkpointStore, apiKey), DEFAULT_BATCH_SIZE,
+              DEFAULT_BUFFER_CAPACITY, DEFAULT_IDLE_DELAY_MILLIS );
+    }
+
+    private EthosPrefetchingMessageConsumer( MessageFetcher messageFetcher, EthosCheckpointStore checkpointStore, String apiKey,
+                                             long lastProcessedId, int batchSize, int bufferCapacity, long idleDelayMillis ) {
+        if( messageFetcher == null ) {
+            throw new IllegalArgumentException( "The messageFetcher is required." );
+        }
+        if( lastProcessedId < 0 || batchSize < 1 || bufferCapacity < 1 || idleDelayMillis < 0 ) {
+            throw new IllegalArgumentException( "The batchSize and bufferCapacity must be positive, and the lastProcessedId and idleDelayMillis cannot be negative." );
+        }
+        this.messageFetcher = messageFetcher;
+        this.checkpointStore = checkpointStore;
+        this.apiKey = apiKey;
+        this.batchSize = batchSize;
+        this.idleDelayMillis = idleDelayMillis;
+        this.bufferQueue = new ArrayBlockingQueue<>( bufferCapacity );
+        this.lastFetchedId = lastProcessedId;
+        this.lastProcessedId = lastProcessedId;
+        this.lastTakenId = lastProcessedId;
+        this.prefetchThread = new Thread( this::prefetch, "ethos-message-prefetch-" + THREAD_COUNT.incrementAndGet() );
+        this.prefetchThread.setDaemon( true );
+        this.prefetchThread.start();
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the next batch of change notifications, waiting for one to be fetched if the buffer is empty.  Asking for
+     * the next batch marks the previous batch as processed.
+     * @return The next batch, which is never empty.
+     * @throws IOException Thrown if the request for the batch failed, or interrupted while waiting.  The request is
+     * retried after the idle delay, so the next call may succeed.  Also thrown once the consumer has been closed and
+     * the batches left in the buffer have been taken, including while waiting.
+     */
+    public List<ChangeNotification> take() throws IOException {
+        while( true ) {
+            List<ChangeNotification> notificationList = poll( idleDelayMillis + 1000, TimeUnit.MILLISECONDS );
+            if( notificationList != null ) {
+                return notificationList;
+            }
+        }
+    }
+
+    /**
+     * Gets the next batch of change notifications, waiting up to the given time for one to be fetched if the buffer
+     * is empty.  Asking for the next batch marks the previous batch as processed.
+     * @param timeout The longest time to wait.
+     * @param unit The unit of the timeout.
+     * @return The next batch, which is never empty, or null if none was fetched in time.
+     * @throws IOException Thrown if the request for the batch failed, the last processed ID could not be saved, or
+     * interrupted while waiting.  The request is retried after the idle delay, so the next call may succeed.  Also
+     * thrown once the consumer has been closed and the batches left in the buffer have been taken, including while
+     * waiting.
+     */
+    public synchronized List<ChangeNotification> poll( long timeout, TimeUnit unit ) throws IOException {
+        if( !running && bufferQueue.isEmpty() ) {
+            throw new IOException( "The consumer has been closed." );
+        }
+        // The caller is asking for more, so it has finished with the batch it took last.
+        if( lastProcessedId != lastTakenId ) {
+            if( checkpointStore != null ) {
+                checkpointStore.saveLastProcessedId( apiKey, lastTakenId );
+            }
+            lastProcessedId = lastTakenId;
+        }
+        long startNanos = System.nanoTime();
+        long deadlineNanos = startNanos + unit.toNanos( timeout );
+        FetchedBatch fetchedBatch;
+        try {
+            // Wait in short steps, so a close while waiting is noticed rather than waiting out the whole timeout.
+            while( true ) {
+                long remainingNanos = deadlineNanos - System.nanoTime();
+                fetchedBatch = bufferQueue.poll( Math.min(remainingNanos, TimeUnit.MILLISECONDS.toNanos(CLOSE_CHECK_MILLIS)), TimeUnit.NANOSECONDS );
+                if( fetchedBatch != null || remainingNanos <= 0 ) {
+                    break;
+                }
+                if( !running && bufferQueue.isEmpty() ) {
+                    throw new IOException( "The consumer has been closed." );
+                }
+            }
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for change notifications." );
+        }
+        finally {
+            consumerWaitNanos.addAndGet( System.nanoTime() - startNanos );
+        }
+        if( fetchedBatch == null ) {
+            return null;
+        }
+        if( fetchedBatch.error != null ) {
+            throw fetchedBatch.error;
+        }
+        lastTakenId = fetchedBatch.lastId;
+        return fetchedBatch.notificationList;
+    }
+
+    /**
+     * Gets the ID of the last message of the last batch the caller finished with, that is the batch taken before the
+     * most recent take() or poll().  Persist this to resume from it after a restart.
+     * @return The last processed ID.
+     */
+    public long getLastProcessedId() {
+        return lastProcessedId;
+    }
+
+    /**
+     * Gets the ID of the last message fetched by the background thread, which the queue treats as processed.
+     * @return The last fetched ID.
+     */
+    public long getLastFetchedId() {
+        return lastFetchedId;
+    }
+
+    /**
+     * Gets the number of batches waiting in the buffer.
+     * @return The buffered batch count.
+     */
+    public int getBufferedBatchCount() {
+        return bufferQueue.size();
+    }
+
+    /**
+     * Gets the number of non-empty batches fetched.
+     * @return The fetched batch count.
+     */
+    public long getFetchedBatchCount() {
+        return fetchedBatchCount.get();
+    }
+
+    /**
+     * Gets the number of change notifications fetched.
+     * @return The fetched message count.
+     */
+    public long getFetchedMessageCount() {
+        return fetchedMessageCount.get();
+    }
+
+    /**
+     * Gets the number of requests that found the queue empty.
+     * @return The empty fetch count.
+     */
+    public long getEmptyFetchCount() {
+        return emptyFetchCount.get();
+    }
+
+    /**
+     * Gets the number of requests that failed.
+     * @return The failed fetch count.
+     */
+    public long getFailedFetchCount() {
+        return failedFetchCount.get();
+    }
+
+    /**
+     * Gets the total time the caller spent waiting for a batch.  When this stays low the processing, not the network,
+     * is what limits the drain rate.
+     * @return The wait time in milliseconds.
+     */
+    public long getConsumerWaitMillis() {
+        return TimeUnit.NANOSECONDS.toMillis( consumerWaitNanos.get() );
+    }
+
+    /**
+     * Stops prefetching.  Batches already in the buffer can still be taken, and a caller waiting on an empty buffer
+     * gets an IOException.
+     */
+    @Override
+    public void close() {
+        running = false;
+        prefetchThread.interrupt();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosPrefetchingMessageConsumer[lastProcessedId=%s, lastFetchedId=%s, buffered=%s, batches=%s, messages=%s, emptyFetches=%s, failedFetches=%s, consumerWaitMillis=%s]",
+                              getLastProcessedId(), getLastFetchedId(), getBufferedBatchCount(), getFetchedBatchCount(), getFetchedMessageCount(),
+                              getEmptyFetchCount(), getFailedFetchCount(), getConsumerWaitMillis() );
+    }
+
+    private void prefetch() {
+        try {
+            while( running ) {
+                FetchedBatch fetchedBatch;
+                try {
+                    List<ChangeNotification> notificationList = messageFetcher.consume( batchSize, lastFetchedId );
+                    if( notificationList == null || notificationList.isEmpty() ) {
+                        emptyFetchCount.incrementAndGet();
+                        Thread.sleep( idleDelayMillis );
+                        continue;
+                    }
+                    fetchedBatch = new FetchedBatch( notificationList, getLastId(notificationList), null );
+                    lastFetchedId = fetchedBatch.lastId;
+                    fetchedBatchCount.incrementAndGet();
+                    fetchedMessageCount.addAndGet( notificationList.size() );
+                    // Waits here while the buffer is full, which is what bounds memory use.
+                    if( !offer(fetchedBatch) ) {
+                        return;
+                    }
+                }
+                catch( IOException | RuntimeException e ) {
+                    failedFetchCount.incrementAndGet();
+                    IOException error = (e instanceof IOException) ? (IOException) e : new IOException( "Failed to consume change notifications.", e );
+                    if( !offer(new FetchedBatch(null, lastFetchedId, error)) ) {
+                        return;
+                    }
+                    Thread.sleep( idleDelayMillis );
+                }
+            }
+        }
+        catch( InterruptedException ie ) {
+            // Closed while waiting, so stop prefetching.
+        }
+    }
+
+    private boolean offer( FetchedBatch fetchedBatch ) throws InterruptedException {
+        // Not put(), since the interrupt from close() can be swallowed by a blocking request and never reach the wait.
+        while( running ) {
+            if( bufferQueue.offer(fetchedBatch, CLOSE_CHECK_MILLIS, TimeUnit.MILLISECONDS) ) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static MessageFetcher toMessageFetcher( EthosMessagesClient ethosMessagesClient ) {
+        if( ethosMessagesClient == null ) {
+            throw new IllegalArgumentException( "The ethosMessagesClient is required." );
+        }
+        return ethosMessagesClient::consume;
+    }
+
+    private static long getCheckpoint( EthosCheckpointStore checkpointStore, String apiKey ) throws IOException {
+        if( checkpointStore == null || apiKey == null ) {
+            throw new IllegalArgumentException( "The checkpointStore and apiKey are required." );
+        }
+        return checkpointStore.getLastProcessedId( apiKey );
+    }
+
+    private long getLastId( List<ChangeNotification> notificationList ) throws IOException {
+        String lastId = notificationList.get( notificationList.size() - 1 ).getId();
+        try {
+            return Long.parseLong( lastId );
+        }
+        catch( NumberFormatException nfe ) {
+            throw new IOException( "The change notification has an invalid message ID: " + lastId, nfe );
+        }
+    }
+
+}
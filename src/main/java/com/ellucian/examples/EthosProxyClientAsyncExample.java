@@ -10,14 +10,18 @@ import com.ellucian.ethos.integration.client.EthosResponse;
 import com.ellucian.ethos.integration.client.proxy.EthosProxyClientAsync;
 import com.ellucian.generated.eedm.student_cohorts.v7_2_0.StudentCohorts;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.CompletionException;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
 
 /**
  * This is an example class that shows how to use the EthosProxyClientAsync for asynchronous handling of the responses
@@ -53,6 +57,9 @@ public class EthosProxyClientAsyncExample {
         ethosProxyClientExample.doGetAllPagesFromOffsetAsStringsAsyncExample();
         ethosProxyClientExample.doGetRowsFromOffsetAsyncExample();
         ethosProxyClientExample.doGetRowsFromOffsetAsJavaBeansAsyncExample();
+        ethosProxyClientExample.doGetAllPagesFromOffsetBoundedAsyncExample();
+        ethosProxyClientExample.doGetAllPagesFromOffsetPublisherExample();
+        ethosProxyClientExample.doGetByIdsBoundedAsyncExample();
     }
 
     /**
@@ -67,6 +74,24 @@ public class EthosProxyClientAsyncExample {
                 .buildEthosProxyAsyncClient();
     }
 
+    /**
+     * This is an example of building a BoundedEthosProxyClientAsync, which runs its requests on a dedicated executor
+     * instead of the common ForkJoinPool, with a limit on the number of requests in flight for the client.
+     * On JDK 21+, withVirtualThreads() can be used instead of withExecutor() to run each request on a virtual thread.
+     * @param executorService The executor to run the requests on.
+     * @return a BoundedEthosProxyClientAsync client.
+     */
+    private BoundedEthosProxyClientAsync getBoundedEthosProxyClientAsync( ExecutorService executorService ) {
+        EthosClientBuilder ethosClientBuilder = new EthosClientBuilder(apiKey)
+                                                .withConnectionTimeout(30)
+                                                .withConnectionRequestTimeout(30)
+                                                .withSocketTimeout(30);
+        return new BoundedEthosProxyClientAsync.Builder(ethosClientBuilder)
+                   .withExecutor(executorService)
+                   .withMaxInFlightRequests(4)
+                   .build();
+    }
+
     /**
      * This is an example of how to get all pages from some offset asynchronously.
      */
@@ -78,7 +103,6 @@ public class EthosProxyClientAsyncExample {
             int totalCount = ethosProxyClientAsync.getTotalCount( resourceName );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
-            ObjectMapper objectMapper = new ObjectMapper();
 
             // Wait on the result with exception handling
             CompletableFuture<List<EthosResponse>> asyncResponse = ethosProxyClientAsync.getAllPagesFromOffsetAsync( resourceName, offset );
@@ -106,7 +130,7 @@ public class EthosProxyClientAsyncExample {
                 // This reads the response body content JSON string into a Jackson library JsonNode, while enabling the use of
                 // the EthosResponse containing helpful info like the requested URL below.  To return only the response bodies
                 // for each page directly as JsonNodes, use ethosProxyClientAsync.getAllPagesFromOffsetAsJsonNodesAsync().
-                JsonNode jsonNode = objectMapper.readTree( ethosResponseList.get(i).getContent() );
+                JsonNode jsonNode = EthosJsonSupport.readTree( ethosResponseList.get(i).getContent() );
                 System.out.println( String.format("PAGE %s: %s", (i+1), ethosResponseList.get(i).getContent()) );
                 System.out.println( String.format("PAGE %s SIZE: %s", (i+1), jsonNode.size()) );
                 System.out.println( String.format("OFFSET: %s", offset) );
@@ -185,7 +209,6 @@ public class EthosProxyClientAsyncExample {
             int totalCount = ethosProxyClientAsync.getTotalCount( resourceName );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
-            ObjectMapper objectMapper = new ObjectMapper();
 
             CompletableFuture<List<String>> asyncResponse = ethosProxyClientAsync.getAllPagesFromOffsetAsStringsAsync(resourceName, offset);
 
@@ -212,7 +235,7 @@ public class EthosProxyClientAsyncExample {
                 // This reads the response body content JSON string into a Jackson library JsonNode, while enabling the use of
                 // the EthosResponse containing helpful info like the requested URL below.  To return only the response bodies
                 // for each page directly as JsonNodes, use ethosProxyClientAsync.getAllPagesFromOffsetAsJsonNodesAsync().
-                JsonNode jsonNode = objectMapper.readTree( stringList.get(i) );
+                JsonNode jsonNode = EthosJsonSupport.readTree( stringList.get(i) );
                 System.out.println( String.format("PAGE %s: %s", (i+1), stringList.get(i)) );
                 System.out.println( String.format("PAGE %s SIZE: %s", (i+1), jsonNode.size()) );
                 System.out.println( String.format("OFFSET: %s", offset) );
@@ -325,4 +348,123 @@ public class EthosProxyClientAsyncExample {
         }
     }
 
+    /**
+     * This is an example of how to get all pages from some offset asynchronously using a BoundedEthosProxyClientAsync.
+     * The pages are fetched concurrently on the given executor, with no more than 4 requests in flight at a time,
+     * so the application's own CPU-bound work on the common ForkJoinPool is not competing with the paging requests.
+     */
+    public void doGetAllPagesFromOffsetBoundedAsyncExample() {
+        System.out.println( "******* doGetAllPagesFromOffsetBoundedAsyncExample() *******" );
+        ExecutorService executorService = Executors.newFixedThreadPool( 4 );
+        try( BoundedEthosProxyClientAsync boundedEthosProxyClientAsync = getBoundedEthosProxyClientAsync(executorService) ) {
+            String resourceName = "student-cohorts";
+            int totalCount = boundedEthosProxyClientAsync.getTotalCountAsync( resourceName ).join();
+            // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
+            int offset = (int)(totalCount * 0.95);
+            CompletableFuture<List<EthosResponse>> asyncResponse = boundedEthosProxyClientAsync.getAllPagesFromOffsetAsync( resourceName, offset );
+
+            // Other processing can happen here while the pages are fetched.
+            System.out.println( String.format("REQUESTS IN FLIGHT: %s of max %s", boundedEthosProxyClientAsync.getInFlightRequests(),
+                                              boundedEthosProxyClientAsync.getMaxInFlightRequests()) );
+
+            List<EthosResponse> ethosResponseList = asyncResponse.join();
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            System.out.println( String.format("OFFSET: %s", offset) );
+            for( int i = 0; i < ethosResponseList.size(); i++ ) {
+                System.out.println( String.format("PAGE %s REQUESTED URL: %s ", (i+1), ethosResponseList.get(i).getRequestedUrl()) );
+            }
+        } catch (CompletionException ce) {
+            ce.printStackTrace();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * This is an example of how to receive each page as soon as it is fetched, rather than waiting on one
+     * CompletableFuture for the whole list of pages.  The pages are published through a Flow.Publisher, and the
+     * subscriber requests one page at a time, so the next page is fetched while the current page is being handled,
+     * and the first rows are available as soon as the first page arrives.
+     */
+    public void doGetAllPagesFromOffsetPublisherExample() {
+        System.out.println( "******* doGetAllPagesFromOffsetPublisherExample() *******" );
+        ExecutorService executorService = Executors.newFixedThreadPool( 4 );
+        try( BoundedEthosProxyClientAsync boundedEthosProxyClientAsync = getBoundedEthosProxyClientAsync(executorService) ) {
+            String resourceName = "student-cohorts";
+            int totalCount = boundedEthosProxyClientAsync.getTotalCountAsync( resourceName ).join();
+            // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
+            int offset = (int)(totalCount * 0.95);
+            int pageSize = 15;
+            CountDownLatch completed = new CountDownLatch( 1 );
+            Flow.Publisher<EthosResponse> publisher = boundedEthosProxyClientAsync.getAllPagesFromOffsetPublisher( resourceName, null, offset, pageSize );
+            publisher.subscribe( new Flow.Subscriber<EthosResponse>() {
+                private Flow.Subscription subscription;
+                private int pageNum;
+
+                @Override
+                public void onSubscribe( Flow.Subscription subscription ) {
+                    this.subscription = subscription;
+                    // Request one page at a time, so no more pages are fetched than can be handled.
+                    subscription.request( 1 );
+                }
+
+                @Override
+                public void onNext( EthosResponse ethosResponse ) {
+                    pageNum++;
+                    System.out.println( String.format("%s PAGE %s REQUESTED URL: %s ", LocalDateTime.now(), pageNum, ethosResponse.getRequestedUrl()) );
+                    subscription.request( 1 );
+                }
+
+                @Override
+                public void onError( Throwable throwable ) {
+                    throwable.printStackTrace();
+                    completed.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    System.out.println( String.format("NUM PAGES: %s", pageNum) );
+                    completed.countDown();
+                }
+            });
+            // Other processing could happen here, this only waits so the example does not exit before all pages are handled.
+            completed.await();
+        } catch (CompletionException ce) {
+            ce.printStackTrace();
+        } catch (InterruptedException ie) {
+            Thread.currentThread().interrupt();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
+    /**
+     * This is an example of how to get a batch of resources by ID (GUID) asynchronously using a
+     * BoundedEthosProxyClientAsync.  The GUIDs are taken from a page of the resource, and the getById requests are
+     * made concurrently within the in-flight limit of the client while the calling thread is free for other work.
+     */
+    public void doGetByIdsBoundedAsyncExample() {
+        System.out.println( "******* doGetByIdsBoundedAsyncExample() *******" );
+        ExecutorService executorService = Executors.newFixedThreadPool( 4 );
+        try( BoundedEthosProxyClientAsync boundedEthosProxyClientAsync = getBoundedEthosProxyClientAsync(executorService) ) {
+            String resourceName = "student-cohorts";
+            String version = "application/vnd.hedtech.integration.v7.2.0+json";
+            List<String> guidList = new ArrayList<>();
+            for( JsonNode row : EthosJsonSupport.readTree(boundedEthosProxyClientAsync.getEthosProxyClient().get(resourceName, version, 0, 20)) ) {
+                guidList.add( row.path("id").asText() );
+            }
+            CompletableFuture<EthosByIdResults<StudentCohorts>> asyncResponse = boundedEthosProxyClientAsync.getByIdsAsync( resourceName, version, guidList, StudentCohorts.class );
+
+            // Other processing can happen here while the records are fetched.
+            EthosByIdResults<StudentCohorts> byIdResults = asyncResponse.join();
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            System.out.println( String.format("RESULTS: %s, ERRORS: %s", byIdResults.getResults().size(), byIdResults.getErrors().size()) );
+            byIdResults.getResults().forEach( (guid, studentCohorts) -> System.out.println(String.format("RESOURCE ID: %s, RESPONSE: %s", guid, studentCohorts)) );
+        } catch (IOException | CompletionException e) {
+            e.printStackTrace();
+        } finally {
+            executorService.shutdown();
+        }
+    }
+
 }
@@ -6,7 +6,6 @@
 package com.ellucian.examples;
 
 
-import com.ellucian.ethos.integration.client.EthosClientBuilder;
 import com.ellucian.ethos.integration.client.EthosResponse;
 import com.ellucian.ethos.integration.client.EthosResponseConverter;
 import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
@@ -15,17 +14,23 @@ import com.ellucian.generated.eedm.person_holds.v6_0.PersonHolds;
 import com.ellucian.generated.eedm.person_holds.v6_0.Type;
 import com.ellucian.generated.eedm.student_cohorts.v7_2_0.StudentCohorts;
 import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import com.fasterxml.jackson.databind.node.JsonNodeFactory;
 import com.fasterxml.jackson.databind.node.ObjectNode;
 import org.apache.http.Header;
 import org.apache.http.client.HttpResponseException;
 
 import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.Date;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * This is an example class that shows how to use the EthosProxyClient to interact with the Ethos proxy service for
@@ -64,6 +69,8 @@ public class EthosProxyClientExample {
         ethosProxyClientExample.doGetResourceByIdAsStringExample();
         ethosProxyClientExample.doGetResourceByIdAsJsonNodeExample();
         ethosProxyClientExample.doGetResourceByIdAsJavaBeanExample();
+        ethosProxyClientExample.doGetResourceByIdFromCacheExample();
+        ethosProxyClientExample.doGetResourcesByIdsAsJavaBeansExample();
         ethosProxyClientExample.doGetResourcePageSizeExample();
         ethosProxyClientExample.doGetResourceMaxPageSizeExample();
         ethosProxyClientExample.doGetResourceExample();
@@ -82,10 +89,18 @@ public class EthosProxyClientExample {
         ethosProxyClientExample.doGetAllPagesAsStringsExample();
         ethosProxyClientExample.doGetAllPagesAsJsonNodesExample();
         *************************************************************/
+        ethosProxyClientExample.doStreamAllPagesExample();
+        ethosProxyClientExample.doStreamAllPagesAsJsonNodesExample();
+        ethosProxyClientExample.doStreamAllPagesAsJavaBeansExample();
+        ethosProxyClientExample.doStreamRecordsAsJavaBeansExample();
+        ethosProxyClientExample.doStreamAllPagesAdaptivelyExample();
         ethosProxyClientExample.doGetAllPagesFromOffsetExample();
         ethosProxyClientExample.doGetAllPagesFromOffsetAsStringsExample();
         ethosProxyClientExample.doGetAllPagesFromOffsetAsJsonNodesExample();
         ethosProxyClientExample.doGetAllPagesFromOffsetAsJavaBeansExample();
+        ethosProxyClientExample.doGetAllPagesFromOffsetInParallelExample();
+        ethosProxyClientExample.doGetAllPagesFromOffsetSpilledExample();
+        ethosProxyClientExample.doExportAllPagesExample();
         ethosProxyClientExample.doGetPagesExample();
         ethosProxyClientExample.doGetPagesAsStringsExample();
         ethosProxyClientExample.doGetPagesAsJsonNodesExample();
@@ -106,22 +121,22 @@ public class EthosProxyClientExample {
         ethosProxyClientExample.doGetResourceMaxPageSizeExample();
         ethosProxyClientExample.doPostPutUsingJsonNodeExample();
         ethosProxyClientExample.doPostPutUsingJavaBeansExample();
+        // Show how many clients were built, and how many times the shared client was reused instead.
+        System.out.println( SharedEthosClients.forApiKey( apiKey ).toString() );
     }
 
 
     /**
-     * This is an example of how to build an EthosProxyClient client with the given API key.
+     * This is an example of how to get an EthosProxyClient client for the given API key.  The client is shared by
+     * all of the example methods through SharedEthosClients.
      * @return An EthosProxyClient client.
      */
     private EthosProxyClient getEthosProxyClient() {
-        return new EthosClientBuilder(apiKey)
-                   .withConnectionTimeout(30)
-                   .withConnectionRequestTimeout(30)
-                   .withSocketTimeout(30)
-                   .buildEthosProxyClient();
+        return SharedEthosClients.forApiKey( apiKey ).getEthosProxyClient();
     }
 
 
+
     /**
      * This is just a utility method called by the various example methods for printing EthosResponse header values.
      * @param ethosResponse
@@ -167,11 +182,10 @@ public class EthosProxyClientExample {
     public void doGetResourceAsStringExample() {
         EthosProxyClient ethosProxyClient = getEthosProxyClient();
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
             String resourceName = "student-cohorts";
             String response = ethosProxyClient.getAsString(resourceName);
-            // Using an objectMapper to convert the string response body to JsonNode.
-            JsonNode jsonNode = objectMapper.readTree( response );
+            // Using the shared EthosJsonSupport to convert the string response body to JsonNode.
+            JsonNode jsonNode = EthosJsonSupport.readTree( response );
             System.out.println( "******* doGetResourceAsStringExample() *******" );
             System.out.println(String.format("Get data for resource: %s", resourceName));
             System.out.println("getAsString() PAGE SIZE: " + jsonNode.size());
@@ -251,12 +265,11 @@ public class EthosProxyClientExample {
     public void doGetResourceFromOffsetAsStringExample() {
         EthosProxyClient ethosProxyClient = getEthosProxyClient();
         try {
-            ObjectMapper objectMapper = new ObjectMapper();
             String resourceName = "student-cohorts";
             int offset = 20;
             String response = ethosProxyClient.getFromOffsetAsString( resourceName, offset );
-            // Using an objectMapper to convert the response into a JsonNode.
-            JsonNode jsonNode = objectMapper.readTree( response );
+            // Using the shared EthosJsonSupport to convert the response into a JsonNode.
+            JsonNode jsonNode = EthosJsonSupport.readTree( response );
             System.out.println( "******* doGetResourceFromOffsetAsStringExample() *******" );
             System.out.println(String.format("Get data for resource: %s", resourceName));
             System.out.println("getFromOffsetAsString() PAGE SIZE: " + jsonNode.size());
@@ -394,12 +407,11 @@ public class EthosProxyClientExample {
 //        try {
 //            String resourceName = "student-cohorts";
 //            int pageSize = 15;
-//            ObjectMapper objectMapper = new ObjectMapper();
 //            List<String> stringList = ethosProxyClient.getAllPagesAsStrings( resourceName, pageSize );
 //            System.out.println( "******* doGetAllPagesAsStringsExample() *******" );
 //            System.out.println(String.format("Get data for resource: %s", resourceName));
 //            for( int i = 0; i < stringList.size(); i++ ) {
-//                JsonNode jsonNode = objectMapper.readTree( stringList.get(i) );
+//                JsonNode jsonNode = EthosJsonSupport.readTree( stringList.get(i) );
 //                System.out.println( String.format("PAGE %s: %s", (i+1), stringList.get(i)) );
 //                System.out.println( String.format("PAGE %s SIZE: %s", (i+1), jsonNode.size()) );
 //            }
@@ -429,6 +441,131 @@ public class EthosProxyClientExample {
 //        }
 //    }
 
+    /**
+     * This example streams all pages with the specified page size for the given resource.  Unlike getAllPages(),
+     * each page is only requested when the stream pulls it, so only one page is held in memory at a time no matter
+     * how many rows the resource has.  This example stops after the first few pages using limit(), and the remaining
+     * pages are never requested.
+     */
+    public void doStreamAllPagesExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        try {
+            String resourceName = "student-cohorts";
+            int pageSize = 15;
+            EthosResponseConverter ethosResponseConverter = new EthosResponseConverter();
+            System.out.println( "******* doStreamAllPagesExample() *******" );
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            Iterator<EthosResponse> pageIterator = EthosPageStreams.streamAllPages( ethosProxyClient, resourceName, pageSize )
+                                                                   .limit( 3 )
+                                                                   .iterator();
+            int pageNum = 0;
+            while( pageIterator.hasNext() ) {
+                EthosResponse ethosResponse = pageIterator.next();
+                pageNum++;
+                JsonNode jsonNode = ethosResponseConverter.toJsonNode( ethosResponse );
+                System.out.println( String.format("PAGE %s: %s", pageNum, ethosResponse.getContent()) );
+                System.out.println( String.format("PAGE %s SIZE: %s", pageNum, jsonNode.size()) );
+                System.out.println( String.format("PAGE %s REQUESTED URL: %s ", pageNum, ethosResponse.getRequestedUrl()) );
+            }
+        } catch (IOException | UncheckedIOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This example streams all pages as JsonNodes for the given resource, counting the rows of every page without
+     * ever holding more than one page in memory.
+     */
+    public void doStreamAllPagesAsJsonNodesExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        try {
+            String resourceName = "student-cohorts";
+            int pageSize = 15;
+            System.out.println( "******* doStreamAllPagesAsJsonNodesExample() *******" );
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            int rowCount = EthosPageStreams.streamAllPagesAsJsonNodes( ethosProxyClient, resourceName, pageSize )
+                                           .mapToInt( JsonNode::size )
+                                           .sum();
+            System.out.println( String.format("NUM ROWS: %s", rowCount) );
+        } catch (UncheckedIOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This example streams all pages for the given resource from some calculated offset as lists of JavaBeans.
+     */
+    public void doStreamAllPagesAsJavaBeansExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        try {
+            String resourceName = "student-cohorts";
+            String version = "application/vnd.hedtech.integration.v7.2.0+json";
+            int pageSize = 15;
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, version );
+            // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
+            int offset = (int)(totalCount * 0.95);
+            System.out.println( "******* doStreamAllPagesAsJavaBeansExample() *******" );
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            System.out.println( String.format("OFFSET: %s", offset) );
+            EthosPageStreams.streamAllPagesFromOffset( ethosProxyClient, resourceName, version, offset, pageSize, StudentCohorts.class )
+                            .flatMap( List::stream )
+                            .forEach( studentCohorts -> System.out.println("ROW: " + studentCohorts.toString()) );
+        } catch (IOException | UncheckedIOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This example streams the individual records of the given resource as JavaBeans with EthosRecordStreams.  Each
+     * page is parsed one record at a time, so only a single StudentCohorts JavaBean is held in memory at a time rather
+     * than a list of the whole page.  Pages are only requested as the stream needs them, so limiting the stream also
+     * limits the number of requests made.
+     */
+    public void doStreamRecordsAsJavaBeansExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        String resourceName = "student-cohorts";
+        String version = "application/vnd.hedtech.integration.v7.2.0+json";
+        int pageSize = 15;
+        System.out.println( "******* doStreamRecordsAsJavaBeansExample() *******" );
+        System.out.println(String.format("Get data for resource: %s", resourceName));
+        try( Stream<StudentCohorts> recordStream = EthosRecordStreams.streamAllRecords(ethosProxyClient, resourceName, version, pageSize, StudentCohorts.class) ) {
+            recordStream.limit( 40 )
+                        .forEach( studentCohorts -> System.out.println("ROW: " + studentCohorts.toString()) );
+        } catch (UncheckedIOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This example streams all pages of the given resource letting the shared EthosAdaptivePageSizer for the client
+     * and resource choose the page size.  Paging starts with the default page size, and larger pages are requested while they come
+     * back quickly and return more records per second, up to the max page size of the resource.  The page size used
+     * for each page is printed to show how it changes.
+     */
+    public void doStreamAllPagesAdaptivelyExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        try {
+            String resourceName = "student-cohorts";
+            String version = "application/vnd.hedtech.integration.v7.2.0+json";
+            EthosAdaptivePageSizer pageSizer = EthosAdaptivePageSizer.forResource( ethosProxyClient, resourceName, version );
+            System.out.println( "******* doStreamAllPagesAdaptivelyExample() *******" );
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            Iterator<EthosResponse> pageIterator = EthosPageStreams.streamAllPagesAdaptively( ethosProxyClient, resourceName, version )
+                                                                   .limit( 10 )
+                                                                   .iterator();
+            int pageNum = 0;
+            while( pageIterator.hasNext() ) {
+                EthosResponse ethosResponse = pageIterator.next();
+                pageNum++;
+                System.out.println( String.format("PAGE %s REQUESTED URL: %s ", pageNum, ethosResponse.getRequestedUrl()) );
+                System.out.println( String.format("NEXT PAGE SIZE: %s", pageSizer.getPageSize()) );
+            }
+            System.out.println( pageSizer );
+        } catch (UncheckedIOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
     /**
      * This example gets all pages for the given resource from some calculated offset value to demonstrate getting all
      * pages without paging for a long period of time through a potentially large volume of data.
@@ -437,7 +574,9 @@ public class EthosProxyClientExample {
         EthosProxyClient ethosProxyClient = getEthosProxyClient();
         try {
             String resourceName = "student-cohorts";
-            int totalCount = ethosProxyClient.getTotalCount( resourceName );
+            // The total count is cached for a short time by the metadata cache of the client, so the examples after
+            // this one get it without making another request.
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, null );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             EthosResponseConverter ethosResponseConverter = new EthosResponseConverter();
@@ -466,17 +605,16 @@ public class EthosProxyClientExample {
         EthosProxyClient ethosProxyClient = getEthosProxyClient();
         try {
             String resourceName = "student-cohorts";
-            int totalCount = ethosProxyClient.getTotalCount( resourceName );
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, null );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
-            ObjectMapper objectMapper = new ObjectMapper();
             List<String> stringList = ethosProxyClient.getAllPagesFromOffsetAsStrings( resourceName, offset );
             System.out.println( "******* doGetAllPagesFromOffsetAsStringsExample() *******" );
             System.out.println(String.format("Get data for resource: %s", resourceName));
             System.out.println(String.format("Calculated offset of %s which is 95 percent of a total count of %s to avoid paging through potentially lots of pages.", offset, totalCount));
             System.out.println("To run with more paging, manually set the offset to a lower value, or reduce the percentage of the total count.");
             for( int i = 0; i < stringList.size(); i++ ) {
-                JsonNode jsonNode = objectMapper.readTree( stringList.get(i) );
+                JsonNode jsonNode = EthosJsonSupport.readTree( stringList.get(i) );
                 System.out.println( String.format("PAGE %s: %s", (i+1), stringList.get(i)) );
                 System.out.println( String.format("PAGE %s SIZE: %s", (i+1), jsonNode.size()) );
                 System.out.println( String.format("OFFSET: %s", offset) );
@@ -495,7 +633,7 @@ public class EthosProxyClientExample {
         EthosProxyClient ethosProxyClient = getEthosProxyClient();
         try {
             String resourceName = "student-cohorts";
-            int totalCount = ethosProxyClient.getTotalCount( resourceName );
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, null );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             List<JsonNode> jsonNodeList = ethosProxyClient.getAllPagesFromOffsetAsJsonNodes( resourceName, offset );
@@ -523,7 +661,7 @@ public class EthosProxyClientExample {
         EthosProxyClient ethosProxyClient = getEthosProxyClient();
         try {
             String resourceName = "student-cohorts";
-            int totalCount = ethosProxyClient.getTotalCount( resourceName );
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, null );
             // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
             int offset = (int)(totalCount * 0.95);
             List<EthosResponse<List<StudentCohorts>>> ethosResponseList = ethosProxyClient.getAllPagesFromOffset( resourceName, offset, StudentCohorts.class );
@@ -548,6 +686,96 @@ public class EthosProxyClientExample {
         }
     }
 
+    /**
+     * This example gets all pages for the given resource from some calculated offset value, fetching the pages
+     * concurrently.  The offset of every page is calculated from the total count and max page size headers of the
+     * first page, and no more than the given parallelism of pages are requested at the same time.  The pages are
+     * returned in offset order, the same as getAllPagesFromOffset().
+     */
+    public void doGetAllPagesFromOffsetInParallelExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        try {
+            String resourceName = "student-cohorts";
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, null );
+            // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
+            int offset = (int)(totalCount * 0.95);
+            // Use the max page size of the resource, and fetch up to 4 pages at the same time.
+            int pageSize = 0;
+            int parallelism = 4;
+            List<EthosResponse> ethosResponseList = EthosParallelPageFetcher.getAllPagesFromOffset( ethosProxyClient, resourceName, null, offset, pageSize, parallelism );
+            System.out.println( "******* doGetAllPagesFromOffsetInParallelExample() *******" );
+            System.out.println(String.format("Get data for resource: %s", resourceName));
+            System.out.println(String.format("Calculated offset of %s which is 95 percent of a total count of %s to avoid paging through potentially lots of pages.", offset, totalCount));
+            for( int i = 0; i < ethosResponseList.size(); i++ ) {
+                System.out.println( String.format("PAGE %s REQUESTED URL: %s ", (i+1), ethosResponseList.get(i).getRequestedUrl()) );
+            }
+            System.out.println( String.format("NUM PAGES: %s", ethosResponseList.size()) );
+        } catch (IOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This example gets all records for the given resource from some calculated offset value, spilled to a temporary
+     * memory-mapped file rather than held in a list on the heap.  The records can then be read in any order, here
+     * sorted by code, which is what a job that must materialize a very large resource would do.  The spilled records
+     * are closed with try-with-resources, which deletes the file.
+     */
+    public void doGetAllPagesFromOffsetSpilledExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        String resourceName = "student-cohorts";
+        try {
+            int totalCount = EthosResourceMetadataCache.forClient( ethosProxyClient ).getTotalCount( resourceName, null );
+            // Calculate the offset to be 95% of the totalCount to avoid paging through potentially tons of pages.
+            int offset = (int)(totalCount * 0.95);
+            int pageSize = 0;
+            try( EthosSpilledRecords spilledRecords = EthosSpilledRecords.getAllPagesFromOffset(ethosProxyClient, resourceName, null, offset, pageSize) ) {
+                System.out.println( "******* doGetAllPagesFromOffsetSpilledExample() *******" );
+                System.out.println( String.format("Get data for resource: %s", resourceName) );
+                System.out.println( String.format("SPILLED: %s", spilledRecords) );
+                // Only the code of each record is held on the heap while sorting.
+                spilledRecords.stream()
+                              .map( jsonNode -> jsonNode.path("code").asText() )
+                              .sorted()
+                              .limit( 10 )
+                              .forEach( code -> System.out.println(String.format("CODE: %s", code)) );
+                System.out.println( String.format("FIRST RECORD: %s", spilledRecords.size() > 0 ? spilledRecords.get(0) : null) );
+            }
+        } catch (IOException | UncheckedIOException ioe) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This example exports all pages for the given resource to a gzip compressed NDJSON file in the temporary
+     * directory.  The offset reached is recorded in a checkpoint file after every page, so if the export fails or the
+     * process is restarted, running the example again resumes from the last completed page rather than the first.
+     * A completed export is reset so that the next run exports the resource again.
+     */
+    public void doExportAllPagesExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        String resourceName = "student-cohorts";
+        int pageSize = 0;
+        Path exportFile = Paths.get( System.getProperty("java.io.tmpdir"), resourceName + ".ndjson.gz" );
+        EthosBulkExporter ethosBulkExporter = new EthosBulkExporter( exportFile );
+        try {
+            System.out.println( "******* doExportAllPagesExample() *******" );
+            System.out.println( String.format("Export data for resource: %s to %s", resourceName, exportFile) );
+            EthosBulkExporter.Checkpoint checkpoint = ethosBulkExporter.readCheckpoint();
+            if( checkpoint != null && checkpoint.isComplete() ) {
+                ethosBulkExporter.reset();
+            }
+            else if( checkpoint != null ) {
+                System.out.println( String.format("RESUMING FROM OFFSET: %s", checkpoint.getOffset()) );
+            }
+            checkpoint = ethosBulkExporter.exportAllPages( ethosProxyClient, resourceName, null, pageSize );
+            System.out.println( String.format("EXPORTED: %s", checkpoint) );
+        } catch (IOException ioe) {
+            System.out.println( String.format("The export failed, run it again to resume from the checkpoint %s", ethosBulkExporter.getCheckpointFile()) );
+            ioe.printStackTrace();
+        }
+    }
+
     /**
      * This example shows how to get some number of pages containing the specified page size.  Each EthosResponse in
      * the returned list represents a page of data.
@@ -582,12 +810,11 @@ public class EthosProxyClientExample {
             String resourceName = "student-cohorts";
             int pageSize = 15;
             int numPages = 3;
-            ObjectMapper objectMapper = new ObjectMapper();
             List<String> stringList = ethosProxyClient.getPagesAsStrings( resourceName, pageSize, numPages );
             System.out.println( "******* doGetPagesAsStringsExample() *******" );
             System.out.println(String.format("Get data for resource: %s", resourceName));
             for( int i = 0; i < stringList.size(); i++ ) {
-                JsonNode jsonNode = objectMapper.readTree( stringList.get(i) );
+                JsonNode jsonNode = EthosJsonSupport.readTree( stringList.get(i) );
                 System.out.println( String.format("PAGE %s: %s", (i+1), stringList.get(i)) );
                 System.out.println( String.format("PAGE %s SIZE: %s", (i+1), jsonNode.size()) );
             }
@@ -687,13 +914,12 @@ public class EthosProxyClientExample {
             int pageSize = 15;
             int offset = 10;
             int numPages = 3;
-            ObjectMapper objectMapper = new ObjectMapper();
             List<String> stringList = ethosProxyClient.getPagesFromOffsetAsStrings( resourceName, pageSize, offset, numPages );
             System.out.println( "******* doGetPagesFromOffsetAsStringsExample() *******" );
             System.out.println(String.format("Get data for resource: %s", resourceName));
             System.out.println( String.format("OFFSET: %s", offset) );
             for( int i = 0; i < stringList.size(); i++ ) {
-                JsonNode jsonNode = objectMapper.readTree( stringList.get(i) );
+                JsonNode jsonNode = EthosJsonSupport.readTree( stringList.get(i) );
                 System.out.println( String.format("PAGE %s: %s", (i+1), stringList.get(i)) );
                 System.out.println( String.format("PAGE %s SIZE: %s", (i+1), jsonNode.size()) );
             }
@@ -1135,6 +1361,72 @@ public class EthosProxyClientExample {
         }
     }
 
+    /**
+     * This is an example of how to put an EthosResponseCache in front of getById for reference data that is read over
+     * and over.  Only the first of the repeated reads makes a request, the others are answered from the cache until
+     * the cached response is older than the TTL of the cache.
+     */
+    public void doGetResourceByIdFromCacheExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        String resource = "student-cohorts";
+        String version = "application/vnd.hedtech.integration.v7.2.0+json";
+        EthosResponseCache ethosResponseCache = new EthosResponseCache();
+        try {
+            if( getByIdGUID != null && getByIdGUID.isBlank() == false ) {
+                System.out.println("******* doGetResourceByIdFromCacheExample() *******");
+                System.out.println(String.format("RESOURCE: %s", resource));
+                System.out.println(String.format("RESOURCE ID: %s", getByIdGUID));
+                for( int i = 0; i < 5; i++ ) {
+                    StudentCohorts studentCohorts = ethosResponseCache.getById( ethosProxyClient, resource, version, getByIdGUID, StudentCohorts.class );
+                    System.out.println(String.format("RESPONSE %s: %s", (i+1), studentCohorts.toString()));
+                }
+                System.out.println(String.format("CACHE: %s", ethosResponseCache));
+            }
+            else {
+                System.out.println( "******* Skipping doGetResourceByIdFromCacheExample() because the getByIdGUID was not set.  Please pass in a valid GUID value as a 2nd program argument to run this method. *******" );
+            }
+        }
+        catch( IOException ioe ) {
+            ioe.printStackTrace();
+        }
+    }
+
+    /**
+     * This is an example of how to get a batch of resources by ID (GUID), as a reconciliation job would for the GUIDs
+     * named by change notifications.  The requests are made concurrently, with no more than 4 in flight at a time,
+     * rather than one after another.  Duplicate GUIDs are only requested once, and a GUID that fails, such as the
+     * made up GUID added here, is returned as an error without failing the others.
+     */
+    public void doGetResourcesByIdsAsJavaBeansExample() {
+        EthosProxyClient ethosProxyClient = getEthosProxyClient();
+        String resource = "student-cohorts";
+        String version = "application/vnd.hedtech.integration.v7.2.0+json";
+        int parallelism = 4;
+        System.out.println("******* doGetResourcesByIdsAsJavaBeansExample() *******");
+        try( Stream<JsonNode> recordStream = EthosRecordStreams.streamAllRecordsAsJsonNodes(ethosProxyClient, resource, version, 10) ) {
+            // Take the GUIDs of the first few records, then repeat them and add one that does not exist.
+            List<String> guidList = recordStream.limit( 10 )
+                                                .map( jsonNode -> jsonNode.path("id").asText() )
+                                                .collect( Collectors.toList() );
+            guidList.addAll( guidList );
+            guidList.add( "00000000-0000-0000-0000-000000000000" );
+            EthosByIdResults<StudentCohorts> byIdResults = EthosParallelByIdFetcher.getByIds( ethosProxyClient, resource, version, guidList,
+                                                                                           StudentCohorts.class, parallelism );
+            System.out.println(String.format("RESOURCE: %s", resource));
+            System.out.println(String.format("GUIDS REQUESTED: %s, DISTINCT: %s", guidList.size(), byIdResults.size()));
+            for( Map.Entry<String, StudentCohorts> result : byIdResults.getResults().entrySet() ) {
+                System.out.println(String.format("RESOURCE ID: %s, RESPONSE: %s", result.getKey(), result.getValue()));
+            }
+            for( Map.Entry<String, IOException> error : byIdResults.getErrors().entrySet() ) {
+                System.out.println(String.format("RESOURCE ID: %s, ERROR: %s", error.getKey(), error.getValue().getMessage()));
+            }
+            System.out.println(String.format("NOT FOUND: %s", byIdResults.getNotFoundIds()));
+        }
+        catch( IOException | UncheckedIOException ioe ) {
+            ioe.printStackTrace();
+        }
+    }
+
     /**
      * This is an example of getting the default page size for a given resource.
      */
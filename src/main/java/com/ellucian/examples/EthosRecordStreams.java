@@ -0,0 +1,202 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.ethos.integration.client.proxy.filter.CriteriaFilter;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Streams the individual records of a resource rather than whole pages.  Each page body is read incrementally with a
+ * Jackson JsonParser, one array element at a time, and each record is only deserialized when the stream pulls it.
+ * No list of the records in a page is ever built, so the memory needed beyond the page body itself is that of a single
+ * record, which matters for resources such as persons with large, deeply nested records.
+ * <p>
+ * The streams are sequential and ordered by offset, and pages are fetched lazily as with EthosPageStreams.  Any
+ * IOException thrown while fetching or parsing is rethrown as an UncheckedIOException.  Closing the stream, for
+ * example with try-with-resources, releases the parser of the current page if the stream was not fully consumed.
+ */
+public final class EthosRecordStreams {
+
+    private EthosRecordStreams() {
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Streams all records of the given resource and version as JavaBeans.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A lazy stream of JavaBeans, one per record.
+     */
+    public static <T> Stream<T> streamAllRecords( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                  int pageSize, Class<T> beanClass ) {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosProxyClient ).pageFetcher( resourceName, version );
+        return streamRecords( pageFetcher, 0, pageSize, EthosJsonSupport.getBeanReader(beanClass) );
+    }
+
+    /**
+     * Streams all records of the given resource and version as JsonNodes.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of JsonNodes, one per record.
+     */
+    public static Stream<JsonNode> streamAllRecordsAsJsonNodes( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                                int pageSize ) {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosProxyClient ).pageFetcher( resourceName, version );
+        return streamRecords( pageFetcher, 0, pageSize, EthosJsonSupport.getBeanReader(JsonNode.class) );
+    }
+
+    /**
+     * Streams all records of the given resource and version matching the criteria filter as JavaBeans.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param criteriaFilter The criteria filter to apply.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A lazy stream of JavaBeans, one per matching record.
+     */
+    public static <T> Stream<T> streamAllRecords( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                                  CriteriaFilter criteriaFilter, int pageSize, Class<T> beanClass ) {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosFilterQueryClient ).pageFetcher( resourceName, version, criteriaFilter );
+        return streamRecords( pageFetcher, 0, pageSize, EthosJsonSupport.getBeanReader(beanClass) );
+    }
+
+    /**
+     * Streams all records of the given resource and version matching the criteria filter as JsonNodes.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilter The criteria filter to apply.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return A lazy stream of JsonNodes, one per matching record.
+     */
+    public static Stream<JsonNode> streamAllRecordsAsJsonNodes( EthosFilterQueryClient ethosFilterQueryClient, String resourceName,
+                                                                String version, CriteriaFilter criteriaFilter, int pageSize ) {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosFilterQueryClient ).pageFetcher( resourceName, version, criteriaFilter );
+        return streamRecords( pageFetcher, 0, pageSize, EthosJsonSupport.getBeanReader(JsonNode.class) );
+    }
+
+    /**
+     * Streams the records of the pages from any EthosPageFetcher, reading each record with the given ObjectReader.
+     * @param pageFetcher The EthosPageFetcher used to fetch each page.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param recordReader The ObjectReader for a single record, such as one from EthosJsonSupport.getBeanReader().
+     * @param <T> The record type.
+     * @return A lazy stream of records.
+     */
+    public static <T> Stream<T> streamRecords( EthosPageFetcher pageFetcher, int offset, int pageSize, ObjectReader recordReader ) {
+        RecordIterator<T> recordIterator = new RecordIterator<>( new EthosPageIterator(pageFetcher, offset, pageSize), recordReader );
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize( recordIterator, Spliterator.ORDERED | Spliterator.NONNULL );
+        return StreamSupport.stream( spliterator, false ).onClose( recordIterator::close );
+    }
+
+    /**
+     * Iterates the records of each page in turn, keeping a parser open on the current page only.
+     */
+    private static class RecordIterator<T> implements Iterator<T> {
+
+        private final Iterator<EthosResponse> pageIterator;
+        private final ObjectReader recordReader;
+        private JsonParser pageParser;
+        private boolean finished;
+
+        RecordIterator( Iterator<EthosResponse> pageIterator, ObjectReader recordReader ) {
+            this.pageIterator = pageIterator;
+            this.recordReader = recordReader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if( finished ) {
+                return false;
+            }
+            if( pageParser != null && pageParser.currentToken() == JsonToken.START_OBJECT ) {
+                // Already positioned at a record that has not been read yet.
+                return true;
+            }
+            try {
+                // Move to the start of the next record, opening the next page whenever the current one is used up.
+                while( pageParser == null || pageParser.nextToken() != JsonToken.START_OBJECT ) {
+                    close();
+                    if( !pageIterator.hasNext() ) {
+                        finished = true;
+                        return false;
+                    }
+                    openPage( pageIterator.next() );
+                }
+                return true;
+            }
+            catch( IOException ioe ) {
+                close();
+                throw new UncheckedIOException( ioe );
+            }
+        }
+
+        @Override
+        public T next() {
+            if( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return recordReader.readValue( pageParser );
+            }
+            catch( IOException ioe ) {
+                close();
+                throw new UncheckedIOException( ioe );
+            }
+        }
+
+        void close() {
+            if( pageParser != null ) {
+                try {
+                    pageParser.close();
+                }
+                catch( IOException ioe ) {
+                    // Nothing to release for a parser over a String, so this can be ignored.
+                }
+                pageParser = null;
+            }
+        }
+
+        private void openPage( EthosResponse page ) throws IOException {
+            String content = page.getContent();
+            if( content == null || content.isBlank() ) {
+                return;
+            }
+            pageParser = EthosJsonSupport.getObjectMapper().getFactory().createParser( content );
+            if( pageParser.nextToken() != JsonToken.START_ARRAY ) {
+                throw new IOException( "Expected the page to be a JSON array of records from " + page.getRequestedUrl() );
+            }
+        }
+    }
+
+}
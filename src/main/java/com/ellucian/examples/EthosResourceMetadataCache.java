@@ -0,0 +1,404 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.ethos.integration.client.proxy.filter.CriteriaFilter;
+
+import java.io.IOException;
+import java.lang.ref.WeakReference;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.WeakHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A cache of the paging metadata of resources for one client: the total count, the default page size and the max page
+ * size of each resource, version and filter.  Asking the EthosProxyClient for any of these makes a request every time,
+ * and paging then makes the same request again to find the last page.  The cache answers from what it has already
+ * seen instead, and only makes a request when it has nothing recent for the resource.
+ * <p>
+ * The cache fills itself from the headers of every page fetched through one of its page fetchers, so paging through a
+ * resource with them leaves its total count and max page size cached without any extra requests.  A total count that
+ * is not cached is probed with a single row request as EthosCountProbes does, and a page size with the first page of
+ * the resource, recording all of the metadata returned.
+ * <p>
+ * Values are kept for a short time only, as the total count of a resource changes as records are added and removed.
+ * The cache is bounded, evicting the least recently used resource once the maximum number of entries is reached, and
+ * is safe to share across threads.  forClient() returns the shared cache of a client.
+ */
+public class EthosResourceMetadataCache {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default time in milliseconds that metadata is cached for.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 60_000;
+
+    /**
+     * The default maximum number of resource, version and filter combinations held in the cache.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 1024;
+
+    private static final Map<EthosProxyClient, EthosResourceMetadataCache> SHARED_CACHE_MAP = Collections.synchronizedMap( new WeakHashMap<>() );
+
+    // Held weakly, as the shared cache of a client is the value of the client's own weak key in SHARED_CACHE_MAP.
+    private final WeakReference<EthosProxyClient> clientReference;
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<String, CachedMetadata> entryMap;
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong recordedPageCount = new AtomicLong();
+
+    /**
+     * The cached metadata of one resource, version and filter.  Each value expires on its own, as they are not always
+     * recorded together.
+     */
+    private static final class CachedMetadata {
+        private int totalCount = EthosPageHeaders.UNKNOWN;
+        private long totalCountExpiresAt;
+        private int pageSize = EthosPageHeaders.UNKNOWN;
+        private long pageSizeExpiresAt;
+        private int maxPageSize = EthosPageHeaders.UNKNOWN;
+        private long maxPageSizeExpiresAt;
+    }
+
+    /**
+     * Creates a cache for the given client using the default TTL and maximum number of entries.  Most applications
+     * should use the shared cache from forClient() instead.  The cache only holds the client weakly, so keep a
+     * reference to the client for as long as the cache is used.
+     * @param ethosProxyClient The client used to request metadata that is not cached.  An EthosFilterQueryClient is
+     *                         needed for the filter methods.
+     */
+    public EthosResourceMetadataCache( EthosProxyClient ethosProxyClient ) {
+        this( ethosProxyClient, DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * Creates a cache for the given client.
+     * @param ethosProxyClient The client used to request metadata that is not cached.  An EthosFilterQueryClient is
+     *                         needed for the filter methods.
+     * @param ttlMillis The time in milliseconds that metadata is cached for.
+     * @param maxEntries The maximum number of resource, version and filter combinations held in the cache.
+     */
+    public EthosResourceMetadataCache( EthosProxyClient ethosProxyClient, long ttlMillis, int maxEntries ) {
+        if( ethosProxyClient == null ) {
+            throw new IllegalArgumentException( "The ethosProxyClient is required." );
+        }
+        if( ttlMillis < 1 || maxEntries < 1 ) {
+            throw new IllegalArgumentException( "The ttlMillis and maxEntries must be positive." );
+        }
+        this.clientReference = new WeakReference<>( ethosProxyClient );
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos( ttlMillis );
+        this.maxEntries = maxEntries;
+        this.entryMap = new LinkedHashMap<>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<String, CachedMetadata> eldest ) {
+                return size() > EthosResourceMetadataCache.this.maxEntries;
+            }
+        };
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the shared cache for the given client, creating it on first use.  The cache is released along with the
+     * client once the client is no longer used.
+     * @param ethosProxyClient The client.
+     * @return The shared EthosResourceMetadataCache of the client.
+     */
+    public static EthosResourceMetadataCache forClient( EthosProxyClient ethosProxyClient ) {
+        if( ethosProxyClient == null ) {
+            throw new IllegalArgumentException( "The ethosProxyClient is required." );
+        }
+        return SHARED_CACHE_MAP.computeIfAbsent( ethosProxyClient, EthosResourceMetadataCache::new );
+    }
+
+    /**
+     * Gets the total count of the given resource and version.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the metadata is not cached and the request for it fails.
+     */
+    public int getTotalCount( String resourceName, String version ) throws IOException {
+        return getTotalCount( resourceName, version, null, EthosPageFetcher.forResource(getClient(), resourceName, version) );
+    }
+
+    /**
+     * Gets the total count of the given resource and version matching the given criteria filter.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilter The criteria filter.
+     * @return The total count, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the metadata is not cached and the request for it fails.
+     */
+    public int getTotalCount( String resourceName, String version, CriteriaFilter criteriaFilter ) throws IOException {
+        String filter = toFilterStr( criteriaFilter );
+        return getTotalCount( resourceName, version, filter, EthosPageFetcher.forCriteriaFilter(getFilterQueryClient(), resourceName, version, filter) );
+    }
+
+    /**
+     * Gets the default page size of the given resource and version.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return The default page size.
+     * @throws IOException Thrown if the metadata is not cached and the request for it fails.
+     */
+    public int getPageSize( String resourceName, String version ) throws IOException {
+        String key = toKey( resourceName, version, null );
+        int pageSize = getCachedPageSize( key );
+        if( pageSize == EthosPageHeaders.UNKNOWN ) {
+            probe( key, EthosPageFetcher.forResource(getClient(), resourceName, version), 0 );
+            pageSize = getCachedPageSize( key );
+        }
+        return pageSize;
+    }
+
+    /**
+     * Gets the max page size of the given resource and version from the 'x-max-page-size' header.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return The max page size, or EthosPageHeaders.UNKNOWN if the resource does not return one.
+     * @throws IOException Thrown if the metadata is not cached and the request for it fails.
+     */
+    public int getMaxPageSize( String resourceName, String version ) throws IOException {
+        String key = toKey( resourceName, version, null );
+        int maxPageSize = getCachedMaxPageSize( key );
+        if( maxPageSize == EthosPageHeaders.UNKNOWN ) {
+            probe( key, EthosPageFetcher.forResource(getClient(), resourceName, version), 0 );
+            maxPageSize = getCachedMaxPageSize( key );
+        }
+        return maxPageSize;
+    }
+
+    /**
+     * Gets an EthosPageFetcher for the given resource and version that records the metadata of every page it fetches
+     * in this cache.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @return A recording EthosPageFetcher for the resource.
+     */
+    public EthosPageFetcher pageFetcher( String resourceName, String version ) {
+        return recording( EthosPageFetcher.forResource(getClient(), resourceName, version), resourceName, version, null );
+    }
+
+    /**
+     * Gets an EthosPageFetcher for the given resource and version matching the given criteria filter that records the
+     * metadata of every page it fetches in this cache.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilter The criteria filter.
+     * @return A recording EthosPageFetcher for the resource and criteria filter.
+     */
+    public EthosPageFetcher pageFetcher( String resourceName, String version, CriteriaFilter criteriaFilter ) {
+        String filter = toFilterStr( criteriaFilter );
+        return recording( EthosPageFetcher.forCriteriaFilter(getFilterQueryClient(), resourceName, version, filter), resourceName, version, filter );
+    }
+
+    /**
+     * Wraps any EthosPageFetcher so that the metadata of every page it fetches is recorded in this cache under the
+     * given resource, version and filter.
+     * @param pageFetcher The EthosPageFetcher to wrap.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param filter The filter the pages are fetched with, or null if there is none.
+     * @return A recording EthosPageFetcher.
+     */
+    public EthosPageFetcher recording( EthosPageFetcher pageFetcher, String resourceName, String version, String filter ) {
+        String key = toKey( resourceName, version, filter );
+        return (offset, pageSize) -> {
+            EthosResponse page = pageFetcher.fetchPage( offset, pageSize );
+            record( key, page, offset, pageSize );
+            return page;
+        };
+    }
+
+    /**
+     * Records the metadata from the headers of a page already fetched.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param filter The filter the page was fetched with, or null if there was none.
+     * @param page The page fetched.
+     * @param offset The offset the page was requested from.
+     * @param pageSize The page size requested, or 0 if the default page size of the resource was used.
+     * @throws IOException Thrown if the page body must be read to find the default page size and is not valid JSON.
+     */
+    public void record( String resourceName, String version, String filter, EthosResponse page, int offset, int pageSize ) throws IOException {
+        record( toKey(resourceName, version, filter), page, offset, pageSize );
+    }
+
+    /**
+     * Removes the cached metadata of the given resource and version, for all filters.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     */
+    public synchronized void invalidate( String resourceName, String version ) {
+        String keyPrefix = toKey( resourceName, version, null );
+        entryMap.keySet().removeIf( key -> key.startsWith(keyPrefix) );
+    }
+
+    /**
+     * Removes all cached metadata.
+     */
+    public synchronized void invalidateAll() {
+        entryMap.clear();
+    }
+
+    /**
+     * Gets the number of resource, version and filter combinations cached.
+     * @return The number of entries.
+     */
+    public synchronized int size() {
+        return entryMap.size();
+    }
+
+    /**
+     * Gets the number of lookups answered from the cache.
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of lookups that needed a request.
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of pages whose metadata was recorded.
+     * @return The recorded page count.
+     */
+    public long getRecordedPageCount() {
+        return recordedPageCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosResourceMetadataCache[size=%s, hits=%s, misses=%s, recordedPages=%s]",
+                              size(), hitCount.get(), missCount.get(), recordedPageCount.get() );
+    }
+
+    private int getTotalCount( String resourceName, String version, String filter, EthosPageFetcher probeFetcher ) throws IOException {
+        String key = toKey( resourceName, version, filter );
+        int totalCount = getCachedTotalCount( key );
+        if( totalCount == EthosPageHeaders.UNKNOWN ) {
+            probe( key, probeFetcher, EthosCountProbes.PROBE_PAGE_SIZE );
+            totalCount = getCachedTotalCount( key );
+        }
+        return totalCount;
+    }
+
+    private void probe( String key, EthosPageFetcher probeFetcher, int pageSize ) throws IOException {
+        missCount.incrementAndGet();
+        record( key, probeFetcher.fetchPage(0, pageSize), 0, pageSize );
+    }
+
+    private void record( String key, EthosResponse page, int offset, int pageSize ) throws IOException {
+        int totalCount = EthosPageHeaders.getTotalCount( page );
+        int maxPageSize = EthosPageHeaders.getMaxPageSize( page );
+        // The rows in a page requested with the default page size give the default page size, as long as the page is
+        // the first page or is not the last page.  Counting them reads the body, so it is skipped while still cached.
+        int defaultPageSize = EthosPageHeaders.UNKNOWN;
+        if( pageSize == 0 && !isPageSizeCached(key) ) {
+            int rowCount = EthosPageHeaders.getRowCount( page, offset, pageSize );
+            if( offset == 0 || (totalCount != EthosPageHeaders.UNKNOWN && offset + rowCount < totalCount) ) {
+                defaultPageSize = rowCount;
+            }
+        }
+        recordedPageCount.incrementAndGet();
+        long expiresAt = System.nanoTime() + ttlNanos;
+        synchronized( this ) {
+            CachedMetadata entry = entryMap.computeIfAbsent( key, k -> new CachedMetadata() );
+            if( totalCount != EthosPageHeaders.UNKNOWN ) {
+                entry.totalCount = totalCount;
+                entry.totalCountExpiresAt = expiresAt;
+            }
+            if( maxPageSize != EthosPageHeaders.UNKNOWN ) {
+                entry.maxPageSize = maxPageSize;
+                entry.maxPageSizeExpiresAt = expiresAt;
+            }
+            if( defaultPageSize != EthosPageHeaders.UNKNOWN ) {
+                entry.pageSize = defaultPageSize;
+                entry.pageSizeExpiresAt = expiresAt;
+            }
+        }
+    }
+
+    private synchronized int getCachedTotalCount( String key ) {
+        CachedMetadata entry = entryMap.get( key );
+        return countLookup( (entry == null) ? EthosPageHeaders.UNKNOWN : entry.totalCount, (entry == null) ? 0 : entry.totalCountExpiresAt );
+    }
+
+    private synchronized int getCachedPageSize( String key ) {
+        CachedMetadata entry = entryMap.get( key );
+        return countLookup( (entry == null) ? EthosPageHeaders.UNKNOWN : entry.pageSize, (entry == null) ? 0 : entry.pageSizeExpiresAt );
+    }
+
+    private synchronized int getCachedMaxPageSize( String key ) {
+        CachedMetadata entry = entryMap.get( key );
+        return countLookup( (entry == null) ? EthosPageHeaders.UNKNOWN : entry.maxPageSize, (entry == null) ? 0 : entry.maxPageSizeExpiresAt );
+    }
+
+    private synchronized boolean isPageSizeCached( String key ) {
+        CachedMetadata entry = entryMap.get( key );
+        return entry != null && entry.pageSize != EthosPageHeaders.UNKNOWN && System.nanoTime() - entry.pageSizeExpiresAt < 0;
+    }
+
+    private int countLookup( int value, long expiresAt ) {
+        if( value == EthosPageHeaders.UNKNOWN || System.nanoTime() - expiresAt >= 0 ) {
+            return EthosPageHeaders.UNKNOWN;
+        }
+        hitCount.incrementAndGet();
+        return value;
+    }
+
+    private EthosProxyClient getClient() {
+        EthosProxyClient ethosProxyClient = clientReference.get();
+        if( ethosProxyClient == null ) {
+            throw new IllegalStateException( "The client of this metadata cache is no longer in use." );
+        }
+        return ethosProxyClient;
+    }
+
+    private EthosFilterQueryClient getFilterQueryClient() {
+        EthosProxyClient ethosProxyClient = getClient();
+        if( !(ethosProxyClient instanceof EthosFilterQueryClient) ) {
+            throw new IllegalStateException( "An EthosFilterQueryClient is required to get the metadata of filtered resources." );
+        }
+        return (EthosFilterQueryClient) ethosProxyClient;
+    }
+
+    private static String toFilterStr( CriteriaFilter criteriaFilter ) {
+        if( criteriaFilter == null ) {
+            throw new IllegalArgumentException( "The criteriaFilter is required." );
+        }
+        return criteriaFilter.toString();
+    }
+
+    private static String toKey( String resourceName, String version, String filter ) {
+        if( resourceName == null ) {
+            throw new IllegalArgumentException( "The resourceName is required." );
+        }
+        String resourceVersion = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+        return resourceName + "|" + resourceVersion + "|" + ((filter == null) ? "" : filter);
+    }
+
+}
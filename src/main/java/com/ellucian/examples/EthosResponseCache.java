@@ -0,0 +1,527 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.ethos.integration.client.proxy.filter.CriteriaFilter;
+import org.apache.http.Header;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+
+/**
+ * An optional read-through cache of getById and filtered GET responses, for reference data such as student-cohorts,
+ * account-codes and term-codes that workers read over and over but that rarely changes.  Responses are keyed by
+ * resource, version and id or filter, and a cached response is returned without a request until it is older than the
+ * TTL.
+ * <p>
+ * A response older than the TTL is revalidated rather than simply dropped.  The 'ETag' and 'Last-Modified' headers of
+ * the cached response are passed to the ResponseLoader, which can make a conditional request with them and return
+ * null when the API answers 304 Not Modified, in which case the cached response is kept for another TTL.  The SDK
+ * clients cannot send conditional request headers, so the loaders built from them here always make a full request;
+ * clients that can, such as the EthosHttpClient of the benchmarks module, get the cheaper revalidation.
+ * <p>
+ * The cache is bounded, evicting the least recently used response once the maximum number of entries is reached.
+ * Concurrent misses for the same key share a single request.  Hit, miss, revalidation and eviction counts are kept to
+ * show how effective the cache is.  Entries can be invalidated by resource and id, or replaced with new content, so
+ * that updated records are not served from the cache until they expire.  The EthosResponseCacheInvalidator does this
+ * from change notifications as they arrive, which allows a much longer TTL.
+ */
+public class EthosResponseCache {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The default time in milliseconds that a cached response is used without revalidation.
+     */
+    public static final long DEFAULT_TTL_MILLIS = 5 * 60_000;
+
+    /**
+     * The default maximum number of responses held in the cache.
+     */
+    public static final int DEFAULT_MAX_ENTRIES = 10_000;
+
+    private static final String HDR_ETAG = "etag";
+    private static final String HDR_LAST_MODIFIED = "last-modified";
+
+    private final long ttlNanos;
+    private final int maxEntries;
+    private final Map<CacheKey, CachedResponse> responseMap;
+    private final Map<CacheKey, CompletableFuture<EthosResponse>> inFlightLoadMap = new HashMap<>();
+    private final Set<CacheKey> staleLoadKeySet = new HashSet<>();
+    private final AtomicLong hitCount = new AtomicLong();
+    private final AtomicLong missCount = new AtomicLong();
+    private final AtomicLong revalidationCount = new AtomicLong();
+    private final AtomicLong notModifiedCount = new AtomicLong();
+    private final AtomicLong coalescedLoadCount = new AtomicLong();
+    private final AtomicLong evictionCount = new AtomicLong();
+    private final AtomicLong invalidationCount = new AtomicLong();
+    private final AtomicLong replacementCount = new AtomicLong();
+
+    /**
+     * Gets a response from the API, optionally only if it has changed since it was cached.
+     */
+    @FunctionalInterface
+    public interface ResponseLoader {
+        /**
+         * Gets the response.  When validators are given, a loader that can make a conditional request should send them
+         * as 'If-None-Match' and 'If-Modified-Since', and return null if the API answers 304 Not Modified.
+         * @param etag The 'ETag' of the cached response, or null if there is none.
+         * @param lastModified The 'Last-Modified' of the cached response, or null if there is none.
+         * @return The response, or null if it has not changed since the cached response.
+         * @throws IOException Thrown if the request fails.
+         */
+        EthosResponse load( String etag, String lastModified ) throws IOException;
+    }
+
+    /**
+     * The key of a cached response.  The value is the id of a getById response or the filter of a filtered GET.
+     */
+    private static final class CacheKey {
+        private final String resourceName;
+        private final String version;
+        private final boolean byId;
+        private final String value;
+
+        private CacheKey( String resourceName, String version, boolean byId, String value ) {
+            if( resourceName == null || value == null ) {
+                throw new IllegalArgumentException( "The resourceName and id or filter are required." );
+            }
+            this.resourceName = resourceName;
+            this.version = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+            this.byId = byId;
+            this.value = value;
+        }
+
+        @Override
+        public boolean equals( Object other ) {
+            if( !(other instanceof CacheKey) ) {
+                return false;
+            }
+            CacheKey otherKey = (CacheKey) other;
+            return byId == otherKey.byId && resourceName.equals( otherKey.resourceName ) && version.equals( otherKey.version )
+                   && value.equals( otherKey.value );
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * (31 * (31 * resourceName.hashCode() + version.hashCode()) + Boolean.hashCode(byId)) + value.hashCode();
+        }
+    }
+
+    /**
+     * A cached response with its validators.
+     */
+    private static final class CachedResponse {
+        private final EthosResponse ethosResponse;
+        private final String etag;
+        private final String lastModified;
+        private volatile long expiresAt;
+
+        private CachedResponse( EthosResponse ethosResponse, long expiresAt ) {
+            this.ethosResponse = ethosResponse;
+            this.etag = getHeaderValue( ethosResponse, HDR_ETAG );
+            this.lastModified = getHeaderValue( ethosResponse, HDR_LAST_MODIFIED );
+            this.expiresAt = expiresAt;
+        }
+    }
+
+    /**
+     * Creates a cache using the default TTL and maximum number of entries.
+     */
+    public EthosResponseCache() {
+        this( DEFAULT_TTL_MILLIS, DEFAULT_MAX_ENTRIES );
+    }
+
+    /**
+     * Creates a cache.
+     * @param ttlMillis The time in milliseconds that a cached response is used without revalidation.
+     * @param maxEntries The maximum number of responses held in the cache.
+     */
+    public EthosResponseCache( long ttlMillis, int maxEntries ) {
+        if( ttlMillis < 1 || maxEntries < 1 ) {
+            throw new IllegalArgumentException( "The ttlMillis and maxEntries must be positive." );
+        }
+        this.ttlNanos = TimeUnit.MILLISECONDS.toNanos( ttlMillis );
+        this.maxEntries = maxEntries;
+        this.responseMap = new LinkedHashMap<CacheKey, CachedResponse>( 16, 0.75f, true ) {
+            @Override
+            protected boolean removeEldestEntry( Map.Entry<CacheKey, CachedResponse> eldest ) {
+                if( size() > EthosResponseCache.this.maxEntries ) {
+                    evictionCount.incrementAndGet();
+                    return true;
+                }
+                return false;
+            }
+        };
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the record of the given resource with the given id, from the cache if possible.
+     * @param ethosProxyClient The EthosProxyClient used to make the request on a miss.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param id The id of the record.
+     * @return The EthosResponse containing the record.
+     * @throws IOException Thrown if the response is not cached and the request fails.
+     */
+    public EthosResponse getById( EthosProxyClient ethosProxyClient, String resourceName, String version, String id ) throws IOException {
+        if( ethosProxyClient == null ) {
+            throw new IllegalArgumentException( "The ethosProxyClient is required." );
+        }
+        String resourceVersion = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+        return getById( resourceName, version, id, (etag, lastModified) -> ethosProxyClient.getById(resourceName, resourceVersion, id) );
+    }
+
+    /**
+     * Gets the record of the given resource with the given id as a JavaBean, from the cache if possible.  A new
+     * JavaBean is read from the cached response on every call, so callers can change it freely.
+     * @param ethosProxyClient The EthosProxyClient used to make the request on a miss.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, which should match the version of the JavaBean class.
+     * @param id The id of the record.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return The record as a JavaBean.
+     * @throws IOException Thrown if the response is not cached and the request fails, or the record cannot be read.
+     */
+    public <T> T getById( EthosProxyClient ethosProxyClient, String resourceName, String version, String id, Class<T> beanClass ) throws IOException {
+        return EthosJsonSupport.readValue( getById(ethosProxyClient, resourceName, version, id).getContent(), beanClass );
+    }
+
+    /**
+     * Gets the record of the given resource with the given id using any ResponseLoader, from the cache if possible.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param id The id of the record.
+     * @param responseLoader Gets the record on a miss or revalidation.
+     * @return The EthosResponse containing the record.
+     * @throws IOException Thrown if the response is not cached and the request fails.
+     */
+    public EthosResponse getById( String resourceName, String version, String id, ResponseLoader responseLoader ) throws IOException {
+        return get( new CacheKey(resourceName, version, true, id), responseLoader );
+    }
+
+    /**
+     * Gets the page of the given resource matching the given criteria filter, from the cache if possible.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request on a miss.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param criteriaFilter The criteria filter.
+     * @return The EthosResponse containing the matching records.
+     * @throws IOException Thrown if the response is not cached and the request fails.
+     */
+    public EthosResponse getWithCriteriaFilter( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                                CriteriaFilter criteriaFilter ) throws IOException {
+        if( criteriaFilter == null ) {
+            throw new IllegalArgumentException( "The criteriaFilter is required." );
+        }
+        return getWithCriteriaFilter( ethosFilterQueryClient, resourceName, version, criteriaFilter.toString() );
+    }
+
+    /**
+     * Gets the page of the given resource matching the given filter query string, such as the toString() of a
+     * CriteriaFilter, NamedQueryFilter or FilterMap, from the cache if possible.
+     * @param ethosFilterQueryClient The EthosFilterQueryClient used to make the request on a miss.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param filterStr The filter query string, for example "?criteria={...}".
+     * @return The EthosResponse containing the matching records.
+     * @throws IOException Thrown if the response is not cached and the request fails.
+     */
+    public EthosResponse getWithCriteriaFilter( EthosFilterQueryClient ethosFilterQueryClient, String resourceName, String version,
+                                                String filterStr ) throws IOException {
+        if( ethosFilterQueryClient == null ) {
+            throw new IllegalArgumentException( "The ethosFilterQueryClient is required." );
+        }
+        String resourceVersion = (version == null || version.isBlank()) ? EthosPageFetcher.DEFAULT_VERSION : version;
+        return getWithFilter( resourceName, version, filterStr,
+                              (etag, lastModified) -> ethosFilterQueryClient.getWithCriteriaFilter(resourceName, resourceVersion, filterStr) );
+    }
+
+    /**
+     * Gets the response of a filtered GET of the given resource using any ResponseLoader, from the cache if possible.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param filterStr The filter query string, which together with the resource and version identifies the response.
+     * @param responseLoader Gets the response on a miss or revalidation.
+     * @return The EthosResponse containing the matching records.
+     * @throws IOException Thrown if the response is not cached and the request fails.
+     */
+    public EthosResponse getWithFilter( String resourceName, String version, String filterStr, ResponseLoader responseLoader ) throws IOException {
+        return get( new CacheKey(resourceName, version, false, filterStr), responseLoader );
+    }
+
+    /**
+     * Removes the cached responses that may contain the given record: the record by id in every version, and every
+     * filtered response of the resource.
+     * @param resourceName The name of the resource.
+     * @param id The id of the record.
+     */
+    public synchronized void invalidate( String resourceName, String id ) {
+        invalidateMatching( key -> key.resourceName.equals(resourceName) && (!key.byId || key.value.equals(id)) );
+    }
+
+    /**
+     * Replaces the cached response of the given record with the given content, such as the full representation
+     * carried by a change notification, so the next getById of that version is a hit without a request.  The record
+     * in other versions and every filtered response of the resource are invalidated, as they may be out of date.
+     * @param resourceName The name of the resource.
+     * @param version The version of the content, or null for the default version.
+     * @param id The id of the record.
+     * @param content The JSON content of the record.
+     */
+    public synchronized void replace( String resourceName, String version, String id, String content ) {
+        if( content == null ) {
+            throw new IllegalArgumentException( "The content is required." );
+        }
+        CacheKey key = new CacheKey( resourceName, version, true, id );
+        invalidate( resourceName, id );
+        Map<String, String> headerMap = new HashMap<>();
+        headerMap.put( "content-type", key.version );
+        responseMap.put( key, new CachedResponse(new EthosResponse<>(headerMap, content, 200), System.nanoTime() + ttlNanos) );
+        replacementCount.incrementAndGet();
+    }
+
+    /**
+     * Removes all cached responses of the given resource.
+     * @param resourceName The name of the resource.
+     */
+    public synchronized void invalidateResource( String resourceName ) {
+        invalidateMatching( key -> key.resourceName.equals(resourceName) );
+    }
+
+    /**
+     * Removes all cached responses.
+     */
+    public synchronized void invalidateAll() {
+        staleLoadKeySet.addAll( inFlightLoadMap.keySet() );
+        invalidationCount.addAndGet( responseMap.size() );
+        responseMap.clear();
+    }
+
+    /**
+     * Gets the number of cached responses.
+     * @return The number of cached responses.
+     */
+    public synchronized int size() {
+        return responseMap.size();
+    }
+
+    /**
+     * Gets the number of requests answered from the cache without a request, or after a revalidation found the
+     * cached response unchanged.
+     * @return The hit count.
+     */
+    public long getHitCount() {
+        return hitCount.get();
+    }
+
+    /**
+     * Gets the number of requests that needed a full response.
+     * @return The miss count.
+     */
+    public long getMissCount() {
+        return missCount.get();
+    }
+
+    /**
+     * Gets the number of expired responses that were revalidated.
+     * @return The revalidation count.
+     */
+    public long getRevalidationCount() {
+        return revalidationCount.get();
+    }
+
+    /**
+     * Gets the number of revalidations answered with 304 Not Modified, which kept the cached response.
+     * @return The not modified count.
+     */
+    public long getNotModifiedCount() {
+        return notModifiedCount.get();
+    }
+
+    /**
+     * Gets the number of misses that shared a request already in progress for the same key.
+     * @return The coalesced load count.
+     */
+    public long getCoalescedLoadCount() {
+        return coalescedLoadCount.get();
+    }
+
+    /**
+     * Gets the number of responses evicted because the cache was full.
+     * @return The eviction count.
+     */
+    public long getEvictionCount() {
+        return evictionCount.get();
+    }
+
+    /**
+     * Gets the number of responses removed by invalidation.
+     * @return The invalidation count.
+     */
+    public long getInvalidationCount() {
+        return invalidationCount.get();
+    }
+
+    /**
+     * Gets the number of responses replaced with content given to the cache, such as from change notifications.
+     * @return The replacement count.
+     */
+    public long getReplacementCount() {
+        return replacementCount.get();
+    }
+
+    /**
+     * Gets the ratio of hits to all requests.
+     * @return The hit rate between 0 and 1, or 0 if there have been no requests.
+     */
+    public double getHitRate() {
+        long hits = hitCount.get();
+        long total = hits + missCount.get();
+        return total == 0 ? 0 : (double) hits / total;
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosResponseCache[size=%s, maxEntries=%s, hitRate=%.3f, hits=%s, misses=%s, revalidations=%s, notModified=%s, coalescedLoads=%s, evictions=%s, invalidations=%s, replacements=%s]",
+                              size(), maxEntries, getHitRate(), getHitCount(), getMissCount(), getRevalidationCount(), getNotModifiedCount(),
+                              getCoalescedLoadCount(), getEvictionCount(), getInvalidationCount(), getReplacementCount() );
+    }
+
+    private void invalidateMatching( Predicate<CacheKey> keyPredicate ) {
+        // A response being loaded for a matching key may already be out of date, so it is marked not to be stored.
+        for( CacheKey key : inFlightLoadMap.keySet() ) {
+            if( keyPredicate.test(key) ) {
+                staleLoadKeySet.add( key );
+            }
+        }
+        responseMap.keySet().removeIf( key -> {
+            boolean remove = keyPredicate.test( key );
+            if( remove ) {
+                invalidationCount.incrementAndGet();
+            }
+            return remove;
+        });
+    }
+
+    private EthosResponse get( CacheKey key, ResponseLoader responseLoader ) throws IOException {
+        if( responseLoader == null ) {
+            throw new IllegalArgumentException( "The responseLoader is required." );
+        }
+        CompletableFuture<EthosResponse> load;
+        CachedResponse staleResponse = null;
+        boolean loadOwner = false;
+        synchronized( this ) {
+            CachedResponse cachedResponse = responseMap.get( key );
+            if( cachedResponse != null && System.nanoTime() - cachedResponse.expiresAt < 0 ) {
+                hitCount.incrementAndGet();
+                return cachedResponse.ethosResponse;
+            }
+            load = inFlightLoadMap.get( key );
+            if( load != null ) {
+                coalescedLoadCount.incrementAndGet();
+            }
+            else {
+                load = new CompletableFuture<>();
+                inFlightLoadMap.put( key, load );
+                staleResponse = cachedResponse;
+                loadOwner = true;
+            }
+        }
+        if( loadOwner ) {
+            loadResponse( key, responseLoader, staleResponse, load );
+        }
+        return await( load );
+    }
+
+    private void loadResponse( CacheKey key, ResponseLoader responseLoader, CachedResponse staleResponse, CompletableFuture<EthosResponse> load ) {
+        try {
+            EthosResponse ethosResponse;
+            if( staleResponse != null ) {
+                revalidationCount.incrementAndGet();
+                ethosResponse = responseLoader.load( staleResponse.etag, staleResponse.lastModified );
+            }
+            else {
+                ethosResponse = responseLoader.load( null, null );
+            }
+            long expiresAt = System.nanoTime() + ttlNanos;
+            CachedResponse cachedResponse;
+            if( ethosResponse == null ) {
+                if( staleResponse == null ) {
+                    throw new IOException( "No response was returned for " + key.resourceName + " " + key.value );
+                }
+                // Not modified, so the cached response is good for another TTL.
+                notModifiedCount.incrementAndGet();
+                hitCount.incrementAndGet();
+                staleResponse.expiresAt = expiresAt;
+                cachedResponse = staleResponse;
+            }
+            else {
+                missCount.incrementAndGet();
+                cachedResponse = new CachedResponse( ethosResponse, expiresAt );
+            }
+            synchronized( this ) {
+                // A response loaded while its key was invalidated may already be out of date, so it is not stored.
+                if( !staleLoadKeySet.remove(key) ) {
+                    responseMap.put( key, cachedResponse );
+                }
+                inFlightLoadMap.remove( key );
+            }
+            load.complete( cachedResponse.ethosResponse );
+        }
+        catch( Throwable t ) {
+            missCount.incrementAndGet();
+            synchronized( this ) {
+                staleLoadKeySet.remove( key );
+                inFlightLoadMap.remove( key );
+            }
+            load.completeExceptionally( t );
+        }
+    }
+
+    private EthosResponse await( CompletableFuture<EthosResponse> load ) throws IOException {
+        try {
+            return load.get();
+        }
+        catch( InterruptedException ie ) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException( "Interrupted while waiting for a response." );
+        }
+        catch( ExecutionException ee ) {
+            Throwable cause = ee.getCause();
+            if( cause instanceof IOException ) {
+                throw (IOException) cause;
+            }
+            throw new IOException( "Failed to get a response.", cause );
+        }
+    }
+
+    private static String getHeaderValue( EthosResponse ethosResponse, String headerName ) {
+        Header header = ethosResponse.getHeader( headerName );
+        return (header == null) ? null : header.getValue();
+    }
+
+}
@@ -0,0 +1,167 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.messages.ChangeNotification;
+import com.ellucian.ethos.integration.notification.AbstractEthosChangeNotificationSubscriber;
+import com.fasterxml.jackson.databind.JsonNode;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * A change notification subscriber that keeps an EthosResponseCache up to date.  Subscribe it to an
+ * EthosChangeNotificationPollService and, as each change notification arrives, the cached responses of the record it
+ * names are invalidated, so the cache can use a long TTL and still serve near real-time data.
+ * <p>
+ * When the notification carries the full representation of the record (a content type of 'resource-representation'),
+ * that content becomes the new cached getById response for the notified version, so the next read is a hit rather
+ * than a request.  Deleted records, and notifications without content, only invalidate.
+ * <p>
+ * If receiving notifications fails, changes may have been missed, so the whole cache is invalidated rather than risk
+ * serving stale records for the length of the TTL.
+ */
+public class EthosResponseCacheInvalidator extends AbstractEthosChangeNotificationSubscriber {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The content type of a change notification that carries the full representation of the record.
+     */
+    public static final String CONTENT_TYPE_RESOURCE_REPRESENTATION = "resource-representation";
+
+    /**
+     * The operation of a change notification for a deleted record.
+     */
+    public static final String OPERATION_DELETED = "deleted";
+
+    private final EthosResponseCache ethosResponseCache;
+    private final AtomicLong notificationCount = new AtomicLong();
+    private final AtomicLong replacedCount = new AtomicLong();
+    private final AtomicLong invalidatedCount = new AtomicLong();
+    private final AtomicLong errorCount = new AtomicLong();
+
+    /**
+     * Creates a subscriber that keeps the given cache up to date, receiving the default number of notifications at once.
+     * @param ethosResponseCache The cache to keep up to date.
+     */
+    public EthosResponseCacheInvalidator( EthosResponseCache ethosResponseCache ) {
+        super();
+        if( ethosResponseCache == null ) {
+            throw new IllegalArgumentException( "The ethosResponseCache is required." );
+        }
+        this.ethosResponseCache = ethosResponseCache;
+    }
+
+    /**
+     * Creates a subscriber that keeps the given cache up to date.
+     * @param ethosResponseCache The cache to keep up to date.
+     * @param numNotifications The number of notifications to retrieve at once.
+     */
+    public EthosResponseCacheInvalidator( EthosResponseCache ethosResponseCache, int numNotifications ) {
+        super( numNotifications );
+        if( ethosResponseCache == null ) {
+            throw new IllegalArgumentException( "The ethosResponseCache is required." );
+        }
+        this.ethosResponseCache = ethosResponseCache;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Replaces or invalidates the cached responses of the record named by the change notification.
+     * @param changeNotification An individual change notification.
+     */
+    @Override
+    public void onChangeNotification( ChangeNotification changeNotification ) {
+        notificationCount.incrementAndGet();
+        if( changeNotification == null || changeNotification.getResource() == null ) {
+            return;
+        }
+        String resourceName = changeNotification.getResource().getName();
+        String id = changeNotification.getResource().getId();
+        if( resourceName == null ) {
+            return;
+        }
+        if( id == null ) {
+            // Without an id any record of the resource may have changed.
+            ethosResponseCache.invalidateResource( resourceName );
+            invalidatedCount.incrementAndGet();
+            return;
+        }
+        JsonNode content = changeNotification.getContent();
+        if( !OPERATION_DELETED.equals(changeNotification.getOperation())
+            && CONTENT_TYPE_RESOURCE_REPRESENTATION.equals(changeNotification.getContentType())
+            && content != null && content.isObject() ) {
+            ethosResponseCache.replace( resourceName, changeNotification.getResource().getVersion(), id, content.toString() );
+            replacedCount.incrementAndGet();
+        }
+        else {
+            ethosResponseCache.invalidate( resourceName, id );
+            invalidatedCount.incrementAndGet();
+        }
+    }
+
+    /**
+     * Invalidates the whole cache, as notifications may have been missed.  The error is counted in getErrorCount().
+     * @param throwable The exception thrown when something bad happened while receiving change notifications.
+     */
+    @Override
+    public void onChangeNotificationError( Throwable throwable ) {
+        errorCount.incrementAndGet();
+        ethosResponseCache.invalidateAll();
+    }
+
+    /**
+     * Gets the cache kept up to date by this subscriber.
+     * @return The EthosResponseCache.
+     */
+    public EthosResponseCache getEthosResponseCache() {
+        return ethosResponseCache;
+    }
+
+    /**
+     * Gets the number of change notifications received.
+     * @return The notification count.
+     */
+    public long getNotificationCount() {
+        return notificationCount.get();
+    }
+
+    /**
+     * Gets the number of change notifications whose content replaced the cached response.
+     * @return The replaced count.
+     */
+    public long getReplacedCount() {
+        return replacedCount.get();
+    }
+
+    /**
+     * Gets the number of change notifications that only invalidated cached responses.
+     * @return The invalidated count.
+     */
+    public long getInvalidatedCount() {
+        return invalidatedCount.get();
+    }
+
+    /**
+     * Gets the number of errors received, each of which invalidated the whole cache.
+     * @return The error count.
+     */
+    public long getErrorCount() {
+        return errorCount.get();
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosResponseCacheInvalidator[notifications=%s, replaced=%s, invalidated=%s, errors=%s]",
+                              getNotificationCount(), getReplacedCount(), getInvalidatedCount(), getErrorCount() );
+    }
+
+}
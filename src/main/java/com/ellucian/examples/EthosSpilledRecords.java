@@ -0,0 +1,377 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosResponse;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * All the records of a resource held outside the Java heap, for jobs that need the full resource materialized, for
+ * example to sort or join all sections of a term, where a getAllPages() list of 1M+ records would fill the heap and
+ * lengthen every GC pause.
+ * <p>
+ * Each page is read one record at a time as it is fetched, and each record is written as compact JSON to a temporary
+ * spill file.  Once paging completes the file is memory-mapped read-only, in segments of up to SEGMENT_MAX_BYTES, and
+ * records are only deserialized when read.  The operating system pages the mapped file in and out as needed, so only
+ * an 8 byte offset per record stays on the heap.  Records can be iterated, streamed, or read by index in any order.
+ * <p>
+ * Reads may be made concurrently from many threads.  Closing releases the file channel and deletes the spill file; the
+ * mappings themselves are released when they are garbage collected, as Java offers no way to unmap them sooner.
+ */
+public class EthosSpilledRecords implements Iterable<JsonNode>, Closeable {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The maximum size in bytes of each mapped segment of the spill file.  A single record larger than this is mapped
+     * in a segment of its own.
+     */
+    public static final int SEGMENT_MAX_BYTES = 256 * 1024 * 1024;
+
+    private static final String SPILL_FILE_PREFIX = "ethos-spill-";
+
+    private final Path spillFile;
+    private final FileChannel fileChannel;
+    private final long[] recordOffsets;
+    private final int recordCount;
+    private final long fileSize;
+    private final long[] segmentOffsets;
+    private final MappedByteBuffer[] segments;
+    private volatile boolean closed;
+
+    private EthosSpilledRecords( Path spillFile, long[] recordOffsets, int recordCount, long fileSize,
+                                 long[] segmentOffsets, int segmentCount ) throws IOException {
+        this.spillFile = spillFile;
+        this.recordOffsets = recordOffsets;
+        this.recordCount = recordCount;
+        this.fileSize = fileSize;
+        this.segmentOffsets = Arrays.copyOf( segmentOffsets, segmentCount );
+        this.segments = new MappedByteBuffer[ segmentCount ];
+        this.fileChannel = FileChannel.open( spillFile, StandardOpenOption.READ );
+        try {
+            for( int i = 0; i < segmentCount; i++ ) {
+                long segmentEnd = (i + 1 < segmentCount) ? this.segmentOffsets[ i + 1 ] : fileSize;
+                segments[ i ] = fileChannel.map( FileChannel.MapMode.READ_ONLY, this.segmentOffsets[ i ], segmentEnd - this.segmentOffsets[ i ] );
+            }
+        }
+        catch( IOException | RuntimeException e ) {
+            fileChannel.close();
+            throw e;
+        }
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets all records of the given resource and version starting from the given offset, spilled to a temporary file
+     * in the default temporary directory.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @return The spilled records, which must be closed when no longer needed.
+     * @throws IOException Thrown if a request fails or the spill file cannot be written.
+     */
+    public static EthosSpilledRecords getAllPagesFromOffset( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                             int offset, int pageSize ) throws IOException {
+        return getAllPagesFromOffset( ethosProxyClient, resourceName, version, offset, pageSize, null );
+    }
+
+    /**
+     * Gets all records of the given resource and version starting from the given offset, spilled to a temporary file
+     * in the given directory, such as one on a fast local disk.
+     * @param ethosProxyClient The EthosProxyClient used to make the requests.
+     * @param resourceName The name of the resource.
+     * @param version The version of the resource, or null for the default version.
+     * @param offset The offset to start paging from.
+     * @param pageSize The page size to request, or 0 to use the default page size of the resource.
+     * @param spillDirectory The directory of the spill file, or null for the default temporary directory.
+     * @return The spilled records, which must be closed when no longer needed.
+     * @throws IOException Thrown if a request fails or the spill file cannot be written.
+     */
+    public static EthosSpilledRecords getAllPagesFromOffset( EthosProxyClient ethosProxyClient, String resourceName, String version,
+                                                             int offset, int pageSize, Path spillDirectory ) throws IOException {
+        EthosPageFetcher pageFetcher = EthosResourceMetadataCache.forClient( ethosProxyClient ).pageFetcher( resourceName, version );
+        return spillPages( new EthosPageIterator(pageFetcher, offset, pageSize), spillDirectory );
+    }
+
+    /**
+     * Spills the records of every page from the given iterator, such as an EthosPageIterator over a filtered
+     * resource.  Each page must be a JSON array of records.
+     * @param pageIterator The pages to spill.
+     * @param spillDirectory The directory of the spill file, or null for the default temporary directory.
+     * @return The spilled records, which must be closed when no longer needed.
+     * @throws IOException Thrown if a page cannot be fetched or read, or the spill file cannot be written.
+     */
+    public static EthosSpilledRecords spillPages( Iterator<EthosResponse> pageIterator, Path spillDirectory ) throws IOException {
+        if( pageIterator == null ) {
+            throw new IllegalArgumentException( "The pageIterator is required." );
+        }
+        Path spillFile = (spillDirectory == null) ? Files.createTempFile( SPILL_FILE_PREFIX, ".json" )
+                                                  : Files.createTempFile( spillDirectory, SPILL_FILE_PREFIX, ".json" );
+        try {
+            return new SpillWriter( spillFile ).writeAll( pageIterator );
+        }
+        catch( IOException | RuntimeException e ) {
+            Files.deleteIfExists( spillFile );
+            if( e instanceof UncheckedIOException ) {
+                throw ((UncheckedIOException) e).getCause();
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * Gets the number of records.
+     * @return The number of records.
+     */
+    public int size() {
+        return recordCount;
+    }
+
+    /**
+     * Gets the size of the spill file.
+     * @return The size of the spill file in bytes.
+     */
+    public long getSpillFileSize() {
+        return fileSize;
+    }
+
+    /**
+     * Gets the record at the given index, in the order the records were paged.
+     * @param index The index of the record.
+     * @return The record as a JsonNode.
+     * @throws IOException Thrown if the record cannot be read.
+     */
+    public JsonNode get( int index ) throws IOException {
+        return EthosJsonSupport.readTree( openRecord(index) );
+    }
+
+    /**
+     * Gets the record at the given index as a JavaBean.
+     * @param index The index of the record.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return The record as a JavaBean.
+     * @throws IOException Thrown if the record cannot be read.
+     */
+    public <T> T get( int index, Class<T> beanClass ) throws IOException {
+        return EthosJsonSupport.getBeanReader( beanClass ).readValue( openRecord(index) );
+    }
+
+    /**
+     * Iterates the records as JsonNodes, deserializing each as it is pulled.
+     * @return An iterator of the records.
+     */
+    @Override
+    public Iterator<JsonNode> iterator() {
+        return new RecordIterator<>( EthosJsonSupport.getObjectMapper().readerFor(JsonNode.class) );
+    }
+
+    /**
+     * Streams the records as JsonNodes, in the order they were paged.
+     * @return A lazy stream of the records.
+     */
+    public Stream<JsonNode> stream() {
+        return toStream( iterator() );
+    }
+
+    /**
+     * Streams the records as JavaBeans, in the order they were paged.
+     * @param beanClass The JavaBean class for the resource and version.
+     * @param <T> The JavaBean type.
+     * @return A lazy stream of the records.
+     */
+    public <T> Stream<T> stream( Class<T> beanClass ) {
+        return toStream( new RecordIterator<T>(EthosJsonSupport.getBeanReader(beanClass)) );
+    }
+
+    /**
+     * Closes the file channel and deletes the spill file.  No records can be read afterwards.
+     * @throws IOException Thrown if the spill file cannot be deleted.
+     */
+    @Override
+    public void close() throws IOException {
+        if( closed ) {
+            return;
+        }
+        closed = true;
+        try {
+            fileChannel.close();
+        }
+        finally {
+            try {
+                Files.deleteIfExists( spillFile );
+            }
+            catch( IOException ioe ) {
+                // Some platforms cannot delete a file while it is mapped, so leave it to be deleted on exit.
+                spillFile.toFile().deleteOnExit();
+            }
+        }
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "EthosSpilledRecords[records=%s, bytes=%s, segments=%s, file=%s]", recordCount, fileSize, segments.length, spillFile );
+    }
+
+    private InputStream openRecord( int index ) throws IOException {
+        if( closed ) {
+            throw new IOException( "The spilled records have been closed." );
+        }
+        if( index < 0 || index >= recordCount ) {
+            throw new IndexOutOfBoundsException( "Record index " + index + " out of bounds for " + recordCount + " records." );
+        }
+        long recordOffset = recordOffsets[ index ];
+        long recordEnd = (index + 1 < recordCount) ? recordOffsets[ index + 1 ] : fileSize;
+        int segmentIndex = Arrays.binarySearch( segmentOffsets, recordOffset );
+        if( segmentIndex < 0 ) {
+            segmentIndex = -segmentIndex - 2;
+        }
+        // A duplicate is used so that concurrent readers do not share a position.
+        ByteBuffer recordBuffer = segments[ segmentIndex ].duplicate();
+        int position = (int) (recordOffset - segmentOffsets[ segmentIndex ]);
+        recordBuffer.limit( position + (int) (recordEnd - recordOffset) );
+        recordBuffer.position( position );
+        return new ByteBufferBackedInputStream( recordBuffer );
+    }
+
+    private static <T> Stream<T> toStream( Iterator<T> iterator ) {
+        Spliterator<T> spliterator = Spliterators.spliteratorUnknownSize( iterator, Spliterator.ORDERED | Spliterator.NONNULL );
+        return StreamSupport.stream( spliterator, false );
+    }
+
+    /**
+     * Iterates the records in order, reading each with the given ObjectReader.
+     */
+    private class RecordIterator<T> implements Iterator<T> {
+
+        private final ObjectReader recordReader;
+        private int index;
+
+        RecordIterator( ObjectReader recordReader ) {
+            this.recordReader = recordReader;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return index < recordCount;
+        }
+
+        @Override
+        public T next() {
+            if( !hasNext() ) {
+                throw new NoSuchElementException();
+            }
+            try {
+                return recordReader.readValue( openRecord(index++) );
+            }
+            catch( IOException ioe ) {
+                throw new UncheckedIOException( ioe );
+            }
+        }
+    }
+
+    /**
+     * Writes the records of each page to the spill file, keeping the offset of each record and each segment.
+     */
+    private static class SpillWriter {
+
+        private final Path spillFile;
+        private final JsonFactory jsonFactory = EthosJsonSupport.getObjectMapper().getFactory();
+        private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream( 8192 );
+        private long[] recordOffsets = new long[ 1024 ];
+        private int recordCount;
+        private long[] segmentOffsets = new long[ 16 ];
+        private int segmentCount;
+        private long fileSize;
+
+        SpillWriter( Path spillFile ) {
+            this.spillFile = spillFile;
+        }
+
+        EthosSpilledRecords writeAll( Iterator<EthosResponse> pageIterator ) throws IOException {
+            try( OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(spillFile), 64 * 1024) ) {
+                while( pageIterator.hasNext() ) {
+                    writePage( pageIterator.next(), outputStream );
+                }
+            }
+            return new EthosSpilledRecords( spillFile, Arrays.copyOf(recordOffsets, recordCount), recordCount, fileSize, segmentOffsets, segmentCount );
+        }
+
+        private void writePage( EthosResponse page, OutputStream outputStream ) throws IOException {
+            String content = page.getContent();
+            if( content == null || content.isBlank() ) {
+                return;
+            }
+            try( JsonParser pageParser = jsonFactory.createParser(content) ) {
+                if( pageParser.nextToken() != JsonToken.START_ARRAY ) {
+                    throw new IOException( "Expected the page to be a JSON array of records from " + page.getRequestedUrl() );
+                }
+                while( pageParser.nextToken() == JsonToken.START_OBJECT ) {
+                    recordBytes.reset();
+                    try( JsonGenerator recordGenerator = jsonFactory.createGenerator(recordBytes) ) {
+                        recordGenerator.copyCurrentStructure( pageParser );
+                    }
+                    writeRecord( outputStream );
+                }
+            }
+        }
+
+        private void writeRecord( OutputStream outputStream ) throws IOException {
+            int recordSize = recordBytes.size();
+            // Start a new segment at this record if it would not fit in the current one.
+            if( segmentCount == 0 || fileSize + recordSize - segmentOffsets[segmentCount - 1] > SEGMENT_MAX_BYTES ) {
+                if( segmentCount == 0 || fileSize > segmentOffsets[segmentCount - 1] ) {
+                    if( segmentCount == segmentOffsets.length ) {
+                        segmentOffsets = Arrays.copyOf( segmentOffsets, segmentCount * 2 );
+                    }
+                    segmentOffsets[ segmentCount++ ] = fileSize;
+                }
+            }
+            if( recordCount == recordOffsets.length ) {
+                recordOffsets = Arrays.copyOf( recordOffsets, recordCount * 2 );
+            }
+            recordOffsets[ recordCount++ ] = fileSize;
+            recordBytes.writeTo( outputStream );
+            fileSize += recordSize;
+        }
+    }
+
+}
@@ -33,6 +33,8 @@ public class GetAccessTokenExample {
         }
         String apiKey = args[ 0 ];
         getToken(apiKey);
+        getTokenWithBackgroundRefresh(apiKey);
+        getTokenFromSharedCache(apiKey);
     }
 
 
@@ -58,4 +60,41 @@ public class GetAccessTokenExample {
         System.out.printf("The token's valid value is '%b' and it expires at %s\n", token.isValid(), token.getExpirationTime().toLocalTime().toString());
     }
 
+    /**
+     * An example of how to keep the access token of a client current with an EthosAccessTokenRefresher.  The refresher
+     * asks the client for its token on a background thread when the token expires, so the client renews it there
+     * rather than inline on the next API call, and concurrent refreshes are coalesced into a single call.
+     * @param apiKey The API key used to get an auth access token.
+     * @throws IOException Propagated out if the first token could not be obtained.
+     */
+    public static void getTokenWithBackgroundRefresh( String apiKey ) throws IOException {
+        // Keep the token of the client that makes the API calls current.
+        EthosProxyClient ethosProxyClient = SharedEthosClients.forApiKey( apiKey ).getEthosProxyClient();
+        try( EthosAccessTokenRefresher tokenRefresher = EthosAccessTokenRefresher.forClient(ethosProxyClient).start() ) {
+            // Every call after start() returns the current token without making a request.
+            for( int i = 0; i < 3; i++ ) {
+                AccessToken token = tokenRefresher.getAccessToken();
+                System.out.printf("The token's valid value is '%b' and it expires at %s\n", token.isValid(), token.getExpirationTime().toLocalTime().toString());
+            }
+            System.out.printf("Tokens obtained: %s\n", tokenRefresher.getRefreshCount());
+        }
+    }
+
+    /**
+     * An example of how to get an access token from the process-wide EthosAccessTokenCache.  Applications working
+     * with many API keys in one JVM can ask the cache for the token of any API key, and the auth endpoint is only called
+     * when there is no valid token cached for that key, rather than each time a client is rebuilt.
+     * @param apiKey The API key used to get an auth access token.
+     * @throws IOException Propagated out if there is no valid cached token and a new one could not be obtained.
+     */
+    public static void getTokenFromSharedCache( String apiKey ) throws IOException {
+        EthosAccessTokenCache tokenCache = EthosAccessTokenCache.getInstance();
+        // Only the first call gets a new token, the others are answered from the cache.
+        for( int i = 0; i < 3; i++ ) {
+            AccessToken token = tokenCache.getAccessToken( apiKey );
+            System.out.printf("The token's valid value is '%b' and it expires at %s\n", token.isValid(), token.getExpirationTime().toLocalTime().toString());
+        }
+        System.out.println( tokenCache );
+    }
+
 }
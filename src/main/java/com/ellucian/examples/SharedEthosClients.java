@@ -0,0 +1,206 @@
+/*
+ * ******************************************************************************
+ *   Copyright 2022 Ellucian Company L.P. and its affiliates.
+ * ******************************************************************************
+ */
+package com.ellucian.examples;
+
+import com.ellucian.ethos.integration.client.EthosClientBuilder;
+import com.ellucian.ethos.integration.client.config.EthosConfigurationClient;
+import com.ellucian.ethos.integration.client.errors.EthosErrorsClient;
+import com.ellucian.ethos.integration.client.messages.EthosMessagesClient;
+import com.ellucian.ethos.integration.client.proxy.EthosFilterQueryClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClient;
+import com.ellucian.ethos.integration.client.proxy.EthosProxyClientAsync;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Holds one instance of each type of Ethos client built from a single EthosClientBuilder, so that every part of an
+ * application running proxy, filter-query, messages, errors and configuration clients side by side shares them.
+ * <p>
+ * Each client built by the EthosClientBuilder owns its own HTTP connections and access token.  Building a new client
+ * for every call pays a new TCP/TLS handshake and a new token request each time.  Getting the clients from here
+ * instead, as the proxy, filter-query, messages and errors examples do, means each client type is built once, and its
+ * open connections and cached access token are reused by every caller.  The clients are safe to share across threads.
+ * <p>
+ * This does not share one connection pool between the client types: each client still has its own HTTP client, with
+ * the pool size and keep-alive set inside the SDK, so the metrics below count client reuse rather than pool use.
+ * <p>
+ * forApiKey() returns one holder per API key and timeout for the life of the process, so code that only has the API
+ * key, such as the examples, shares the same clients without keeping a holder of its own.  Applications working with
+ * many API keys should build and release holders themselves rather than use forApiKey().
+ * <p>
+ * Simple usage metrics are kept to show how well the clients are being reused.
+ */
+public class SharedEthosClients {
+
+    // ==========================================================================
+    // Attributes
+    // ==========================================================================
+
+    /**
+     * The connection, connection request and socket timeout in seconds of the holders from forApiKey(String).
+     */
+    public static final int DEFAULT_TIMEOUT_SECONDS = 30;
+
+    private static final Map<String, SharedEthosClients> SHARED_INSTANCE_MAP = new ConcurrentHashMap<>();
+
+    private final EthosClientBuilder ethosClientBuilder;
+    private final Map<Class<?>, Object> clientMap = new ConcurrentHashMap<>();
+    private final Map<String, AtomicLong> lookupCountMap = new ConcurrentHashMap<>();
+    private final AtomicInteger clientsBuilt = new AtomicInteger();
+    private final AtomicLong clientLookups = new AtomicLong();
+
+    /**
+     * Creates the shared clients holder.  The EthosClientBuilder should be fully configured with the API key and any
+     * timeouts before it is passed in, as it is used to build each client the first time it is requested.
+     * @param ethosClientBuilder The EthosClientBuilder used to build each client.
+     */
+    public SharedEthosClients( EthosClientBuilder ethosClientBuilder ) {
+        if( ethosClientBuilder == null ) {
+            throw new IllegalArgumentException( "The ethosClientBuilder is required." );
+        }
+        this.ethosClientBuilder = ethosClientBuilder;
+    }
+
+    // ==========================================================================
+    // Methods
+    // ==========================================================================
+
+    /**
+     * Gets the process-wide holder for the given API key, building it on first use with DEFAULT_TIMEOUT_SECONDS for
+     * the connection, connection request and socket timeouts.
+     * @param apiKey The API key the clients are built with.
+     * @return The SharedEthosClients for the API key.
+     */
+    public static SharedEthosClients forApiKey( String apiKey ) {
+        return forApiKey( apiKey, DEFAULT_TIMEOUT_SECONDS );
+    }
+
+    /**
+     * Gets the process-wide holder for the given API key and timeout, building it on first use.
+     * @param apiKey The API key the clients are built with.
+     * @param timeoutSeconds The connection, connection request and socket timeout in seconds.
+     * @return The SharedEthosClients for the API key and timeout.
+     */
+    public static SharedEthosClients forApiKey( String apiKey, int timeoutSeconds ) {
+        if( apiKey == null || apiKey.isBlank() ) {
+            throw new IllegalArgumentException( "The apiKey is required." );
+        }
+        if( timeoutSeconds < 1 ) {
+            throw new IllegalArgumentException( "The timeoutSeconds must be at least 1: " + timeoutSeconds );
+        }
+        return SHARED_INSTANCE_MAP.computeIfAbsent( timeoutSeconds + ":" + apiKey,
+                key -> new SharedEthosClients( new EthosClientBuilder(apiKey)
+                                               .withConnectionTimeout(timeoutSeconds)
+                                               .withConnectionRequestTimeout(timeoutSeconds)
+                                               .withSocketTimeout(timeoutSeconds) ) );
+    }
+
+    /**
+     * Gets the shared EthosProxyClient, building it on first use.
+     * @return The shared EthosProxyClient.
+     */
+    public EthosProxyClient getEthosProxyClient() {
+        return getClient( EthosProxyClient.class, ethosClientBuilder::buildEthosProxyClient );
+    }
+
+    /**
+     * Gets the shared EthosProxyClientAsync, building it on first use.
+     * @return The shared EthosProxyClientAsync.
+     */
+    public EthosProxyClientAsync getEthosProxyClientAsync() {
+        return getClient( EthosProxyClientAsync.class, ethosClientBuilder::buildEthosProxyAsyncClient );
+    }
+
+    /**
+     * Gets the shared EthosFilterQueryClient, building it on first use.
+     * @return The shared EthosFilterQueryClient.
+     */
+    public EthosFilterQueryClient getEthosFilterQueryClient() {
+        return getClient( EthosFilterQueryClient.class, ethosClientBuilder::buildEthosFilterQueryClient );
+    }
+
+    /**
+     * Gets the shared EthosMessagesClient, building it on first use.
+     * @return The shared EthosMessagesClient.
+     */
+    public EthosMessagesClient getEthosMessagesClient() {
+        return getClient( EthosMessagesClient.class, ethosClientBuilder::buildEthosMessagesClient );
+    }
+
+    /**
+     * Gets the shared EthosErrorsClient, building it on first use.
+     * @return The shared EthosErrorsClient.
+     */
+    public EthosErrorsClient getEthosErrorsClient() {
+        return getClient( EthosErrorsClient.class, ethosClientBuilder::buildEthosErrorsClient );
+    }
+
+    /**
+     * Gets the shared EthosConfigurationClient, building it on first use.
+     * @return The shared EthosConfigurationClient.
+     */
+    public EthosConfigurationClient getEthosConfigurationClient() {
+        return getClient( EthosConfigurationClient.class, ethosClientBuilder::buildEthosConfigurationClient );
+    }
+
+    /**
+     * Gets the number of clients built so far.  This is at most one per client type.
+     * @return The number of clients built.
+     */
+    public int getClientsBuilt() {
+        return clientsBuilt.get();
+    }
+
+    /**
+     * Gets the total number of times a client has been requested from this holder.
+     * @return The number of client lookups.
+     */
+    public long getClientLookups() {
+        return clientLookups.get();
+    }
+
+    /**
+     * Gets the number of client lookups that reused an existing client instead of building a new one.  Each of these
+     * would have been a new client, with its own connections and token request, without this holder.
+     * @return The number of client lookups that reused an existing client.
+     */
+    public long getClientReuses() {
+        return clientLookups.get() - clientsBuilt.get();
+    }
+
+    /**
+     * Gets the number of lookups per client type.
+     * @return A map of client type simple name to number of lookups, sorted by name.
+     */
+    public Map<String, Long> getClientLookupsByType() {
+        Map<String, Long> lookupsByType = new TreeMap<>();
+        lookupCountMap.forEach( (type, count) -> lookupsByType.put(type, count.get()) );
+        return Collections.unmodifiableMap( lookupsByType );
+    }
+
+    @Override
+    public String toString() {
+        return String.format( "SharedEthosClients[clientsBuilt=%s, clientLookups=%s, clientReuses=%s, lookupsByType=%s]",
+                              getClientsBuilt(), getClientLookups(), getClientReuses(), getClientLookupsByType() );
+    }
+
+    private <T> T getClient( Class<T> clientType, Supplier<T> clientSupplier ) {
+        clientLookups.incrementAndGet();
+        lookupCountMap.computeIfAbsent( clientType.getSimpleName(), type -> new AtomicLong() ).incrementAndGet();
+        Object client = clientMap.computeIfAbsent( clientType, type -> {
+            clientsBuilt.incrementAndGet();
+            return clientSupplier.get();
+        });
+        return clientType.cast( client );
+    }
+
+}